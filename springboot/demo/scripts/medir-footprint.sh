@@ -0,0 +1,34 @@
+#!/usr/bin/env sh
+# Mede tempo até a primeira resposta e RSS de um build (JVM ou nativo).
+#
+# Uso:
+#   scripts/medir-footprint.sh java -Xmx256m -XX:+UseSerialGC -jar target/demo-0.0.1-SNAPSHOT.jar
+#   scripts/medir-footprint.sh target/api-autenticacao
+#
+# URL pode ser trocada com FOOTPRINT_URL (padrão: liveness na porta 8089).
+set -eu
+
+URL="${FOOTPRINT_URL:-http://localhost:${PORT:-8089}/actuator/health/liveness}"
+LIMITE_SEGUNDOS="${FOOTPRINT_TIMEOUT:-120}"
+
+inicio=$(date +%s%N)
+"$@" >/tmp/medir-footprint.log 2>&1 &
+pid=$!
+trap 'kill "$pid" 2>/dev/null || true' EXIT
+
+while ! curl -fs -o /dev/null "$URL"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+        echo "processo terminou antes de responder; veja /tmp/medir-footprint.log" >&2
+        exit 1
+    fi
+    if [ $(( ($(date +%s%N) - inicio) / 1000000000 )) -ge "$LIMITE_SEGUNDOS" ]; then
+        echo "sem resposta em ${LIMITE_SEGUNDOS}s" >&2
+        exit 1
+    fi
+    sleep 0.02
+done
+primeira=$(( ($(date +%s%N) - inicio) / 1000000 ))
+rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+
+echo "tempo ate a primeira resposta: ${primeira} ms"
+echo "RSS apos a primeira resposta:  $(( rss / 1024 )) MB"
@@ -1,11 +1,14 @@
 package com.example.demo;
 
+import com.example.demo.config.NativeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableScheduling  // ➜ Habilita o agendamento
+@ImportRuntimeHints(NativeHints.class)  // ➜ jjwt na imagem nativa (-Pnative)
 public class DemoApplication {
 
 	public static void main(String[] args) {
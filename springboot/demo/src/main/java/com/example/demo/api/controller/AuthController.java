@@ -3,7 +3,9 @@ package com.example.demo.api.controller;
 import com.example.demo.api.dto.LoginRequest;
 import com.example.demo.api.dto.LoginResponse;
 import com.example.demo.api.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,8 +17,17 @@ public class AuthController {
     private final AuthService authService;
 
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@RequestBody LoginRequest request) {
-        LoginResponse response = authService.autenticar(request);
+    public ResponseEntity<LoginResponse> login(@RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        LoginResponse response = authService.autenticar(request, httpRequest.getRemoteAddr());
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Revoga o token opaco usado na própria requisição.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        authService.revogar(authorization.startsWith("Bearer ") ? authorization.substring(7) : authorization);
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -0,0 +1,27 @@
+package com.example.demo.api.controller;
+
+import com.example.demo.api.dto.ClienteServicoCriado;
+import com.example.demo.api.dto.ClienteServicoRequest;
+import com.example.demo.api.service.ClienteCredenciaisService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/clientes")
+@RequiredArgsConstructor
+@PreAuthorize("hasAuthority('ADMIN')")
+public class ClienteServicoController {
+
+    private final ClienteCredenciaisService clienteCredenciaisService;
+
+    @PostMapping
+    public ResponseEntity<ClienteServicoCriado> registrar(@RequestBody ClienteServicoRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .cacheControl(CacheControl.noStore())
+                .body(clienteCredenciaisService.registrar(request.clientId(), request.escopo()));
+    }
+}
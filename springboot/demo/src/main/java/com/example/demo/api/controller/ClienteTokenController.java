@@ -0,0 +1,70 @@
+package com.example.demo.api.controller;
+
+import com.example.demo.api.dto.ClienteTokenResponse;
+import com.example.demo.api.service.ClienteCredenciaisService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Endpoint de token do fluxo client credentials, no formato da RFC 6749: formulário com
+ * {@code grant_type=client_credentials} e {@code scope} opcional, credenciais em
+ * {@code Authorization: Basic} ou nos campos {@code client_id}/{@code client_secret}.
+ */
+@RestController
+@RequestMapping("/auth")
+@RequiredArgsConstructor
+public class ClienteTokenController {
+
+    private static final String BASIC = "Basic ";
+
+    private final ClienteCredenciaisService clienteCredenciaisService;
+
+    @PostMapping(value = "/token", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public ResponseEntity<ClienteTokenResponse> token(
+            @RequestParam(value = "grant_type", required = false) String grantType,
+            @RequestParam(value = "scope", required = false) String escopo,
+            @RequestParam(value = "client_id", required = false) String clientId,
+            @RequestParam(value = "client_secret", required = false) String segredo,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (!"client_credentials".equals(grantType)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unsupported_grant_type");
+        }
+        if (authorization != null && authorization.regionMatches(true, 0, BASIC, 0, BASIC.length())) {
+            String[] credenciais = basic(authorization.substring(BASIC.length()));
+            clientId = credenciais[0];
+            segredo = credenciais[1];
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(clienteCredenciaisService.emitir(clientId, segredo, escopo));
+    }
+
+    /**
+     * {@code client_id:client_secret} em Base64, cada parte codificada como formulário (RFC 6749, 2.3.1).
+     */
+    private static String[] basic(String valor) {
+        try {
+            String decodificado = new String(Base64.getDecoder().decode(valor.trim()), StandardCharsets.UTF_8);
+            int separador = decodificado.indexOf(':');
+            if (separador < 0) {
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "invalid_client");
+            }
+            return new String[]{
+                    URLDecoder.decode(decodificado.substring(0, separador), StandardCharsets.UTF_8),
+                    URLDecoder.decode(decodificado.substring(separador + 1), StandardCharsets.UTF_8)
+            };
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "invalid_client");
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.api.controller;
+
+import com.example.demo.api.dto.FilialImportacaoResultado;
+import com.example.demo.api.service.FilialImportacaoService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/admin/filiais")
+@RequiredArgsConstructor
+@PreAuthorize("hasAuthority('ADMIN')")
+public class FilialImportacaoController {
+
+    private final FilialImportacaoService importacaoService;
+
+    @PostMapping(value = "/importacao", consumes = "application/x-ndjson")
+    public ResponseEntity<FilialImportacaoResultado> importarNdjson(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(importacaoService.importar(request.getInputStream(), FilialImportacaoService.Formato.NDJSON));
+    }
+
+    @PostMapping(value = "/importacao", consumes = "text/csv")
+    public ResponseEntity<FilialImportacaoResultado> importarCsv(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(importacaoService.importar(request.getInputStream(), FilialImportacaoService.Formato.CSV));
+    }
+}
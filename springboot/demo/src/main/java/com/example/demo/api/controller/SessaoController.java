@@ -0,0 +1,50 @@
+package com.example.demo.api.controller;
+
+import com.example.demo.api.dto.SessoesFilial;
+import com.example.demo.api.service.RegistroSessoes;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+@RestController
+@RequestMapping("/admin/sessoes")
+@RequiredArgsConstructor
+@PreAuthorize("hasAuthority('ADMIN')")
+public class SessaoController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final RegistroSessoes registroSessoes;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Sessões vivas por filial, uma linha NDJSON por filial, escritas direto na resposta enquanto o
+     * registro é percorrido.
+     */
+    @GetMapping(produces = NDJSON)
+    public void listar(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        OutputStream saida = response.getOutputStream();
+        try {
+            registroSessoes.paraCada((codigoFilial, ativas) -> {
+                try {
+                    saida.write(objectMapper.writeValueAsBytes(new SessoesFilial(codigoFilial, ativas)));
+                    saida.write('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        saida.flush();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.api.dto;
+
+/**
+ * Cliente recém-cadastrado. O {@code segredo} só aparece aqui; o serviço guarda apenas o hash.
+ */
+public record ClienteServicoCriado(
+        String clientId,
+        String segredo,
+        String escopo
+) {
+}
@@ -0,0 +1,10 @@
+package com.example.demo.api.dto;
+
+/**
+ * Cadastro de cliente de serviço; {@code escopo} lista permissões separadas por espaço.
+ */
+public record ClienteServicoRequest(
+        String clientId,
+        String escopo
+) {
+}
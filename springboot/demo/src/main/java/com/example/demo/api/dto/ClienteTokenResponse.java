@@ -0,0 +1,15 @@
+package com.example.demo.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Resposta do {@code POST /auth/token} nos nomes da RFC 6749 (seção 5.1), para clientes OAuth2
+ * prontos conseguirem ler.
+ */
+public record ClienteTokenResponse(
+        @JsonProperty("access_token") String token,
+        @JsonProperty("token_type") String tipo,
+        @JsonProperty("expires_in") long expiraEmSegundos,
+        @JsonProperty("scope") String escopo
+) {
+}
@@ -0,0 +1,14 @@
+package com.example.demo.api.dto;
+
+/**
+ * Uma filial a criar na importação em lote. {@code ativo} e {@code permissoes} são opcionais
+ * (padrão: ativa, com as permissões padrão da coluna).
+ */
+public record FilialImportacaoLinha(
+        String nomeFilial,
+        String login,
+        String senha,
+        Boolean ativo,
+        Integer permissoes
+) {
+}
@@ -0,0 +1,24 @@
+package com.example.demo.api.dto;
+
+import java.util.List;
+
+public record FilialImportacaoResultado(
+        int recebidas,
+        int criadas,
+        List<Erro> erros
+) {
+
+    public FilialImportacaoResultado {
+        erros = List.copyOf(erros);
+    }
+
+    /**
+     * Linha recusada; {@code linha} é o número da linha no arquivo enviado (1 = primeira).
+     */
+    public record Erro(
+            long linha,
+            String login,
+            String mensagem
+    ) {
+    }
+}
@@ -2,5 +2,15 @@ package com.example.demo.api.dto;
 
 public record LoginRequest(
         String login,
-        String senha
-) {}
+        String senha,
+        ModoToken modo
+) {
+
+    public LoginRequest(String login, String senha) {
+        this(login, senha, null);
+    }
+
+    public ModoToken modoOuPadrao() {
+        return modo == null ? ModoToken.JWT : modo;
+    }
+}
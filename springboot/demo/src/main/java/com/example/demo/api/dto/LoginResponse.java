@@ -1,10 +1,21 @@
 package com.example.demo.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.Instant;
 
+/**
+ * Resposta do login. {@code renovarEm} só vem com a janela de renovação antecipada ligada
+ * ({@code app.security.jwt.renewal-window-millis}): é quando o cliente deve logar de novo.
+ */
 public record LoginResponse(
         String token,
         String tipo,
-        Instant expiraEm
+        Instant expiraEm,
+        @JsonInclude(JsonInclude.Include.NON_NULL) Instant renovarEm
 ) {
+
+    public LoginResponse(String token, String tipo, Instant expiraEm) {
+        this(token, tipo, expiraEm, null);
+    }
 }
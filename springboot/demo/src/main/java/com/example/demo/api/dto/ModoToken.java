@@ -0,0 +1,11 @@
+package com.example.demo.api.dto;
+
+/**
+ * Formato do token emitido no login.
+ */
+public enum ModoToken {
+    /** JWT assinado, validado sem consulta a estado (padrão). */
+    JWT,
+    /** Handle opaco de 128 bits guardado no servidor; pode ser revogado na hora. */
+    OPACO
+}
@@ -0,0 +1,10 @@
+package com.example.demo.api.dto;
+
+/**
+ * Uma linha de {@code GET /admin/sessoes}: sessões vivas da filial nesta instância.
+ */
+public record SessoesFilial(
+        Integer codigoFilial,
+        int ativas
+) {
+}
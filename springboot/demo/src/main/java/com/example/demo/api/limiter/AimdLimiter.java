@@ -0,0 +1,133 @@
+package com.example.demo.api.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limite de concorrência adaptativo no esquema AIMD (aumento aditivo, redução multiplicativa).
+ * <p>
+ * Cada requisição concluída dentro da latência alvo soma {@code 1/limite} ao limite (na prática,
+ * +1 a cada "janela" de requisições); uma requisição lenta ou que terminou em 5xx multiplica o
+ * limite por {@code fatorReducao}, no máximo uma vez por janela. A janela é o número de conclusões
+ * igual ao limite de antes da redução: as requisições que já estavam em andamento quando o serviço
+ * engasgou terminam lentas também, e sem a janela uma rajada delas levaria o limite direto ao mínimo.
+ * O limite só cresce quando está sendo usado, para não inflar em períodos ociosos.
+ * <p>
+ * Sem lock: o limite é um {@code double} guardado em bits num {@link AtomicLong} e ajustado por CAS.
+ */
+public class AimdLimiter {
+
+    private final String nome;
+    private final int limiteMinimo;
+    private final int limiteMaximo;
+    private final double fatorReducao;
+    private final long latenciaAlvoNanos;
+    private final AtomicInteger emUso = new AtomicInteger();
+    private final AtomicLong rejeitadas = new AtomicLong();
+    // Double.doubleToRawLongBits do limite
+    private final AtomicLong limite = new AtomicLong();
+    private final AtomicLong concluidas = new AtomicLong();
+    // número da conclusão a partir da qual uma nova redução é permitida
+    private final AtomicLong proximaReducao = new AtomicLong();
+
+    public AimdLimiter(String nome, int limiteInicial, int limiteMinimo, int limiteMaximo,
+                       double fatorReducao, long latenciaAlvoMillis) {
+        this.nome = nome;
+        this.limiteMinimo = limiteMinimo;
+        this.limiteMaximo = limiteMaximo;
+        this.fatorReducao = fatorReducao;
+        this.latenciaAlvoNanos = latenciaAlvoMillis * 1_000_000L;
+        this.limite.set(Double.doubleToRawLongBits(Math.max(limiteMinimo, Math.min(limiteMaximo, limiteInicial))));
+    }
+
+    /**
+     * Tenta reservar uma vaga; devolve {@code false} (e conta a rejeição) quando o limite foi atingido.
+     */
+    public boolean tentarAdquirir() {
+        int limiteAtual = getLimite();
+        while (true) {
+            int atual = emUso.get();
+            if (atual >= limiteAtual) {
+                registrarRejeicao();
+                return false;
+            }
+            if (emUso.compareAndSet(atual, atual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera a vaga e ajusta o limite com a latência observada.
+     */
+    public void liberar(long latenciaNanos, boolean falhaPorSobrecarga) {
+        int emUsoAntes = emUso.getAndDecrement();
+        long conclusao = concluidas.incrementAndGet();
+        if (falhaPorSobrecarga || latenciaNanos > latenciaAlvoNanos) {
+            reduzir(conclusao);
+        } else {
+            aumentar(emUsoAntes);
+        }
+    }
+
+    private void reduzir(long conclusao) {
+        long permitida = proximaReducao.get();
+        if (conclusao < permitida) {
+            return;
+        }
+        double atual = valor(limite.get());
+        if (!proximaReducao.compareAndSet(permitida, conclusao + (long) atual)) {
+            // outra conclusão lenta desta mesma janela já reduziu
+            return;
+        }
+        while (true) {
+            long bits = limite.get();
+            double novo = Math.max(limiteMinimo, valor(bits) * fatorReducao);
+            if (limite.compareAndSet(bits, Double.doubleToRawLongBits(novo))) {
+                return;
+            }
+        }
+    }
+
+    private void aumentar(int emUsoAntes) {
+        while (true) {
+            long bits = limite.get();
+            double atual = valor(bits);
+            if (emUsoAntes * 2 < atual) {
+                return;
+            }
+            double novo = Math.min(limiteMaximo, atual + 1.0 / atual);
+            if (limite.compareAndSet(bits, Double.doubleToRawLongBits(novo))) {
+                return;
+            }
+        }
+    }
+
+    public void registrarRejeicao() {
+        rejeitadas.incrementAndGet();
+    }
+
+    public int getLimite() {
+        return (int) valor(limite.get());
+    }
+
+    public int getEmUso() {
+        return emUso.get();
+    }
+
+    public double getUtilizacao() {
+        return (double) emUso.get() / getLimite();
+    }
+
+    public long getRejeitadas() {
+        return rejeitadas.get();
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    private static double valor(long bits) {
+        return Double.longBitsToDouble(bits);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.demo.api.limiter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Limite adaptativo de concorrência para o serviço inteiro, aplicado antes da cadeia do Spring
+ * Security.
+ * <p>
+ * Há duas classes de requisição com limites independentes: as caras, que pagam BCrypt
+ * ({@code POST /auth/login} e a importação de filiais em {@code POST /admin/filiais/importacao}), e
+ * as demais, autenticadas por token, que são baratas. Quando o limite da classe é
+ * atingido a requisição recebe 503 na hora, em vez de ficar na fila do Tomcat ou esperando uma
+ * conexão do Hikari. Para dar prioridade ao tráfego com token, as requisições caras também são
+ * recusadas quando a classe de token passa de {@code prioridade-token} de utilização.
+ * <p>
+ * Só probes do actuator e {@code OPTIONS} ficam de fora. O filtro roda antes da autenticação, então
+ * isentar um caminho isentaria também quem chama sem token.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String CORPO_SOBRECARGA = "{\"message\": \"Serviço sobrecarregado, tente novamente\"}";
+    private static final Set<String> CAMINHOS_CAROS = Set.of("/auth/login", "/admin/filiais/importacao");
+
+    private final boolean habilitado;
+    private final double prioridadeToken;
+    private final AimdLimiter loginLimiter;
+    private final AimdLimiter tokenLimiter;
+
+    public ConcurrencyLimitFilter(
+            @Value("${app.limiter.enabled:true}") boolean habilitado,
+            @Value("${app.limiter.token-priority-utilization:0.8}") double prioridadeToken,
+            @Value("${app.limiter.login.initial-limit:8}") int loginInicial,
+            @Value("${app.limiter.login.min-limit:2}") int loginMinimo,
+            @Value("${app.limiter.login.max-limit:32}") int loginMaximo,
+            @Value("${app.limiter.login.target-latency-millis:800}") long loginLatenciaAlvo,
+            @Value("${app.limiter.token.initial-limit:50}") int tokenInicial,
+            @Value("${app.limiter.token.min-limit:10}") int tokenMinimo,
+            @Value("${app.limiter.token.max-limit:200}") int tokenMaximo,
+            @Value("${app.limiter.token.target-latency-millis:150}") long tokenLatenciaAlvo,
+            @Value("${app.limiter.backoff-ratio:0.9}") double fatorReducao) {
+        this.habilitado = habilitado;
+        this.prioridadeToken = prioridadeToken;
+        this.loginLimiter = new AimdLimiter("login", loginInicial, loginMinimo, loginMaximo,
+                fatorReducao, loginLatenciaAlvo);
+        this.tokenLimiter = new AimdLimiter("token", tokenInicial, tokenMinimo, tokenMaximo,
+                fatorReducao, tokenLatenciaAlvo);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !habilitado
+                || HttpMethod.OPTIONS.matches(request.getMethod())
+                || request.getRequestURI().startsWith("/actuator/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        boolean cara = HttpMethod.POST.matches(request.getMethod()) && CAMINHOS_CAROS.contains(request.getServletPath());
+        AimdLimiter limiter = cara ? loginLimiter : tokenLimiter;
+
+        if (cara && tokenLimiter.getUtilizacao() >= prioridadeToken) {
+            loginLimiter.registrarRejeicao();
+            rejeitar(response);
+            return;
+        }
+        if (!limiter.tentarAdquirir()) {
+            rejeitar(response);
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        boolean falha = true;
+        try {
+            filterChain.doFilter(request, response);
+            falha = response.getStatus() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        } finally {
+            limiter.liberar(System.nanoTime() - inicio, falha);
+        }
+    }
+
+    public AimdLimiter getLoginLimiter() {
+        return loginLimiter;
+    }
+
+    public AimdLimiter getTokenLimiter() {
+        return tokenLimiter;
+    }
+
+    private static void rejeitar(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType("application/json");
+        response.getWriter().write(CORPO_SOBRECARGA);
+    }
+}
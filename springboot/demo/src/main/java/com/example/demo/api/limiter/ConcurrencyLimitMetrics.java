@@ -0,0 +1,37 @@
+package com.example.demo.api.limiter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Expõe limite, requisições em andamento e rejeições de cada classe do {@link ConcurrencyLimitFilter}.
+ */
+@Component
+public class ConcurrencyLimitMetrics implements MeterBinder {
+
+    private final List<AimdLimiter> limiters;
+
+    public ConcurrencyLimitMetrics(ConcurrencyLimitFilter filter) {
+        this.limiters = List.of(filter.getLoginLimiter(), filter.getTokenLimiter());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (AimdLimiter limiter : limiters) {
+            Gauge.builder("auth.limiter.limit", limiter, AimdLimiter::getLimite)
+                    .tag("classe", limiter.getNome())
+                    .register(registry);
+            Gauge.builder("auth.limiter.inflight", limiter, AimdLimiter::getEmUso)
+                    .tag("classe", limiter.getNome())
+                    .register(registry);
+            FunctionCounter.builder("auth.limiter.rejected", limiter, AimdLimiter::getRejeitadas)
+                    .tag("classe", limiter.getNome())
+                    .register(registry);
+        }
+    }
+}
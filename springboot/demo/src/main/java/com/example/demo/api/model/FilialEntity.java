@@ -1,11 +1,17 @@
 package com.example.demo.api.model;
 
+import com.example.verificador.Permissao;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.Instant;
+
 @Getter @Setter @Builder @NoArgsConstructor @AllArgsConstructor
 @Entity
-@Table(name = "tb_filial")
+@Table(
+        name = "tb_filial",
+        indexes = @Index(name = "ix_filial_atualizado_em", columnList = "atualizado_em")
+)
 public class FilialEntity {
 
     @Id
@@ -40,6 +46,38 @@ public class FilialEntity {
     @Column(name = "ativo", nullable = false)
     private Boolean ativo;
 
+    // bitset de Permissao; o padrão dá acesso total, como era antes da coluna existir
+    @Builder.Default
+    @Column(name = "permissoes", nullable = false, columnDefinition = "INT NOT NULL DEFAULT 15")
+    private Integer permissoes = Permissao.PADRAO;
+
+    // mantido pelo banco; usado para propagar alterações entre réplicas
+    @Column(
+            name = "atualizado_em",
+            insertable = false,
+            updatable = false,
+            columnDefinition = "TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)"
+    )
+    private Instant atualizadoEm;
+
+    // gravados em lote pelo FilialAtividade; fora do Hibernate para um save não sobrescrever
+    @Column(name = "ultimo_login", insertable = false, updatable = false, columnDefinition = "TIMESTAMP(3) NULL")
+    private Instant ultimoLogin;
+
+    @Column(name = "ultimo_acesso", insertable = false, updatable = false, columnDefinition = "TIMESTAMP(3) NULL")
+    private Instant ultimoAcesso;
+
+    // projeção da busca de autenticação (FilialRepository.findByLogin)
+    public FilialEntity(Integer codigoFilial, String nomeFilial, String login, String senhaHash,
+                        Boolean ativo, Integer permissoes) {
+        this.codigoFilial = codigoFilial;
+        this.nomeFilial = nomeFilial;
+        this.login = login;
+        this.senhaHash = senhaHash;
+        this.ativo = ativo;
+        this.permissoes = permissoes;
+    }
+
     // relacionamento inverso das ferramentas
     // @JsonManagedReference("filial-ferramentas")
     // @OneToMany(mappedBy = "filial", fetch = FetchType.LAZY)
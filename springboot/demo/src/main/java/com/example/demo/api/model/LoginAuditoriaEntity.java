@@ -0,0 +1,43 @@
+package com.example.demo.api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Trilha de auditoria das tentativas de login. As linhas são gravadas em lote pelo
+ * {@code LoginAuditoria} via JDBC e a tabela é criada pelas migrations do Flyway; a entidade só
+ * serve para o {@code ddl-auto=validate} conferir as colunas que o JDBC grava.
+ */
+@Getter @Setter @Builder @NoArgsConstructor @AllArgsConstructor
+@Entity
+@Table(
+        name = "tb_login_auditoria",
+        indexes = @Index(name = "ix_login_auditoria_filial_data", columnList = "codigo_filial, ocorrido_em")
+)
+public class LoginAuditoriaEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false, updatable = false)
+    private Long id;
+
+    @Column(name = "codigo_filial")
+    private Integer codigoFilial;
+
+    @Column(name = "login", length = 100)
+    private String login;
+
+    @Column(name = "resultado", length = 20, nullable = false)
+    private String resultado;
+
+    @Column(name = "motivo", length = 40, nullable = false)
+    private String motivo;
+
+    @Column(name = "ip_origem", length = 45)
+    private String ipOrigem;
+
+    @Column(name = "ocorrido_em", nullable = false, columnDefinition = "TIMESTAMP(3)")
+    private Instant ocorridoEm;
+}
@@ -2,10 +2,24 @@ package com.example.demo.api.repository;
 
 import com.example.demo.api.model.FilialEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 public interface FilialRepository extends JpaRepository<FilialEntity, Integer> {
 
-    Optional<FilialEntity> findByLogin(String login);
+    /**
+     * Busca de autenticação: lê só as colunas do índice {@code ix_filial_login_auth} (migração V2),
+     * então o MySQL responde pelo índice sem visitar a linha. O resultado não é gerenciado pelo
+     * Hibernate e não traz {@code atualizadoEm}, {@code ultimoLogin} nem {@code ultimoAcesso};
+     * não use para alterar e salvar a filial. Somente leitura: com réplica configurada
+     * ({@code app.datasource.replica.*}) vai para ela.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.demo.api.model.FilialEntity("
+            + "f.codigoFilial, f.nomeFilial, f.login, f.senhaHash, f.ativo, f.permissoes) "
+            + "FROM FilialEntity f WHERE f.login = :login")
+    Optional<FilialEntity> findByLogin(@Param("login") String login);
 }
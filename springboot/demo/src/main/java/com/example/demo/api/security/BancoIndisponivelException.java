@@ -0,0 +1,15 @@
+package com.example.demo.api.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * O banco não atendeu (falha de conexão ou disjuntor aberto) e não havia principal em cache para
+ * servir no lugar. Vira {@code 503}, para o cliente tentar de novo em vez de descartar o token.
+ */
+public class BancoIndisponivelException extends ResponseStatusException {
+
+    public BancoIndisponivelException(Throwable causa) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Banco de dados indisponível", causa);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.api.security;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Autenticação de uma requisição com token de cliente de serviço (client credentials). O principal
+ * é o próprio {@code client_id}; as authorities vêm de {@link PermissaoAuthorities#deCliente(int)}.
+ */
+@SuppressFBWarnings("EI_EXPOSE_REP")
+public final class ClienteAuthentication implements Authentication {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String clientId;
+    private final List<GrantedAuthority> authorities;
+
+    public ClienteAuthentication(String clientId, List<GrantedAuthority> authorities) {
+        this.clientId = Objects.requireNonNull(clientId);
+        this.authorities = Objects.requireNonNull(authorities);
+    }
+
+    @Override
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+
+    @Override
+    public Object getDetails() {
+        return null;
+    }
+
+    @Override
+    public String getPrincipal() {
+        return clientId;
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return true;
+    }
+
+    /**
+     * Imutável: só aceita confirmar o estado que já tem.
+     */
+    @Override
+    public void setAuthenticated(boolean autenticado) {
+        if (!autenticado) {
+            throw new IllegalArgumentException("ClienteAuthentication é imutável");
+        }
+    }
+
+    @Override
+    public String getName() {
+        return clientId;
+    }
+
+    @Override
+    public boolean equals(Object outro) {
+        return outro instanceof ClienteAuthentication that
+                && clientId.equals(that.clientId)
+                && authorities.equals(that.authorities);
+    }
+
+    @Override
+    public int hashCode() {
+        return clientId.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ClienteAuthentication[" + clientId + ", " + authorities + "]";
+    }
+}
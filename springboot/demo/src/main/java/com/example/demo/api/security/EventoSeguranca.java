@@ -0,0 +1,30 @@
+package com.example.demo.api.security;
+
+/**
+ * Motivos pelos quais o {@link JwtAuthenticationFilter} recusa uma requisição.
+ */
+public enum EventoSeguranca {
+    TOKEN_EXPIRADO("tokens expirados", false),
+    TOKEN_INVALIDO("tokens inválidos", false),
+    TOKEN_ERRO("erros ao processar token", true),
+    FILIAL_INEXISTENTE("tokens de filial inexistente", false),
+    FILIAL_DESATIVADA("tokens de filial desativada", false),
+    ERRO_AUTENTICACAO("erros de autenticação", true),
+    BANCO_INDISPONIVEL("requisições sem banco nem principal em cache", true);
+
+    private final String descricao;
+    private final boolean erro;
+
+    EventoSeguranca(String descricao, boolean erro) {
+        this.descricao = descricao;
+        this.erro = erro;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+
+    public boolean isErro() {
+        return erro;
+    }
+}
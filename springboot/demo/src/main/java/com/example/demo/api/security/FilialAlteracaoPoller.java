@@ -0,0 +1,95 @@
+package com.example.demo.api.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+
+/**
+ * Propaga entre réplicas as alterações em {@code tb_filial}.
+ * <p>
+ * A coluna {@code atualizado_em} é mantida pelo próprio MySQL ({@code ON UPDATE CURRENT_TIMESTAMP}),
+ * então qualquer escrita, inclusive as feitas pela API da loja, aparece aqui. Cada nó consulta só
+ * as linhas alteradas desde a última marca e invalida essas filiais no {@link FilialPrincipalCache}
+ * (e no {@link SnapshotPrincipais}, para o cache não recarregar de lá um dado velho).
+ * A consulta volta {@code sync-overlap-millis} além da marca para pegar transações que gravaram um
+ * horário anterior mas só fizeram commit depois; invalidar de novo é inofensivo.
+ * <p>
+ * O atraso máximo de propagação é {@code sync-interval-millis} mais o tempo da consulta. Com o
+ * disjuntor do {@link ModoDegradado} aberto a rodada é pulada; a marca fica onde estava e a próxima
+ * consulta com o banco de volta pega tudo o que mudou no intervalo.
+ */
+@Component
+@Slf4j
+public class FilialAlteracaoPoller {
+
+    private static final String SQL_ALTERADAS = """
+            SELECT codigo_filial, login, atualizado_em
+              FROM tb_filial
+             WHERE atualizado_em > ?
+             ORDER BY atualizado_em""";
+
+    private static final String SQL_MARCA_INICIAL =
+            "SELECT COALESCE(MAX(atualizado_em), CURRENT_TIMESTAMP(3)) FROM tb_filial";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FilialPrincipalCache cache;
+    private final SnapshotPrincipais snapshot;
+    private final ModoDegradado modoDegradado;
+    private final long overlapMillis;
+
+    private Timestamp marca;
+
+    public FilialAlteracaoPoller(JdbcTemplate jdbcTemplate,
+                                 FilialPrincipalCache cache,
+                                 SnapshotPrincipais snapshot,
+                                 ModoDegradado modoDegradado,
+                                 @Value("${app.security.principal-cache.sync-overlap-millis:10000}") long overlapMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = cache;
+        this.snapshot = snapshot;
+        this.modoDegradado = modoDegradado;
+        this.overlapMillis = overlapMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.principal-cache.sync-interval-millis:5000}")
+    public void agendado() {
+        if (modoDegradado.disjuntorAberto()) {
+            return;
+        }
+        try {
+            sincronizar();
+        } catch (DataAccessException ex) {
+            log.warn("Falha ao consultar alterações de filiais: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Aplica as invalidações pendentes e devolve quantas linhas alteradas foram vistas.
+     */
+    public synchronized int sincronizar() {
+        if (marca == null) {
+            marca = jdbcTemplate.queryForObject(SQL_MARCA_INICIAL, Timestamp.class);
+            return 0;
+        }
+        Timestamp desde = new Timestamp(marca.getTime() - overlapMillis);
+        Timestamp[] maisRecente = {marca};
+        int[] vistas = {0};
+        jdbcTemplate.query(SQL_ALTERADAS, rs -> {
+            int codigoFilial = rs.getInt("codigo_filial");
+            snapshot.descartar(codigoFilial);
+            cache.invalidar(codigoFilial, rs.getString("login"));
+            Timestamp atualizadoEm = rs.getTimestamp("atualizado_em");
+            if (atualizadoEm.after(maisRecente[0])) {
+                maisRecente[0] = atualizadoEm;
+            }
+            vistas[0]++;
+        }, desde);
+        marca = maisRecente[0];
+        return vistas[0];
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.api.security;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Autenticação de uma requisição com token já verificado pelo {@link JwtAuthenticationFilter}.
+ * <p>
+ * Imutável e sem nada alocado além dela mesma: o principal é o {@link FilialDetails} compartilhado
+ * do cache, as authorities vêm da tabela interna de {@link PermissaoAuthorities} e não há
+ * {@code details} (ninguém no serviço lê IP ou sessão da autenticação). Não carrega credenciais.
+ */
+@SuppressFBWarnings({"EI_EXPOSE_REP", "EI_EXPOSE_REP2", "SE_BAD_FIELD"})
+public final class FilialAuthentication implements Authentication {
+
+    private static final long serialVersionUID = 1L;
+
+    private final FilialDetails filial;
+    private final List<GrantedAuthority> authorities;
+
+    public FilialAuthentication(FilialDetails filial, List<GrantedAuthority> authorities) {
+        this.filial = Objects.requireNonNull(filial);
+        this.authorities = Objects.requireNonNull(authorities);
+    }
+
+    @Override
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+
+    @Override
+    public Object getDetails() {
+        return null;
+    }
+
+    @Override
+    public FilialDetails getPrincipal() {
+        return filial;
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return true;
+    }
+
+    /**
+     * Imutável: só aceita confirmar o estado que já tem.
+     */
+    @Override
+    public void setAuthenticated(boolean autenticado) {
+        if (!autenticado) {
+            throw new IllegalArgumentException("FilialAuthentication é imutável");
+        }
+    }
+
+    @Override
+    public String getName() {
+        return filial.getUsername();
+    }
+
+    @Override
+    public boolean equals(Object outro) {
+        return outro instanceof FilialAuthentication that
+                && filial.getUsername().equals(that.filial.getUsername())
+                && authorities.equals(that.authorities);
+    }
+
+    @Override
+    public int hashCode() {
+        return filial.getUsername().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "FilialAuthentication[" + filial.getUsername() + ", " + authorities + "]";
+    }
+}
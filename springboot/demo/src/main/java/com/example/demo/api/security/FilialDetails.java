@@ -2,33 +2,68 @@ package com.example.demo.api.security;
 
 import com.example.demo.api.model.FilialEntity;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import lombok.RequiredArgsConstructor;
+import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
-import java.util.Collection;
 import java.util.List;
 
-@RequiredArgsConstructor
-@SuppressFBWarnings({"SE_BAD_FIELD", "SE_NO_SERIALVERSIONID", "EI_EXPOSE_REP2"})
+/**
+ * Cópia imutável dos dados de autenticação da filial. Não guarda a entidade JPA para poder
+ * ficar no {@link FilialPrincipalCache} e ser compartilhada entre threads.
+ */
+@Getter
+@SuppressFBWarnings({"SE_NO_SERIALVERSIONID"})
 public class FilialDetails implements UserDetails {
 
-    private final FilialEntity filial;
+    private final Integer codigoFilial;
+    private final String nomeFilial;
+    private final String login;
+    private final String senhaHash;
+    private final boolean ativo;
+    private final int permissoes;
+
+    public FilialDetails(FilialEntity filial) {
+        this.codigoFilial = filial.getCodigoFilial();
+        this.nomeFilial = filial.getNomeFilial();
+        this.login = filial.getLogin();
+        this.senhaHash = filial.getSenhaHash();
+        this.ativo = Boolean.TRUE.equals(filial.getAtivo());
+        this.permissoes = filial.getPermissoes() == null ? 0 : filial.getPermissoes();
+    }
+
+    FilialDetails(Integer codigoFilial, String nomeFilial, String login, String senhaHash,
+                  boolean ativo, int permissoes) {
+        this.codigoFilial = codigoFilial;
+        this.nomeFilial = nomeFilial;
+        this.login = login;
+        this.senhaHash = senhaHash;
+        this.ativo = ativo;
+        this.permissoes = permissoes;
+    }
 
     @Override
-    public Collection<? extends GrantedAuthority> getAuthorities() {
-        return List.of(new SimpleGrantedAuthority("ROLE_FILIAL"));
+    public List<GrantedAuthority> getAuthorities() {
+        return PermissaoAuthorities.de(permissoes);
+    }
+
+    /**
+     * Authorities de uma requisição com token: as permissões da claim {@code perm} limitadas às
+     * que a filial tem hoje no banco, para uma revogação valer antes de o token expirar. Tokens
+     * sem a claim (emitidos antes dela existir) usam só o banco.
+     */
+    public List<GrantedAuthority> getAuthorities(Integer permissoesDoToken) {
+        return PermissaoAuthorities.de(permissoesDoToken == null ? permissoes : permissoesDoToken & permissoes);
     }
 
     @Override
     public String getPassword() {
-        return filial.getSenhaHash();
+        return senhaHash;
     }
 
     @Override
     public String getUsername() {
-        return filial.getLogin();
+        return login;
     }
 
     @Override
@@ -48,6 +83,6 @@ public class FilialDetails implements UserDetails {
 
     @Override
     public boolean isEnabled() {
-        return Boolean.TRUE.equals(filial.getAtivo());
+        return ativo;
     }
 }
@@ -3,7 +3,6 @@ package com.example.demo.api.security;
 import com.example.demo.api.model.FilialEntity;
 import com.example.demo.api.repository.FilialRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -13,11 +12,78 @@ import org.springframework.stereotype.Service;
 public class FilialDetailsService implements UserDetailsService {
 
     private final FilialRepository filialRepository;
+    private final FilialPrincipalCache principalCache;
+    private final SnapshotPrincipais snapshot;
+    private final ModoDegradado modoDegradado;
 
+    /**
+     * Principal pelo login. Com o banco indisponível e a entrada do cache vencida, devolve a versão
+     * vencida dentro da janela do {@link ModoDegradado} e agenda a recarga em segundo plano.
+     */
     @Override
-    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        FilialEntity filial = filialRepository.findByLogin(username)
+    public FilialDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        try {
+            return recarregar(username);
+        } catch (BancoIndisponivelException ex) {
+            return obsoleto(username, false, ex);
+        }
+    }
+
+    /**
+     * Carrega a filial pelo código (tokens opacos não carregam o login). Usa o cache quando o
+     * código já passou por ele; senão busca pela chave primária e guarda pelo login.
+     */
+    public FilialDetails loadByCodigoFilial(Integer codigoFilial) throws UsernameNotFoundException {
+        String login = principalCache.loginDe(codigoFilial);
+        if (login != null) {
+            try {
+                FilialDetails details = loadUserByUsername(login);
+                if (codigoFilial.equals(details.getCodigoFilial())) {
+                    return details;
+                }
+            } catch (UsernameNotFoundException ex) {
+                // login trocado desde a última carga: segue pela chave primária
+            }
+        }
+        FilialEntity filial = modoDegradado.executar(() -> filialRepository.findById(codigoFilial))
+                .orElseThrow(() -> new UsernameNotFoundException("Filial nao encontrada para codigo: " + codigoFilial));
+        snapshot.descartar(filial.getCodigoFilial());
+        return principalCache.get(filial.getLogin(), () -> new FilialDetails(filial));
+    }
+
+    /**
+     * Versão vencida do principal para quando o banco não atende; relança {@code causa} se não houver
+     * uma dentro da janela. {@code login} indica se quem pede é o {@code POST /auth/login}, só para a
+     * métrica.
+     */
+    public FilialDetails obsoleto(String username, boolean login, BancoIndisponivelException causa) {
+        FilialDetails details = username == null
+                ? null
+                : principalCache.obsoleto(username, modoDegradado.getObsolescenciaMaximaMillis());
+        if (details == null) {
+            throw causa;
+        }
+        modoDegradado.registrarServidoDoCache(login);
+        // a revalidação existe para trazer o dado atual: vai direto ao banco, nunca ao snapshot
+        modoDegradado.revalidar(username, () -> principalCache.get(username, () -> doBanco(username)));
+        return details;
+    }
+
+    private FilialDetails recarregar(String username) {
+        return principalCache.get(username, () -> {
+            FilialDetails doSnapshot = snapshot.buscar(username);
+            return doSnapshot != null ? doSnapshot : doBanco(username);
+        });
+    }
+
+    /**
+     * Busca a filial no banco. Depois da primeira carga pelo banco o snapshot não responde mais por
+     * ela, mesmo antes da reconciliação.
+     */
+    private FilialDetails doBanco(String username) {
+        FilialEntity filial = modoDegradado.executar(() -> filialRepository.findByLogin(username))
                 .orElseThrow(() -> new UsernameNotFoundException("Filial nao encontrada para login: " + username));
+        snapshot.descartar(filial.getCodigoFilial());
         return new FilialDetails(filial);
     }
 }
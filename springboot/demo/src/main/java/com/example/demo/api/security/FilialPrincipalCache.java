@@ -0,0 +1,103 @@
+package com.example.demo.api.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Cache em memória dos principais de filial, indexado por login.
+ * <p>
+ * A coerência entre réplicas fica a cargo do {@link FilialAlteracaoPoller}, que invalida
+ * entradas pontualmente por código de filial. O TTL é só uma rede de segurança para casos que o
+ * poller não enxerga (por exemplo, linha apagada).
+ */
+@Component
+public class FilialPrincipalCache {
+
+    private final Map<String, Entrada> porLogin = new ConcurrentHashMap<>();
+    private final Map<Integer, String> loginPorCodigo = new ConcurrentHashMap<>();
+    private final AtomicLong invalidacoes = new AtomicLong();
+    private final long ttlMillis;
+    private final LongSupplier relogio;
+
+    @Autowired
+    public FilialPrincipalCache(@Value("${app.security.principal-cache.ttl-millis:300000}") long ttlMillis) {
+        this(ttlMillis, System::currentTimeMillis);
+    }
+
+    FilialPrincipalCache(long ttlMillis, LongSupplier relogio) {
+        this.ttlMillis = ttlMillis;
+        this.relogio = relogio;
+    }
+
+    /**
+     * Devolve a filial do cache ou carrega pelo {@code loader}. O valor carregado só é guardado se
+     * nenhuma invalidação aconteceu durante a carga, para não gravar um dado já vencido. A
+     * invalidação incrementa o contador antes de remover, e a gravação confere o contador dentro
+     * do {@code compute}, então as duas nunca se cruzam.
+     */
+    public FilialDetails get(String login, Supplier<FilialDetails> loader) {
+        long agora = relogio.getAsLong();
+        Entrada entrada = porLogin.get(login);
+        if (entrada != null && agora - entrada.carregadoEm() < ttlMillis) {
+            return entrada.details();
+        }
+        long geracao = invalidacoes.get();
+        FilialDetails details = loader.get();
+        if (details.getCodigoFilial() != null) {
+            loginPorCodigo.put(details.getCodigoFilial(), login);
+        }
+        porLogin.compute(login, (chave, atual) ->
+                invalidacoes.get() == geracao ? new Entrada(details, agora) : atual);
+        return details;
+    }
+
+    /**
+     * Remove a filial do cache pelo código e pelo login atual (que pode ter mudado).
+     */
+    public void invalidar(Integer codigoFilial, String login) {
+        invalidacoes.incrementAndGet();
+        if (codigoFilial != null) {
+            String anterior = loginPorCodigo.remove(codigoFilial);
+            if (anterior != null) {
+                porLogin.remove(anterior);
+            }
+        }
+        if (login != null) {
+            porLogin.remove(login);
+        }
+    }
+
+    /**
+     * Filial guardada para o login mesmo que já tenha passado do TTL, desde que carregada há menos de
+     * {@code idadeMaximaMillis}; senão {@code null}. Só para o {@link ModoDegradado}: entradas
+     * invalidadas já saíram do mapa e não voltam por aqui.
+     */
+    public FilialDetails obsoleto(String login, long idadeMaximaMillis) {
+        Entrada entrada = porLogin.get(login);
+        if (entrada == null || relogio.getAsLong() - entrada.carregadoEm() >= idadeMaximaMillis) {
+            return null;
+        }
+        return entrada.details();
+    }
+
+    /**
+     * Último login visto para o código de filial, ou {@code null} se ele ainda não passou pelo cache.
+     */
+    public String loginDe(Integer codigoFilial) {
+        return loginPorCodigo.get(codigoFilial);
+    }
+
+    public int size() {
+        return porLogin.size();
+    }
+
+    private record Entrada(FilialDetails details, long carregadoEm) {
+    }
+}
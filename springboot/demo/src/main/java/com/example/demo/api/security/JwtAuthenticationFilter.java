@@ -1,31 +1,64 @@
 package com.example.demo.api.security;
 
+import com.example.demo.api.model.FilialEntity;
+import com.example.demo.api.service.FilialAtividade;
+import com.example.demo.api.service.FilialTokenClaims;
 import com.example.demo.api.service.JwtService;
+import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * Autentica requisições com {@code Authorization: Bearer}. Rotas que não usam token (preflight,
+ * login, emissão de token de cliente e health) nem passam por aqui: o {@link #shouldNotFilter}
+ * evita ler o header e montar a observação. A autenticação gerada é uma {@link FilialAuthentication},
+ * sem {@code details}, ou uma {@link ClienteAuthentication} para tokens de cliente de serviço, que
+ * não consultam cache nem banco.
+ * <p>
+ * Com o banco fora do ar o principal pode vir vencido do cache (ver {@link ModoDegradado}); sem
+ * nenhum em cache a resposta é {@code 503} com {@code Retry-After}, não {@code 401}, para o app não
+ * descartar um token que continua válido.
+ * <p>
+ * Com a sessão deslizante ligada ({@link ReemissaoDeslizante}), um JWT de filial perto do {@code exp}
+ * sai da requisição com um token novo no header {@link ReemissaoDeslizante#HEADER}.
+ */
 @Component
 @RequiredArgsConstructor
-@Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String RETRY_AFTER_SEGUNDOS = "5";
+
     private final JwtService jwtService;
     private final FilialDetailsService filialDetailsService;
+    private final FilialAtividade filialAtividade;
+    private final ObservationRegistry observationRegistry;
+    private final RegistroEventosSeguranca eventos;
+    private final ReemissaoDeslizante reemissao;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String metodo = request.getMethod();
+        if (HttpMethod.OPTIONS.matches(metodo)) {
+            return true;
+        }
+        String caminho = request.getRequestURI();
+        return HttpMethod.POST.matches(metodo) && ("/auth/login".equals(caminho) || "/auth/token".equals(caminho))
+                || HttpMethod.GET.matches(metodo) && caminho.startsWith("/actuator/health");
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -39,50 +72,87 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         String token = authHeader.substring(7);
-        String login;
+        FilialTokenClaims claims;
         try {
-            login = jwtService.extractLogin(token);
+            claims = Observation.createNotStarted("auth.filtro.token", observationRegistry)
+                    .observe(() -> jwtService.parseToken(token));
+            if (claims == null) {
+                throw new JwtException("Token sem claims");
+            }
         } catch (JwtException ex) {
-            log.warn("Token JWT inválido: {}", ex.getMessage());
+            eventos.registrar(ex instanceof ExpiredJwtException ? EventoSeguranca.TOKEN_EXPIRADO : EventoSeguranca.TOKEN_INVALIDO,
+                    ex, request.getRemoteAddr());
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             response.setContentType("application/json");
             response.getWriter().write("{\"message\": \"Token inválido ou expirado\"}");
             return;
         } catch (Exception ex) {
-            log.error("Erro ao processar token JWT: {}", ex.getMessage());
+            eventos.registrar(EventoSeguranca.TOKEN_ERRO, ex, request.getRemoteAddr());
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             response.setContentType("application/json");
             response.getWriter().write("{\"message\": \"Erro ao processar token\"}");
             return;
         }
 
-        if (login != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        if (claims.cliente()) {
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                SecurityContextHolder.getContext().setAuthentication(new ClienteAuthentication(
+                        claims.login(), PermissaoAuthorities.deCliente(claims.permissoes())));
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String login = claims.login();
+        // token opaco: sem login, o principal vem pelo código da filial guardado na sessão
+        boolean opaco = claims.opaco();
+        if (!opaco && login == null) {
+            // JWT sem sub não passa pelo isTokenValid nem pela reemissão; não pode valer como opaco
+            eventos.registrar(EventoSeguranca.TOKEN_INVALIDO, null, request.getRemoteAddr());
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setContentType("application/json");
+            response.getWriter().write("{\"message\": \"Token inválido ou expirado\"}");
+            return;
+        }
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                UserDetails userDetails = filialDetailsService.loadUserByUsername(login);
+                FilialDetails userDetails = Observation.createNotStarted("auth.filtro.principal", observationRegistry)
+                        .observe(() -> opaco
+                                ? filialDetailsService.loadByCodigoFilial(claims.filialId())
+                                : filialDetailsService.loadUserByUsername(login));
+                if (userDetails == null) {
+                    throw new UsernameNotFoundException("Filial não encontrada");
+                }
                 if (!userDetails.isEnabled()) {
+                    eventos.registrar(EventoSeguranca.FILIAL_DESATIVADA, null, request.getRemoteAddr());
                     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                     response.setContentType("application/json");
                     response.getWriter().write("{\"message\": \"Usuário desabilitado\"}");
                     return;
                 }
-                if (jwtService.isTokenValid(token, userDetails.getUsername())) {
-                    UsernamePasswordAuthenticationToken authenticationToken =
-                            new UsernamePasswordAuthenticationToken(
-                                    userDetails,
-                                    null,
-                                    userDetails.getAuthorities()
-                            );
-                    authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+                if (opaco || jwtService.isTokenValid(claims, userDetails.getUsername())) {
+                    SecurityContextHolder.getContext().setAuthentication(
+                            new FilialAuthentication(userDetails, userDetails.getAuthorities(claims.permissoes())));
+                    filialAtividade.registrarAcesso(userDetails.getCodigoFilial());
+                    if (!opaco && reemissao.deveRenovar(claims)) {
+                        renovar(userDetails, claims, response);
+                    }
                 }
+            } catch (BancoIndisponivelException ex) {
+                eventos.registrar(EventoSeguranca.BANCO_INDISPONIVEL, ex, request.getRemoteAddr());
+                response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SEGUNDOS);
+                response.setContentType("application/json");
+                response.getWriter().write("{\"message\": \"Serviço temporariamente indisponível\"}");
+                return;
             } catch (UsernameNotFoundException ex) {
-                log.warn("Usuário não encontrado para login: {}", login);
+                eventos.registrar(EventoSeguranca.FILIAL_INEXISTENTE, ex, request.getRemoteAddr());
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 response.setContentType("application/json");
                 response.getWriter().write("{\"message\": \"Usuário não encontrado\"}");
                 return;
             } catch (Exception ex) {
-                log.error("Erro ao autenticar usuário: {}", ex.getMessage());
+                eventos.registrar(EventoSeguranca.ERRO_AUTENTICACAO, ex, request.getRemoteAddr());
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 response.setContentType("application/json");
                 response.getWriter().write("{\"message\": \"Erro de autenticação\"}");
@@ -92,4 +162,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Emite o token novo com os dados atuais da filial (nome e permissões do principal, como no
+     * login) e o coloca no header antes de a resposta começar a ser escrita.
+     */
+    private void renovar(FilialDetails details, FilialTokenClaims claims, HttpServletResponse response) {
+        String novo = jwtService.reemitirToken(new FilialEntity(details.getCodigoFilial(), details.getNomeFilial(),
+                details.getLogin(), details.getSenhaHash(), details.isAtivo(), details.getPermissoes()),
+                claims.sessao());
+        if (novo != null) {
+            response.setHeader(ReemissaoDeslizante.HEADER, novo);
+            reemissao.registrarEmitida();
+        }
+    }
 }
@@ -0,0 +1,223 @@
+package com.example.demo.api.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Disjuntor das consultas de autenticação ao MySQL e regras do modo degradado.
+ * <p>
+ * Com o banco fora do ar ou o pool esgotado, cada consulta esperaria o {@code connection-timeout} do
+ * Hikari (20 s) antes de falhar. Depois de {@code failure-threshold} falhas de conexão seguidas o
+ * disjuntor abre e {@link #executar} falha na hora com {@link BancoIndisponivelException}, sem tocar
+ * no pool. Passado {@code open-millis}, uma única consulta é liberada como teste: se der certo o
+ * disjuntor fecha, se falhar abre de novo. Só falhas de infraestrutura contam; um resultado vazio
+ * ou um erro de mapeamento mostram que o banco respondeu.
+ * <p>
+ * Enquanto isso, quem chama serve o principal do {@link FilialPrincipalCache} mesmo depois do TTL,
+ * até {@code max-staleness-millis} desde a última carga, e pede a recarga em
+ * {@link #revalidar segundo plano}.
+ */
+@Component
+@Slf4j
+public class ModoDegradado {
+
+    private static final int REVALIDACOES_PENDENTES = 256;
+
+    private final int falhasParaAbrir;
+    private final long abertoMillis;
+    private final long obsolescenciaMaximaMillis;
+    private final LongSupplier relogio;
+    private final Counter servidosDoLogin;
+    private final Counter servidosDoFiltro;
+    private final Set<String> revalidando = ConcurrentHashMap.newKeySet();
+    private final ExecutorService revalidacoes = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(REVALIDACOES_PENDENTES), tarefa -> {
+                Thread thread = new Thread(tarefa, "principal-revalidacao");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private volatile Estado estado = Estado.FECHADO;
+    private volatile int falhasSeguidas;
+    private long reabrirEm;
+
+    @Autowired
+    public ModoDegradado(@Value("${app.security.degraded.failure-threshold:5}") int falhasParaAbrir,
+                         @Value("${app.security.degraded.open-millis:10000}") long abertoMillis,
+                         @Value("${app.security.degraded.max-staleness-millis:900000}") long obsolescenciaMaximaMillis,
+                         MeterRegistry meterRegistry) {
+        this(falhasParaAbrir, abertoMillis, obsolescenciaMaximaMillis, meterRegistry, System::currentTimeMillis);
+    }
+
+    ModoDegradado(int falhasParaAbrir, long abertoMillis, long obsolescenciaMaximaMillis,
+                  MeterRegistry meterRegistry, LongSupplier relogio) {
+        this.falhasParaAbrir = falhasParaAbrir;
+        this.abertoMillis = abertoMillis;
+        this.obsolescenciaMaximaMillis = obsolescenciaMaximaMillis;
+        this.relogio = relogio;
+        Gauge.builder("auth.degraded.breaker.state", this, m -> m.estado.ordinal())
+                .description("Disjuntor do banco: 0 fechado, 1 aberto, 2 meio aberto")
+                .register(meterRegistry);
+        this.servidosDoLogin = Counter.builder("auth.degraded.stale.served")
+                .description("Principais servidos do cache vencido com o banco indisponível")
+                .tag("uso", "login")
+                .register(meterRegistry);
+        this.servidosDoFiltro = Counter.builder("auth.degraded.stale.served")
+                .description("Principais servidos do cache vencido com o banco indisponível")
+                .tag("uso", "filtro")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Roda a consulta se o disjuntor deixar. Falhas de conexão viram {@link BancoIndisponivelException};
+     * as demais exceções passam como estão.
+     */
+    public <T> T executar(Supplier<T> consulta) {
+        if (!permitir()) {
+            throw new BancoIndisponivelException(null);
+        }
+        T resultado;
+        try {
+            resultado = consulta.get();
+        } catch (RuntimeException ex) {
+            if (falhaDeBanco(ex)) {
+                registrarFalha();
+                throw new BancoIndisponivelException(ex);
+            }
+            registrarSucesso();
+            throw ex;
+        }
+        registrarSucesso();
+        return resultado;
+    }
+
+    /**
+     * Agenda a recarga de um principal servido vencido. Pedidos repetidos para a mesma chave
+     * enquanto a anterior não rodou são ignorados, e com a fila cheia o pedido é descartado: o
+     * próximo acesso degradado pede de novo.
+     */
+    public void revalidar(String chave, Runnable carga) {
+        if (!revalidando.add(chave)) {
+            return;
+        }
+        try {
+            revalidacoes.execute(() -> {
+                try {
+                    carga.run();
+                } catch (RuntimeException ex) {
+                    log.debug("Revalidação do principal {} falhou: {}", chave, ex.getMessage());
+                } finally {
+                    revalidando.remove(chave);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            revalidando.remove(chave);
+        }
+    }
+
+    public void registrarServidoDoCache(boolean login) {
+        (login ? servidosDoLogin : servidosDoFiltro).increment();
+    }
+
+    public long getObsolescenciaMaximaMillis() {
+        return obsolescenciaMaximaMillis;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    /**
+     * {@code true} fora do estado fechado. As tarefas agendadas que vão ao banco pulam a rodada:
+     * esperariam o {@code connection-timeout} para falhar, e quem testa a volta é o disjuntor.
+     */
+    public boolean disjuntorAberto() {
+        return estado != Estado.FECHADO;
+    }
+
+    public int getFalhasSeguidas() {
+        return falhasSeguidas;
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        revalidacoes.shutdownNow();
+    }
+
+    private boolean permitir() {
+        if (estado == Estado.FECHADO) {
+            return true;
+        }
+        synchronized (this) {
+            if (estado == Estado.ABERTO && relogio.getAsLong() >= reabrirEm) {
+                estado = Estado.MEIO_ABERTO;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private void registrarSucesso() {
+        if (estado == Estado.FECHADO && falhasSeguidas == 0) {
+            return;
+        }
+        synchronized (this) {
+            if (estado != Estado.FECHADO) {
+                log.info("Banco respondeu de novo; disjuntor fechado");
+            }
+            estado = Estado.FECHADO;
+            falhasSeguidas = 0;
+        }
+    }
+
+    private synchronized void registrarFalha() {
+        int falhas = falhasSeguidas + 1;
+        falhasSeguidas = falhas;
+        if (estado == Estado.MEIO_ABERTO || falhas >= falhasParaAbrir) {
+            if (estado == Estado.FECHADO) {
+                log.warn("Disjuntor do banco aberto após {} falhas seguidas; autenticação em modo degradado",
+                        falhas);
+            }
+            estado = Estado.ABERTO;
+            reabrirEm = relogio.getAsLong() + abertoMillis;
+        }
+    }
+
+    static boolean falhaDeBanco(Throwable ex) {
+        for (Throwable atual = ex; atual != null; atual = atual.getCause()) {
+            if (atual instanceof DataAccessResourceFailureException
+                    || atual instanceof TransientDataAccessException
+                    || atual instanceof RecoverableDataAccessException
+                    || atual instanceof CannotCreateTransactionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public enum Estado {
+        FECHADO,
+        ABERTO,
+        MEIO_ABERTO
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.api.security;
+
+import com.example.verificador.Permissao;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tabela das coleções de authorities de cada combinação de {@link Permissao}.
+ * <p>
+ * São só {@code 2^n} combinações, então todas são montadas na carga da classe como listas
+ * imutáveis que compartilham as mesmas instâncias de {@link GrantedAuthority}. Traduzir o bitset
+ * do token numa coleção é um acesso a array, sem alocação por requisição. Há uma tabela para
+ * filiais ({@link #ROLE_FILIAL}) e outra para clientes de serviço ({@link #ROLE_CLIENTE}).
+ */
+public final class PermissaoAuthorities {
+
+    public static final GrantedAuthority ROLE_FILIAL = new SimpleGrantedAuthority("ROLE_FILIAL");
+    public static final GrantedAuthority ROLE_CLIENTE = new SimpleGrantedAuthority("ROLE_CLIENTE");
+
+    private static final List<List<GrantedAuthority>> POR_BITSET;
+    private static final List<List<GrantedAuthority>> POR_BITSET_CLIENTE;
+
+    static {
+        Permissao[] permissoes = Permissao.values();
+        GrantedAuthority[] authorities = new GrantedAuthority[permissoes.length];
+        for (Permissao permissao : permissoes) {
+            authorities[permissao.ordinal()] = new SimpleGrantedAuthority(permissao.name());
+        }
+        POR_BITSET = montar(ROLE_FILIAL, authorities);
+        POR_BITSET_CLIENTE = montar(ROLE_CLIENTE, authorities);
+    }
+
+    private PermissaoAuthorities() {
+    }
+
+    /**
+     * Authorities de um bitset de permissões; bits desconhecidos são ignorados.
+     */
+    public static List<GrantedAuthority> de(int permissoes) {
+        return POR_BITSET.get(permissoes & Permissao.TODAS);
+    }
+
+    /**
+     * Authorities de um token de cliente de serviço com esses escopos; escopos fora de
+     * {@link Permissao#ESCOPOS_CLIENTE} são ignorados, então nunca inclui {@code ADMIN}.
+     */
+    public static List<GrantedAuthority> deCliente(int escopos) {
+        return POR_BITSET_CLIENTE.get(escopos & Permissao.ESCOPOS_CLIENTE);
+    }
+
+    private static List<List<GrantedAuthority>> montar(GrantedAuthority papel, GrantedAuthority[] authorities) {
+        Permissao[] permissoes = Permissao.values();
+        List<List<GrantedAuthority>> tabela = new ArrayList<>(Permissao.TODAS + 1);
+        for (int bits = 0; bits <= Permissao.TODAS; bits++) {
+            List<GrantedAuthority> lista = new ArrayList<>(permissoes.length + 1);
+            lista.add(papel);
+            for (Permissao permissao : permissoes) {
+                if (permissao.presenteEm(bits)) {
+                    lista.add(authorities[permissao.ordinal()]);
+                }
+            }
+            tabela.add(List.copyOf(lista));
+        }
+        return List.copyOf(tabela);
+    }
+}
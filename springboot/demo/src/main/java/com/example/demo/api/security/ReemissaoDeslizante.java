@@ -0,0 +1,94 @@
+package com.example.demo.api.security;
+
+import com.example.demo.api.service.FilialTokenClaims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Sessão deslizante (opcional): quando o filtro recebe um JWT de filial válido a menos de
+ * {@code window-millis} do {@code exp}, devolve um token novo no header {@link #HEADER}. Um coletor
+ * em uso o dia todo troca de token sem voltar ao {@code /auth/login} (e ao BCrypt); um token parado
+ * vence como antes, porque só uma requisição dentro da janela renova.
+ * <p>
+ * Cada token renova uma única vez: a sessão ({@link FilialTokenClaims#sessao()}) fica marcada num
+ * mapa até o {@code exp} dela, para as requisições paralelas do mesmo app não emitirem um token cada.
+ * O mapa tem no máximo {@code max-tracked} entradas; cheio, as vencidas saem primeiro e, se ainda
+ * não couber, o token não renova e a filial loga de novo quando ele vencer. Como o registro de
+ * sessões, o mapa é desta instância: em outra réplica o mesmo token ainda pode renovar uma vez.
+ * <p>
+ * Ficam de fora tokens opacos (o handle vive no servidor), tokens de cliente de serviço (que pedem
+ * outro em {@code /auth/token}) e JWTs sem {@code jti}.
+ */
+@Component
+public class ReemissaoDeslizante {
+
+    public static final String HEADER = "X-Token-Renovado";
+
+    private final boolean ativa;
+    private final long janelaMillis;
+    private final int capacidade;
+    private final LongSupplier relogio;
+    private final ConcurrentMap<Long, Long> renovadas = new ConcurrentHashMap<>();
+    private final Counter emitidas;
+    private final Counter recusadas;
+
+    @Autowired
+    public ReemissaoDeslizante(@Value("${app.security.jwt.sliding.enabled:false}") boolean ativa,
+                               @Value("${app.security.jwt.sliding.window-millis:900000}") long janelaMillis,
+                               @Value("${app.security.jwt.sliding.max-tracked:10000}") int capacidade,
+                               MeterRegistry meterRegistry) {
+        this(ativa, janelaMillis, capacidade, meterRegistry, System::currentTimeMillis);
+    }
+
+    ReemissaoDeslizante(boolean ativa, long janelaMillis, int capacidade, MeterRegistry meterRegistry,
+                        LongSupplier relogio) {
+        this.ativa = ativa;
+        this.janelaMillis = janelaMillis;
+        this.capacidade = capacidade;
+        this.relogio = relogio;
+        Gauge.builder("auth.sliding.tracked", renovadas, ConcurrentMap::size)
+                .description("Sessões marcadas como já renovadas (as vencidas saem quando o mapa enche)")
+                .register(meterRegistry);
+        this.emitidas = Counter.builder("auth.sliding.reissued")
+                .description("Tokens renovados pelo filtro dentro da janela de sessão deslizante")
+                .register(meterRegistry);
+        this.recusadas = Counter.builder("auth.sliding.dropped")
+                .description("Renovações não feitas porque o mapa de sessões renovadas estava cheio")
+                .register(meterRegistry);
+    }
+
+    /**
+     * {@code true} se o token deve ser renovado nesta requisição. Marca a sessão: para o mesmo
+     * token só a primeira chamada dentro da janela recebe {@code true}.
+     */
+    public boolean deveRenovar(FilialTokenClaims claims) {
+        if (!ativa || claims.cliente() || claims.sessao() == 0 || claims.login() == null) {
+            return false;
+        }
+        long agora = relogio.getAsLong();
+        long expiraEm = claims.expiraEm().toEpochMilli();
+        if (expiraEm <= agora || expiraEm - agora > janelaMillis) {
+            return false;
+        }
+        if (renovadas.size() >= capacidade) {
+            renovadas.values().removeIf(exp -> exp <= agora);
+            if (renovadas.size() >= capacidade) {
+                recusadas.increment();
+                return false;
+            }
+        }
+        return renovadas.putIfAbsent(claims.sessao(), expiraEm) == null;
+    }
+
+    public void registrarEmitida() {
+        emitidas.increment();
+    }
+}
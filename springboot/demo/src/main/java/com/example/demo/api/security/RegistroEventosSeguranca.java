@@ -0,0 +1,79 @@
+package com.example.demo.api.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Log de eventos de segurança com limite por motivo.
+ * <p>
+ * Em cada intervalo de {@code summary-interval-millis} só os primeiros {@code max-per-interval}
+ * eventos de cada motivo viram linha de log; os demais só são contados e, no fim do intervalo,
+ * aparecem numa linha de resumo ("N tokens expirados nos últimos 10s, M omitidos"). As linhas nunca
+ * levam o token nem a mensagem da exceção (o jjwt às vezes inclui trechos do token nela), só o
+ * motivo, o tipo da exceção e o IP de origem.
+ * <p>
+ * O logger {@value #LOGGER} é ligado a um appender assíncrono em {@code logback-spring.xml}, então
+ * a thread da requisição não espera o console.
+ */
+@Component
+public class RegistroEventosSeguranca {
+
+    public static final String LOGGER = "seguranca";
+
+    private static final Logger log = LoggerFactory.getLogger(LOGGER);
+
+    private final long maximoPorIntervalo;
+    private final long intervaloSegundos;
+    private final Map<EventoSeguranca, AtomicLong> contagens = new EnumMap<>(EventoSeguranca.class);
+    private final Map<EventoSeguranca, Counter> totais = new EnumMap<>(EventoSeguranca.class);
+
+    public RegistroEventosSeguranca(MeterRegistry meterRegistry,
+                                    @Value("${app.security.log.max-per-interval:5}") long maximoPorIntervalo,
+                                    @Value("${app.security.log.summary-interval-millis:10000}") long intervaloMillis) {
+        this.maximoPorIntervalo = maximoPorIntervalo;
+        this.intervaloSegundos = Math.max(1, intervaloMillis / 1000);
+        for (EventoSeguranca evento : EventoSeguranca.values()) {
+            contagens.put(evento, new AtomicLong());
+            totais.put(evento, Counter.builder("auth.security.events")
+                    .tag("motivo", evento.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Conta o evento e escreve a linha só se o motivo ainda não passou do limite no intervalo.
+     */
+    public void registrar(EventoSeguranca evento, Throwable causa, String ipOrigem) {
+        totais.get(evento).increment();
+        long n = contagens.get(evento).incrementAndGet();
+        if (n > maximoPorIntervalo) {
+            return;
+        }
+        String tipo = causa == null ? "-" : causa.getClass().getSimpleName();
+        if (evento.isErro()) {
+            log.error("Requisição recusada: {} ({}) ip={}", evento, tipo, ipOrigem);
+        } else {
+            log.warn("Requisição recusada: {} ({}) ip={}", evento, tipo, ipOrigem);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.log.summary-interval-millis:10000}")
+    public void resumir() {
+        contagens.forEach((evento, contagem) -> {
+            long n = contagem.getAndSet(0);
+            if (n > maximoPorIntervalo) {
+                log.warn("{} {} nos últimos {}s, {} omitidos do log",
+                        n, evento.getDescricao(), intervaloSegundos, n - maximoPorIntervalo);
+            }
+        });
+    }
+}
@@ -0,0 +1,412 @@
+package com.example.demo.api.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Fotografia em disco dos principais de {@code tb_filial}, para o nó subir com os dados já à mão.
+ * <p>
+ * Depois de um deploy o {@link FilialPrincipalCache} de todas as réplicas está vazio e a primeira
+ * onda de requisições vai inteira ao MySQL. Com o snapshot, o nó mapeia o arquivo em memória no
+ * start e o loader do cache responde por ele sem consultar o banco, só até a primeira
+ * reconciliação: em segundo plano, compara a versão de cada filial ({@code atualizado_em}) com o
+ * banco numa consulta só de códigos e versões, tira do cache as que mudaram ou sumiram e a partir
+ * daí deixa de responder. Se o banco estiver fora do ar no start, a reconciliação é tentada de novo
+ * a cada {@code reconcile-retry-millis}, exceto enquanto o disjuntor do {@link ModoDegradado} estiver
+ * aberto (o mesmo vale para a regravação). Antes disso, uma filial que o {@link FilialAlteracaoPoller}
+ * invalidou ou que já foi carregada do banco também não é mais lida do arquivo.
+ * <p>
+ * O arquivo é regravado a cada {@code write-interval-millis} (num temporário, trocado por
+ * {@code ATOMIC_MOVE}) e remapeado, o que também tira dele as linhas apagadas. Formato, big-endian:
+ * <pre>
+ * cabeçalho (32 bytes): magic "FSNP", formato, geradoEm (long), quantidade, CRC32 do corpo, reservado
+ * índice: quantidade x (hash do login, offset do registro), ordenado por hash
+ * registros: codigo (int), permissoes (int), versao (long, epoch millis), ativo (byte),
+ *            login, nome e senhaHash (cada um: tamanho unsigned short + UTF-8)
+ * </pre>
+ * Snapshots mais velhos que {@code max-age-millis}, de outro formato ou com CRC errado são
+ * ignorados. O arquivo contém hashes de senha e é gravado só com permissão do dono; por isso o
+ * snapshot vem desligado.
+ */
+@Component
+@Slf4j
+public final class SnapshotPrincipais {
+
+    static final int MAGIC = 0x46534E50;
+    static final int FORMATO = 1;
+    static final int TAMANHO_CABECALHO = 32;
+    private static final int TAMANHO_ENTRADA_INDICE = 8;
+    private static final int POS_GERADO_EM = 8;
+    private static final int POS_QUANTIDADE = 16;
+    private static final int POS_CRC = 20;
+
+    private static final String SQL_PRINCIPAIS = """
+            SELECT codigo_filial, nome_filial, login, senha_hash, ativo, permissoes, atualizado_em
+              FROM tb_filial""";
+
+    private static final String SQL_VERSOES = "SELECT codigo_filial, atualizado_em FROM tb_filial";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FilialPrincipalCache cache;
+    private final ModoDegradado modoDegradado;
+    private final boolean habilitado;
+    private final Path arquivo;
+    private final long idadeMaximaMillis;
+    // código da filial -> sequência do descarte; sai quando um snapshot gravado depois dele a inclui
+    private final Map<Integer, Long> descartados = new ConcurrentHashMap<>();
+    private final AtomicLong sequenciaDescartes = new AtomicLong();
+
+    private volatile ByteBuffer mapa;
+    private volatile boolean reconciliado;
+
+    public SnapshotPrincipais(JdbcTemplate jdbcTemplate,
+                              FilialPrincipalCache cache,
+                              ModoDegradado modoDegradado,
+                              @Value("${app.security.principal-snapshot.enabled:false}") boolean habilitado,
+                              @Value("${app.security.principal-snapshot.file:data/principais.snap}") Path arquivo,
+                              @Value("${app.security.principal-snapshot.max-age-millis:86400000}") long idadeMaximaMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = cache;
+        this.modoDegradado = modoDegradado;
+        this.habilitado = habilitado;
+        this.arquivo = arquivo;
+        this.idadeMaximaMillis = idadeMaximaMillis;
+        if (habilitado) {
+            carregar();
+        }
+    }
+
+    /**
+     * Principal do snapshot, ou {@code null} se não há snapshot, ele já foi reconciliado, o login não
+     * está nele ou a filial foi descartada.
+     */
+    public FilialDetails buscar(String login) {
+        ByteBuffer atual = mapa;
+        if (atual == null || reconciliado || login == null) {
+            return null;
+        }
+        int hash = login.hashCode();
+        int quantidade = atual.getInt(POS_QUANTIDADE);
+        int baixo = 0;
+        int alto = quantidade - 1;
+        while (baixo <= alto) {
+            int meio = (baixo + alto) >>> 1;
+            int hashMeio = atual.getInt(TAMANHO_CABECALHO + meio * TAMANHO_ENTRADA_INDICE);
+            if (hashMeio < hash) {
+                baixo = meio + 1;
+            } else if (hashMeio > hash) {
+                alto = meio - 1;
+            } else {
+                // recua até a primeira entrada com esse hash e compara os logins em sequência
+                int i = meio;
+                while (i > 0 && atual.getInt(TAMANHO_CABECALHO + (i - 1) * TAMANHO_ENTRADA_INDICE) == hash) {
+                    i--;
+                }
+                for (; i < quantidade && atual.getInt(TAMANHO_CABECALHO + i * TAMANHO_ENTRADA_INDICE) == hash; i++) {
+                    FilialDetails details = ler(atual, atual.getInt(TAMANHO_CABECALHO + i * TAMANHO_ENTRADA_INDICE + 4), login);
+                    if (details != null) {
+                        return descartados.containsKey(details.getCodigoFilial()) ? null : details;
+                    }
+                }
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Deixa de responder pela filial (mudou no banco ou já foi carregada de lá) até que um snapshot
+     * gravado depois deste descarte a inclua.
+     */
+    public void descartar(Integer codigoFilial) {
+        if (codigoFilial != null && !reconciliado) {
+            descartados.put(codigoFilial, sequenciaDescartes.incrementAndGet());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!habilitado) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                reconciliar();
+                gravar();
+            } catch (DataAccessException | UncheckedIOException ex) {
+                log.warn("Falha ao reconciliar o snapshot de principais: {}", ex.getMessage());
+            }
+        }, "snapshot-principais");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Scheduled(initialDelayString = "${app.security.principal-snapshot.reconcile-retry-millis:5000}",
+            fixedDelayString = "${app.security.principal-snapshot.reconcile-retry-millis:5000}")
+    public void tentarReconciliar() {
+        if (!habilitado || reconciliado || modoDegradado.disjuntorAberto()) {
+            return;
+        }
+        try {
+            reconciliar();
+        } catch (DataAccessException ex) {
+            log.debug("Snapshot de principais ainda não reconciliado: {}", ex.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.security.principal-snapshot.write-interval-millis:300000}",
+            fixedDelayString = "${app.security.principal-snapshot.write-interval-millis:300000}")
+    public void agendado() {
+        if (!habilitado || modoDegradado.disjuntorAberto()) {
+            return;
+        }
+        try {
+            gravar();
+        } catch (DataAccessException | UncheckedIOException ex) {
+            log.warn("Falha ao gravar o snapshot de principais: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Compara as versões do snapshot com o banco, tira do cache as filiais alteradas ou apagadas
+     * (podem ter sido carregadas do arquivo) e encerra as respostas pelo snapshot. Devolve quantas
+     * filiais estavam diferentes do banco.
+     */
+    public synchronized int reconciliar() {
+        ByteBuffer atual = mapa;
+        if (atual == null || reconciliado) {
+            reconciliado = true;
+            return 0;
+        }
+        Map<Integer, Long> versoes = versoes(atual);
+        List<Integer> alteradas = new ArrayList<>();
+        jdbcTemplate.query(SQL_VERSOES, rs -> {
+            int codigoFilial = rs.getInt("codigo_filial");
+            Long versao = versoes.remove(codigoFilial);
+            Timestamp atualizadoEm = rs.getTimestamp("atualizado_em");
+            if (versao != null && (atualizadoEm == null || versao != atualizadoEm.getTime())) {
+                alteradas.add(codigoFilial);
+            }
+        });
+        alteradas.addAll(versoes.keySet());
+        reconciliado = true;
+        for (Integer codigoFilial : alteradas) {
+            cache.invalidar(codigoFilial, null);
+        }
+        log.info("Snapshot de principais reconciliado: {} filiais, {} alteradas desde a gravação",
+                atual.getInt(POS_QUANTIDADE), alteradas.size());
+        return alteradas.size();
+    }
+
+    /**
+     * Lê os principais do banco, grava um novo snapshot e passa a responder por ele. Devolve
+     * quantas filiais foram gravadas.
+     */
+    public synchronized int gravar() {
+        long ultimoDescarteAntes = sequenciaDescartes.get();
+        List<Registro> registros = new ArrayList<>();
+        jdbcTemplate.query(SQL_PRINCIPAIS, rs -> {
+            Timestamp atualizadoEm = rs.getTimestamp("atualizado_em");
+            registros.add(new Registro(
+                    rs.getInt("codigo_filial"),
+                    rs.getInt("permissoes"),
+                    atualizadoEm == null ? 0L : atualizadoEm.getTime(),
+                    rs.getBoolean("ativo"),
+                    utf8(rs.getString("login")),
+                    utf8(rs.getString("nome_filial")),
+                    utf8(rs.getString("senha_hash"))));
+        });
+        ByteBuffer conteudo = serializar(registros, System.currentTimeMillis());
+        try {
+            Path diretorio = arquivo.toAbsolutePath().getParent();
+            if (diretorio == null) {
+                throw new IOException("caminho sem diretório");
+            }
+            Files.createDirectories(diretorio);
+            Path temporario = Files.createTempFile(diretorio, "principais", ".tmp");
+            try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+                while (conteudo.hasRemaining()) {
+                    canal.write(conteudo);
+                }
+                canal.force(true);
+            }
+            restringirPermissoes(temporario);
+            Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Não foi possível gravar " + arquivo, ex);
+        }
+        mapa = mapear(arquivo);
+        // a leitura acima já viu o que foi descartado antes dela; o que veio depois continua fora
+        descartados.values().removeIf(sequencia -> sequencia <= ultimoDescarteAntes);
+        return registros.size();
+    }
+
+    public boolean isReconciliado() {
+        return reconciliado;
+    }
+
+    public boolean isCarregado() {
+        return mapa != null;
+    }
+
+    private void carregar() {
+        if (!Files.isRegularFile(arquivo)) {
+            return;
+        }
+        try {
+            ByteBuffer lido = mapear(arquivo);
+            long idade = System.currentTimeMillis() - lido.getLong(POS_GERADO_EM);
+            if (idade > idadeMaximaMillis) {
+                log.info("Snapshot de principais ignorado: gerado há {} ms", idade);
+                return;
+            }
+            mapa = lido;
+            log.info("Snapshot de principais carregado: {} filiais", lido.getInt(POS_QUANTIDADE));
+        } catch (IllegalStateException | UncheckedIOException ex) {
+            log.warn("Snapshot de principais ignorado: {}", ex.getMessage());
+        }
+    }
+
+    private static ByteBuffer mapear(Path caminho) {
+        try (FileChannel canal = FileChannel.open(caminho, StandardOpenOption.READ)) {
+            MappedByteBuffer mapeado = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            validar(mapeado);
+            return mapeado;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Não foi possível mapear " + caminho, ex);
+        }
+    }
+
+    private static void validar(ByteBuffer buffer) {
+        if (buffer.capacity() < TAMANHO_CABECALHO || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMATO) {
+            throw new IllegalStateException("cabeçalho desconhecido");
+        }
+        int quantidade = buffer.getInt(POS_QUANTIDADE);
+        if (quantidade < 0 || TAMANHO_CABECALHO + (long) quantidade * TAMANHO_ENTRADA_INDICE > buffer.capacity()) {
+            throw new IllegalStateException("índice truncado");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(TAMANHO_CABECALHO, buffer.capacity() - TAMANHO_CABECALHO));
+        if ((int) crc.getValue() != buffer.getInt(POS_CRC)) {
+            throw new IllegalStateException("CRC não confere");
+        }
+    }
+
+    static ByteBuffer serializar(List<Registro> registros, long geradoEm) {
+        List<Registro> ordenados = new ArrayList<>(registros);
+        ordenados.sort(Comparator.comparingInt(Registro::hashLogin));
+        int tamanhoRegistros = 0;
+        for (Registro registro : ordenados) {
+            tamanhoRegistros += registro.tamanho();
+        }
+        int inicioRegistros = TAMANHO_CABECALHO + ordenados.size() * TAMANHO_ENTRADA_INDICE;
+        ByteBuffer buffer = ByteBuffer.allocate(inicioRegistros + tamanhoRegistros);
+        buffer.putInt(MAGIC).putInt(FORMATO).putLong(geradoEm).putInt(ordenados.size()).putInt(0).putLong(0L);
+        int offset = inicioRegistros;
+        for (Registro registro : ordenados) {
+            buffer.putInt(registro.hashLogin()).putInt(offset);
+            offset += registro.tamanho();
+        }
+        for (Registro registro : ordenados) {
+            buffer.putInt(registro.codigoFilial())
+                    .putInt(registro.permissoes())
+                    .putLong(registro.versao())
+                    .put((byte) (registro.ativo() ? 1 : 0));
+            putTexto(buffer, registro.login());
+            putTexto(buffer, registro.nome());
+            putTexto(buffer, registro.senhaHash());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(TAMANHO_CABECALHO, buffer.capacity() - TAMANHO_CABECALHO));
+        buffer.putInt(POS_CRC, (int) crc.getValue());
+        return buffer.flip();
+    }
+
+    private static FilialDetails ler(ByteBuffer buffer, int offset, String loginProcurado) {
+        int codigo = buffer.getInt(offset);
+        int permissoes = buffer.getInt(offset + 4);
+        boolean ativo = buffer.get(offset + 16) != 0;
+        int posicao = offset + 17;
+        String login = getTexto(buffer, posicao);
+        if (!login.equals(loginProcurado)) {
+            return null;
+        }
+        posicao += 2 + (buffer.getShort(posicao) & 0xFFFF);
+        String nome = getTexto(buffer, posicao);
+        posicao += 2 + (buffer.getShort(posicao) & 0xFFFF);
+        String senhaHash = getTexto(buffer, posicao);
+        return new FilialDetails(codigo, nome, login, senhaHash, ativo, permissoes);
+    }
+
+    private static Map<Integer, Long> versoes(ByteBuffer buffer) {
+        int quantidade = buffer.getInt(POS_QUANTIDADE);
+        Map<Integer, Long> versoes = new HashMap<>(quantidade * 2);
+        for (int i = 0; i < quantidade; i++) {
+            int offset = buffer.getInt(TAMANHO_CABECALHO + i * TAMANHO_ENTRADA_INDICE + 4);
+            versoes.put(buffer.getInt(offset), buffer.getLong(offset + 8));
+        }
+        return versoes;
+    }
+
+    private static void putTexto(ByteBuffer buffer, byte[] texto) {
+        buffer.putShort((short) texto.length).put(texto);
+    }
+
+    private static String getTexto(ByteBuffer buffer, int posicao) {
+        int tamanho = buffer.getShort(posicao) & 0xFFFF;
+        byte[] bytes = new byte[tamanho];
+        buffer.get(posicao + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String texto) {
+        return texto == null ? new byte[0] : texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void restringirPermissoes(Path caminho) throws IOException {
+        try {
+            Files.setPosixFilePermissions(caminho, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException ex) {
+            // sistema de arquivos sem POSIX (Windows): fica com a permissão padrão
+        }
+    }
+
+    record Registro(int codigoFilial, int permissoes, long versao, boolean ativo,
+                    byte[] login, byte[] nome, byte[] senhaHash) {
+
+        int hashLogin() {
+            return new String(login, StandardCharsets.UTF_8).hashCode();
+        }
+
+        int tamanho() {
+            return 4 + 4 + 8 + 1 + 2 + login.length + 2 + nome.length + 2 + senhaHash.length;
+        }
+    }
+}
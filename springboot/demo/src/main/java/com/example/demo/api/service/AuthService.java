@@ -2,8 +2,15 @@ package com.example.demo.api.service;
 
 import com.example.demo.api.dto.LoginRequest;
 import com.example.demo.api.dto.LoginResponse;
+import com.example.demo.api.dto.ModoToken;
 import com.example.demo.api.model.FilialEntity;
 import com.example.demo.api.repository.FilialRepository;
+import com.example.demo.api.security.BancoIndisponivelException;
+import com.example.demo.api.security.FilialDetails;
+import com.example.demo.api.security.FilialDetailsService;
+import com.example.demo.api.security.ModoDegradado;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -11,30 +18,124 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 public class AuthService {
 
+    private static final int TAMANHO_MAXIMO_LOGIN_AUDITADO = 100;
+
     private final FilialRepository filialRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
+    private final LoginAuditoria loginAuditoria;
+    private final FilialAtividade filialAtividade;
+    private final ObservationRegistry observationRegistry;
+    private final ModoDegradado modoDegradado;
+    private final FilialDetailsService filialDetailsService;
+    private final LoginCoalescer<LoginAutenticado> loginCoalescer = new LoginCoalescer<>();
 
     public LoginResponse autenticar(LoginRequest request) {
-        FilialEntity filial = filialRepository.findByLogin(request.login())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Login ou senha invalidos"));
+        return autenticar(request, null);
+    }
+
+    public LoginResponse autenticar(LoginRequest request, String ipOrigem) {
+        try {
+            LoginAutenticado autenticado = loginCoalescer.executar(request, () -> verificar(request));
+            filialAtividade.registrarLogin(autenticado.codigoFilial());
+            auditar(autenticado.codigoFilial(), request, EventoLogin.Resultado.SUCESSO, EventoLogin.Motivo.OK, ipOrigem);
+            return autenticado.response();
+        } catch (LoginNegadoException ex) {
+            auditar(ex.getCodigoFilial(), request, EventoLogin.Resultado.NEGADO, ex.getMotivo(), ipOrigem);
+            throw ex;
+        } catch (RuntimeException ex) {
+            auditar(null, request, EventoLogin.Resultado.NEGADO, EventoLogin.Motivo.ERRO, ipOrigem);
+            throw ex;
+        }
+    }
+
+    private LoginAutenticado verificar(LoginRequest request) {
+        FilialEntity filial = observar("auth.login.busca", () -> buscarFilial(request.login()))
+                .orElseThrow(() -> new LoginNegadoException(HttpStatus.UNAUTHORIZED, "Login ou senha invalidos",
+                        null, EventoLogin.Motivo.LOGIN_INEXISTENTE));
 
         if (Boolean.FALSE.equals(filial.getAtivo())) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Filial desativada");
+            throw new LoginNegadoException(HttpStatus.FORBIDDEN, "Filial desativada",
+                    filial.getCodigoFilial(), EventoLogin.Motivo.FILIAL_DESATIVADA);
         }
 
-        if (!passwordEncoder.matches(request.senha(), filial.getSenhaHash())) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Login ou senha invalidos");
+        if (!observar("auth.login.bcrypt", () -> passwordEncoder.matches(request.senha(), filial.getSenhaHash()))) {
+            throw new LoginNegadoException(HttpStatus.UNAUTHORIZED, "Login ou senha invalidos",
+                    filial.getCodigoFilial(), EventoLogin.Motivo.SENHA_INVALIDA);
         }
 
-        String token = jwtService.generateToken(filial);
+        String token = observar("auth.login.assinatura", () -> emitirToken(filial, request.modoOuPadrao()));
         Instant expiraEm = jwtService.extractExpirationInstant(token);
 
-        return new LoginResponse(token, "Bearer", expiraEm);
+        return new LoginAutenticado(new LoginResponse(token, "Bearer", expiraEm, jwtService.renovarEm(expiraEm)),
+                filial.getCodigoFilial());
+    }
+
+    /**
+     * Busca a filial para o login pelo disjuntor do {@link ModoDegradado}. Com o banco indisponível
+     * confere a senha contra o principal em cache, se houver um dentro da janela de obsolescência;
+     * senão o login recebe {@code 503}.
+     */
+    private Optional<FilialEntity> buscarFilial(String login) {
+        try {
+            return modoDegradado.executar(() -> filialRepository.findByLogin(login));
+        } catch (BancoIndisponivelException ex) {
+            FilialDetails details = filialDetailsService.obsoleto(login, true, ex);
+            return Optional.of(new FilialEntity(details.getCodigoFilial(), details.getNomeFilial(),
+                    details.getLogin(), details.getSenhaHash(), details.isAtivo(), details.getPermissoes()));
+        }
+    }
+
+    /**
+     * Revoga na hora um token opaco. JWTs não têm estado no servidor e não podem ser revogados
+     * aqui.
+     */
+    public void revogar(String token) {
+        if (!jwtService.revokeOpaqueToken(token)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Apenas tokens opacos podem ser revogados");
+        }
+    }
+
+    private String emitirToken(FilialEntity filial, ModoToken modo) {
+        try {
+            return emitirTokenNoModo(filial, modo);
+        } catch (LimiteSessoesException ex) {
+            throw new LoginNegadoException(HttpStatus.CONFLICT, ex.getMessage(),
+                    filial.getCodigoFilial(), EventoLogin.Motivo.LIMITE_SESSOES);
+        }
+    }
+
+    private String emitirTokenNoModo(FilialEntity filial, ModoToken modo) {
+        if (modo == ModoToken.JWT) {
+            return jwtService.generateToken(filial);
+        }
+        String handle = jwtService.generateOpaqueToken(filial);
+        if (handle == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Limite de sessões opacas atingido");
+        }
+        return handle;
+    }
+
+    private <T> T observar(String nome, Supplier<T> etapa) {
+        return Observation.createNotStarted(nome, observationRegistry).observe(etapa);
+    }
+
+    private void auditar(Integer codigoFilial, LoginRequest request, EventoLogin.Resultado resultado,
+                         EventoLogin.Motivo motivo, String ipOrigem) {
+        String login = request.login();
+        if (login != null && login.length() > TAMANHO_MAXIMO_LOGIN_AUDITADO) {
+            login = login.substring(0, TAMANHO_MAXIMO_LOGIN_AUDITADO);
+        }
+        loginAuditoria.registrar(new EventoLogin(codigoFilial, login, resultado, motivo, ipOrigem, Instant.now()));
+    }
+
+    private record LoginAutenticado(LoginResponse response, Integer codigoFilial) {
     }
 }
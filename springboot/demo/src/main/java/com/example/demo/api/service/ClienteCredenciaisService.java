@@ -0,0 +1,78 @@
+package com.example.demo.api.service;
+
+import com.example.demo.api.dto.ClienteServicoCriado;
+import com.example.demo.api.dto.ClienteTokenResponse;
+import com.example.verificador.Permissao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.regex.Pattern;
+
+/**
+ * Fluxo client credentials (RFC 6749, seção 4.4) para a API da loja e os jobs em lote: sem BCrypt
+ * e sem passar pelo login das filiais. O token é um JWT assinado pelo {@link JwtService}, curto
+ * ({@code app.security.clients.token-expiration-millis}) e sem consulta ao banco a cada requisição;
+ * desativar um cliente impede novos tokens, e os já emitidos valem até expirar.
+ * <p>
+ * Clientes só recebem escopos de {@link Permissao#ESCOPOS_CLIENTE}; {@code ADMIN} é recusado no
+ * cadastro e nunca sai num token.
+ */
+@Service
+public class ClienteCredenciaisService {
+
+    private static final Pattern CLIENT_ID = Pattern.compile("[A-Za-z0-9._-]{3,64}");
+
+    private final ClienteServicoRegistro registro;
+    private final JwtService jwtService;
+    private final long validadeMillis;
+
+    public ClienteCredenciaisService(ClienteServicoRegistro registro,
+                                     JwtService jwtService,
+                                     @Value("${app.security.clients.token-expiration-millis:300000}") long validadeMillis) {
+        this.registro = registro;
+        this.jwtService = jwtService;
+        this.validadeMillis = validadeMillis;
+    }
+
+    /**
+     * Emite o token com o escopo pedido, que precisa estar contido no cadastrado; sem escopo
+     * pedido, vai o cadastrado inteiro.
+     */
+    public ClienteTokenResponse emitir(String clientId, String segredo, String escopoPedido) {
+        if (!StringUtils.hasText(clientId) || !StringUtils.hasText(segredo)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "invalid_client");
+        }
+        ClienteServicoRegistro.ClienteServico cliente = registro.autenticar(clientId, segredo);
+        if (cliente == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "invalid_client");
+        }
+        int escopos = cliente.escopos() & Permissao.ESCOPOS_CLIENTE;
+        if (StringUtils.hasText(escopoPedido)) {
+            int pedidos = Permissao.doEscopo(escopoPedido);
+            if (pedidos < 0 || (pedidos & ~escopos) != 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid_scope");
+            }
+            escopos = pedidos;
+        }
+        String token = jwtService.generateClientToken(clientId, escopos, validadeMillis);
+        return new ClienteTokenResponse(token, "Bearer", validadeMillis / 1000, Permissao.escopo(escopos));
+    }
+
+    public ClienteServicoCriado registrar(String clientId, String escopo) {
+        if (clientId == null || !CLIENT_ID.matcher(clientId).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "clientId deve ter de 3 a 64 caracteres [A-Za-z0-9._-]");
+        }
+        int escopos = escopo == null ? -1 : Permissao.doEscopo(escopo);
+        if (escopos <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "escopo deve listar permissoes conhecidas");
+        }
+        if ((escopos & ~Permissao.ESCOPOS_CLIENTE) != 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "clientes de servico nao recebem o escopo ADMIN");
+        }
+        String segredo = registro.registrar(clientId, escopos);
+        return new ClienteServicoCriado(clientId, segredo, Permissao.escopo(escopos));
+    }
+}
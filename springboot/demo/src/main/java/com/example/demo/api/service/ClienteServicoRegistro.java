@@ -0,0 +1,98 @@
+package com.example.demo.api.service;
+
+import com.example.verificador.Permissao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Cadastro dos clientes de serviço do fluxo client credentials ({@code tb_cliente_servico}).
+ * <p>
+ * O segredo é gerado aqui com 256 bits aleatórios e devolvido uma única vez; o banco guarda o
+ * HMAC-SHA256 dele com a chave {@code app.security.clients.secret-hash-key}, que fica fora do banco.
+ * Com essa entropia não há dicionário a atacar, então um hash com chave resolve o que o BCrypt
+ * resolve para senhas escolhidas por pessoas, em microssegundos em vez de dezenas de milissegundos.
+ */
+@Component
+public final class ClienteServicoRegistro {
+
+    private static final String ALGORITMO_MAC = "HmacSHA256";
+    private static final int BYTES_SEGREDO = 32;
+
+    private static final String SQL_BUSCAR =
+            "SELECT segredo_hash, escopos FROM tb_cliente_servico WHERE client_id = ? AND ativo = TRUE";
+
+    private static final String SQL_INSERIR =
+            "INSERT INTO tb_cliente_servico (client_id, segredo_hash, escopos, ativo) VALUES (?, ?, ?, TRUE)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SecretKeySpec chaveHash;
+    private final SecureRandom aleatorio = new SecureRandom();
+
+    public ClienteServicoRegistro(JdbcTemplate jdbcTemplate,
+                                  @Value("${app.security.clients.secret-hash-key}") String chaveHash) {
+        if (!StringUtils.hasText(chaveHash)) {
+            throw new IllegalStateException("Chave do hash de segredos não configurada (app.security.clients.secret-hash-key)");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.chaveHash = new SecretKeySpec(chaveHash.getBytes(StandardCharsets.UTF_8), ALGORITMO_MAC);
+    }
+
+    /**
+     * Cliente ativo cujo segredo confere, ou {@code null}. O hash é calculado mesmo para
+     * {@code client_id} inexistente, para o tempo de resposta não revelar quais existem.
+     */
+    public ClienteServico autenticar(String clientId, String segredo) {
+        byte[] informado = hash(segredo);
+        List<ClienteServico> encontrados = jdbcTemplate.query(SQL_BUSCAR, (rs, linha) ->
+                MessageDigest.isEqual(rs.getBytes("segredo_hash"), informado)
+                        ? new ClienteServico(clientId, rs.getInt("escopos"))
+                        : null, clientId);
+        return encontrados.isEmpty() ? null : encontrados.get(0);
+    }
+
+    /**
+     * Cadastra o cliente e devolve o segredo em claro, que não fica guardado em lugar nenhum.
+     * Escopos fora de {@link Permissao#ESCOPOS_CLIENTE} são descartados.
+     */
+    public String registrar(String clientId, int escopos) {
+        byte[] bytes = new byte[BYTES_SEGREDO];
+        aleatorio.nextBytes(bytes);
+        String segredo = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        try {
+            jdbcTemplate.update(SQL_INSERIR, clientId, hash(segredo), escopos & Permissao.ESCOPOS_CLIENTE);
+        } catch (DuplicateKeyException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Cliente ja cadastrado: " + clientId);
+        }
+        return segredo;
+    }
+
+    private byte[] hash(String segredo) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITMO_MAC);
+            mac.init(chaveHash);
+            return mac.doFinal((segredo == null ? "" : segredo).getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HmacSHA256 indisponível", ex);
+        }
+    }
+
+    /**
+     * Cliente autenticado e os escopos que ele pode pedir (bitset de {@link Permissao}).
+     */
+    public record ClienteServico(String clientId, int escopos) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.api.service;
+
+import java.time.Instant;
+
+/**
+ * Uma tentativa de login, como vai para a trilha de auditoria.
+ */
+public record EventoLogin(
+        Integer codigoFilial,
+        String login,
+        Resultado resultado,
+        Motivo motivo,
+        String ipOrigem,
+        Instant ocorridoEm
+) {
+
+    public enum Resultado {
+        SUCESSO,
+        NEGADO
+    }
+
+    public enum Motivo {
+        OK,
+        LOGIN_INEXISTENTE,
+        SENHA_INVALIDA,
+        FILIAL_DESATIVADA,
+        LIMITE_SESSOES,
+        ERRO
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.api.service;
+
+import com.example.demo.api.security.ModoDegradado;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Último login e último acesso autenticado de cada filial, gravados em {@code tb_filial} por
+ * write-behind.
+ * <p>
+ * No caminho da requisição só se atualiza o maior instante visto num {@link AtomicLong} por filial,
+ * sem lock. A cada {@code flush-interval-millis} as marcas pendentes são trocadas por zero e vão
+ * para o banco num único {@code batchUpdate}, então a taxa de escrita depende do número de filiais
+ * ativas no intervalo, não do tráfego. O UPDATE regrava {@code atualizado_em} com o próprio valor
+ * para não disparar o {@code ON UPDATE} e, com ele, a invalidação do cache de principais em todas
+ * as réplicas. {@code GREATEST} impede que uma réplica atrasada volte o relógio de outra. Com o
+ * disjuntor do {@link ModoDegradado} aberto o ciclo agendado é pulado e as marcas esperam o banco.
+ */
+@Component
+@Slf4j
+public class FilialAtividade {
+
+    private static final String SQL_ATUALIZAR = """
+            UPDATE tb_filial
+               SET ultimo_login = COALESCE(GREATEST(ultimo_login, ?), ?, ultimo_login),
+                   ultimo_acesso = COALESCE(GREATEST(ultimo_acesso, ?), ?, ultimo_acesso),
+                   atualizado_em = atualizado_em
+             WHERE codigo_filial = ?""";
+
+    private static final int[] TIPOS = {
+            Types.TIMESTAMP, Types.TIMESTAMP, Types.TIMESTAMP, Types.TIMESTAMP, Types.INTEGER
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ModoDegradado modoDegradado;
+    private final ConcurrentMap<Integer, Marcas> marcas = new ConcurrentHashMap<>();
+
+    public FilialAtividade(JdbcTemplate jdbcTemplate, ModoDegradado modoDegradado) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.modoDegradado = modoDegradado;
+    }
+
+    public void registrarLogin(Integer codigoFilial) {
+        if (codigoFilial != null) {
+            avancar(marcas(codigoFilial).login, System.currentTimeMillis());
+        }
+    }
+
+    public void registrarAcesso(Integer codigoFilial) {
+        if (codigoFilial != null) {
+            avancar(marcas(codigoFilial).acesso, System.currentTimeMillis());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.activity.flush-interval-millis:30000}")
+    public void agendado() {
+        if (!modoDegradado.disjuntorAberto()) {
+            descarregar();
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        descarregar();
+    }
+
+    /**
+     * Grava as marcas pendentes e devolve quantas filiais foram atualizadas. Se o banco falhar, as
+     * marcas voltam para o mapa e vão no próximo ciclo.
+     */
+    public synchronized int descarregar() {
+        List<Pendente> pendentes = new ArrayList<>();
+        marcas.forEach((codigo, m) -> {
+            long login = m.login.getAndSet(0);
+            long acesso = m.acesso.getAndSet(0);
+            if (login != 0 || acesso != 0) {
+                pendentes.add(new Pendente(codigo, login, acesso));
+            }
+        });
+        if (pendentes.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> linhas = new ArrayList<>(pendentes.size());
+        for (Pendente p : pendentes) {
+            Timestamp login = instante(p.login());
+            Timestamp acesso = instante(p.acesso());
+            linhas.add(new Object[]{login, login, acesso, acesso, p.codigoFilial()});
+        }
+        try {
+            jdbcTemplate.batchUpdate(SQL_ATUALIZAR, linhas, TIPOS);
+            return pendentes.size();
+        } catch (DataAccessException ex) {
+            log.warn("Falha ao gravar atividade de {} filiais: {}", pendentes.size(), ex.getMessage());
+            for (Pendente p : pendentes) {
+                Marcas m = marcas(p.codigoFilial());
+                avancar(m.login, p.login());
+                avancar(m.acesso, p.acesso());
+            }
+            return 0;
+        }
+    }
+
+    int pendentes() {
+        int total = 0;
+        for (Marcas m : marcas.values()) {
+            if (m.login.get() != 0 || m.acesso.get() != 0) {
+                total++;
+            }
+        }
+        return total;
+    }
+
+    private Marcas marcas(Integer codigoFilial) {
+        Marcas m = marcas.get(codigoFilial);
+        return m != null ? m : marcas.computeIfAbsent(codigoFilial, c -> new Marcas());
+    }
+
+    private static void avancar(AtomicLong marca, long instante) {
+        long atual = marca.get();
+        // a leitura simples evita o CAS quando outra requisição já gravou um instante igual ou maior
+        while (instante > atual && !marca.compareAndSet(atual, instante)) {
+            atual = marca.get();
+        }
+    }
+
+    private static Timestamp instante(long millis) {
+        return millis == 0 ? null : new Timestamp(millis);
+    }
+
+    private static final class Marcas {
+        private final AtomicLong login = new AtomicLong();
+        private final AtomicLong acesso = new AtomicLong();
+    }
+
+    private record Pendente(Integer codigoFilial, long login, long acesso) {
+    }
+}
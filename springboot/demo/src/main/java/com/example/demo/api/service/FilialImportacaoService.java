@@ -0,0 +1,348 @@
+package com.example.demo.api.service;
+
+import com.example.demo.api.dto.FilialImportacaoLinha;
+import com.example.demo.api.dto.FilialImportacaoResultado;
+import com.example.verificador.Permissao;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Criação de filiais em lote a partir de NDJSON ou CSV.
+ * <p>
+ * A entrada é lida linha a linha, sem carregar o arquivo inteiro. As linhas válidas são juntadas
+ * em lotes de {@code batch-size}: logins que já existem são descartados com uma única consulta, as
+ * senhas são codificadas em paralelo num {@link ForkJoinPool} próprio e limitado (para o BCrypt
+ * não tomar a CPU dos logins) e o lote vai para o banco num {@code batchUpdate} pelo JDBC, já que
+ * {@code FilialRepository.save} com {@code IDENTITY} não agrupa inserts.
+ * <p>
+ * Cada lote é confirmado sozinho. Uma linha ruim vira um erro no resultado e não derruba as demais;
+ * se o lote falhar por conflito (outro nó criou o mesmo login no meio tempo), ele é refeito linha a
+ * linha para apontar quais falharam. Só uma importação roda por vez em cada nó.
+ */
+@Service
+@Slf4j
+public class FilialImportacaoService {
+
+    private static final String SQL_INSERT =
+            "INSERT INTO tb_filial (nome_filial, login, senha_hash, ativo, permissoes) VALUES (?, ?, ?, ?, ?)";
+
+    private static final int[] TIPOS_INSERT = {
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BOOLEAN, Types.INTEGER
+    };
+
+    private static final int TAMANHO_MAXIMO_NOME = 150;
+    private static final int TAMANHO_MAXIMO_LOGIN = 100;
+    // o BCrypt ignora o que passa de 72 bytes
+    private static final int TAMANHO_MAXIMO_SENHA_BYTES = 72;
+
+    public enum Formato {
+        NDJSON,
+        CSV
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final ForkJoinPool poolHash;
+    private final int tamanhoLote;
+    private final int maximoLinhas;
+    private final Semaphore emAndamento = new Semaphore(1);
+
+    public FilialImportacaoService(JdbcTemplate jdbcTemplate,
+                                   PasswordEncoder passwordEncoder,
+                                   ObjectMapper objectMapper,
+                                   @Value("${app.import.hash-parallelism:0}") int paralelismo,
+                                   @Value("${app.import.batch-size:200}") int tamanhoLote,
+                                   @Value("${app.import.max-rows:10000}") int maximoLinhas) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.objectMapper = objectMapper;
+        int threads = paralelismo > 0 ? paralelismo : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.poolHash = new ForkJoinPool(threads);
+        this.tamanhoLote = tamanhoLote;
+        this.maximoLinhas = maximoLinhas;
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        poolHash.shutdownNow();
+    }
+
+    public FilialImportacaoResultado importar(InputStream entrada, Formato formato) throws IOException {
+        if (!emAndamento.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Importacao ja em andamento");
+        }
+        try (BufferedReader leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            Importacao importacao = new Importacao();
+            LeitorCsv csv = formato == Formato.CSV ? new LeitorCsv() : null;
+            long numero = 0;
+            String texto;
+            while ((texto = leitor.readLine()) != null) {
+                numero++;
+                if (!StringUtils.hasText(texto)) {
+                    continue;
+                }
+                if (csv != null && !csv.temCabecalho()) {
+                    String erro = csv.lerCabecalho(texto);
+                    if (erro != null) {
+                        importacao.erro(numero, null, erro);
+                        break;
+                    }
+                    continue;
+                }
+                if (importacao.recebidas >= maximoLinhas) {
+                    importacao.erro(numero, null, "Limite de " + maximoLinhas + " linhas por importacao excedido");
+                    break;
+                }
+                importacao.recebidas++;
+                FilialImportacaoLinha linha;
+                try {
+                    linha = csv != null ? csv.ler(texto) : objectMapper.readValue(texto, FilialImportacaoLinha.class);
+                } catch (JsonProcessingException | IllegalArgumentException ex) {
+                    importacao.erro(numero, null, "Linha mal formada");
+                    continue;
+                }
+                importacao.adicionar(numero, linha);
+            }
+            importacao.descarregar();
+            return new FilialImportacaoResultado(importacao.recebidas, importacao.criadas, importacao.erros);
+        } finally {
+            emAndamento.release();
+        }
+    }
+
+    private static String validar(FilialImportacaoLinha linha) {
+        if (linha == null) {
+            return "Linha vazia";
+        }
+        if (!StringUtils.hasText(linha.nomeFilial()) || linha.nomeFilial().length() > TAMANHO_MAXIMO_NOME) {
+            return "nomeFilial obrigatorio, ate " + TAMANHO_MAXIMO_NOME + " caracteres";
+        }
+        if (!StringUtils.hasText(linha.login()) || linha.login().length() > TAMANHO_MAXIMO_LOGIN) {
+            return "login obrigatorio, ate " + TAMANHO_MAXIMO_LOGIN + " caracteres";
+        }
+        if (!StringUtils.hasLength(linha.senha())
+                || linha.senha().getBytes(StandardCharsets.UTF_8).length > TAMANHO_MAXIMO_SENHA_BYTES) {
+            return "senha obrigatoria, ate " + TAMANHO_MAXIMO_SENHA_BYTES + " bytes";
+        }
+        if (linha.permissoes() != null && (linha.permissoes() < 0 || linha.permissoes() > Permissao.TODAS)) {
+            return "permissoes fora do intervalo 0.." + Permissao.TODAS;
+        }
+        return null;
+    }
+
+    /**
+     * Estado de uma importação: lote pendente, logins já vistos e erros acumulados.
+     */
+    private final class Importacao {
+
+        private final List<Pendente> lote = new ArrayList<>(tamanhoLote);
+        private final Set<String> logins = new HashSet<>();
+        private final List<FilialImportacaoResultado.Erro> erros = new ArrayList<>();
+        private int recebidas;
+        private int criadas;
+
+        void adicionar(long numero, FilialImportacaoLinha linha) {
+            String invalida = validar(linha);
+            if (invalida != null) {
+                erro(numero, linha == null ? null : linha.login(), invalida);
+                return;
+            }
+            if (!logins.add(linha.login())) {
+                erro(numero, linha.login(), "Login repetido no arquivo");
+                return;
+            }
+            lote.add(new Pendente(numero, linha));
+            if (lote.size() >= tamanhoLote) {
+                descarregar();
+            }
+        }
+
+        void erro(long numero, String login, String mensagem) {
+            erros.add(new FilialImportacaoResultado.Erro(numero, login, mensagem));
+        }
+
+        void descarregar() {
+            if (lote.isEmpty()) {
+                return;
+            }
+            try {
+                List<Pendente> novos = semExistentes();
+                if (!novos.isEmpty()) {
+                    inserir(novos, codificar(novos));
+                }
+            } finally {
+                lote.clear();
+            }
+        }
+
+        private List<Pendente> semExistentes() {
+            String marcadores = String.join(",", Collections.nCopies(lote.size(), "?"));
+            Set<String> existentes = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT login FROM tb_filial WHERE login IN (" + marcadores + ")",
+                    String.class, lote.stream().map(p -> p.linha().login()).toArray()));
+            List<Pendente> novos = new ArrayList<>(lote.size());
+            for (Pendente pendente : lote) {
+                if (existentes.contains(pendente.linha().login())) {
+                    erro(pendente.numero(), pendente.linha().login(), "Login ja cadastrado");
+                } else {
+                    novos.add(pendente);
+                }
+            }
+            return novos;
+        }
+
+        private List<String> codificar(List<Pendente> novos) {
+            // parallelStream dentro do submit roda nas threads do pool limitado, não no common pool
+            return poolHash.submit(() -> novos.parallelStream()
+                    .map(p -> passwordEncoder.encode(p.linha().senha()))
+                    .toList()).join();
+        }
+
+        private void inserir(List<Pendente> novos, List<String> hashes) {
+            List<Object[]> linhas = new ArrayList<>(novos.size());
+            for (int i = 0; i < novos.size(); i++) {
+                linhas.add(parametros(novos.get(i).linha(), hashes.get(i)));
+            }
+            try {
+                jdbcTemplate.batchUpdate(SQL_INSERT, linhas, TIPOS_INSERT);
+                criadas += novos.size();
+            } catch (DataAccessException ex) {
+                log.warn("Lote de importacao falhou, refazendo linha a linha: {}", ex.getMessage());
+                for (int i = 0; i < novos.size(); i++) {
+                    Pendente pendente = novos.get(i);
+                    try {
+                        jdbcTemplate.update(SQL_INSERT, linhas.get(i), TIPOS_INSERT);
+                        criadas++;
+                    } catch (DuplicateKeyException dup) {
+                        erro(pendente.numero(), pendente.linha().login(), "Login ja cadastrado");
+                    } catch (DataAccessException falha) {
+                        erro(pendente.numero(), pendente.linha().login(), "Falha ao gravar");
+                    }
+                }
+            }
+        }
+
+        private Object[] parametros(FilialImportacaoLinha linha, String hash) {
+            return new Object[]{
+                    linha.nomeFilial(),
+                    linha.login(),
+                    hash,
+                    !Boolean.FALSE.equals(linha.ativo()),
+                    linha.permissoes() == null ? Integer.valueOf(Permissao.PADRAO) : linha.permissoes()
+            };
+        }
+    }
+
+    private record Pendente(long numero, FilialImportacaoLinha linha) {
+    }
+
+    /**
+     * CSV com cabeçalho ({@code nomeFilial,login,senha[,ativo][,permissoes]}, em qualquer ordem),
+     * separado por vírgula e com aspas duplas opcionais. Campos não podem ter quebra de linha.
+     */
+    private static final class LeitorCsv {
+
+        private static final Set<String> COLUNAS = Set.of("nomefilial", "login", "senha", "ativo", "permissoes");
+
+        // vazio até o cabeçalho ser lido; um cabeçalho aceito tem pelo menos três colunas
+        private Map<String, Integer> indices = Map.of();
+
+        boolean temCabecalho() {
+            return !indices.isEmpty();
+        }
+
+        String lerCabecalho(String texto) {
+            List<String> nomes = separar(texto);
+            Map<String, Integer> lidos = new HashMap<>();
+            for (int i = 0; i < nomes.size(); i++) {
+                String nome = nomes.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT);
+                if (!COLUNAS.contains(nome)) {
+                    return "Coluna desconhecida no cabecalho: " + nomes.get(i);
+                }
+                lidos.put(nome, i);
+            }
+            if (!lidos.keySet().containsAll(Set.of("nomefilial", "login", "senha"))) {
+                return "Cabecalho deve ter nomeFilial, login e senha";
+            }
+            indices = lidos;
+            return null;
+        }
+
+        FilialImportacaoLinha ler(String texto) {
+            List<String> campos = separar(texto);
+            String ativo = campo(campos, "ativo");
+            String permissoes = campo(campos, "permissoes");
+            return new FilialImportacaoLinha(
+                    campo(campos, "nomefilial"),
+                    campo(campos, "login"),
+                    campo(campos, "senha"),
+                    StringUtils.hasText(ativo) ? Boolean.valueOf(ativo.trim()) : null,
+                    StringUtils.hasText(permissoes) ? Integer.valueOf(permissoes.trim()) : null);
+        }
+
+        private String campo(List<String> campos, String coluna) {
+            Integer indice = indices.get(coluna);
+            return indice == null || indice >= campos.size() ? null : campos.get(indice);
+        }
+
+        private static List<String> separar(String texto) {
+            List<String> campos = new ArrayList<>();
+            StringBuilder atual = new StringBuilder();
+            boolean entreAspas = false;
+            for (int i = 0; i < texto.length(); i++) {
+                char c = texto.charAt(i);
+                if (entreAspas) {
+                    if (c == '"' && i + 1 < texto.length() && texto.charAt(i + 1) == '"') {
+                        atual.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        entreAspas = false;
+                    } else {
+                        atual.append(c);
+                    }
+                } else if (c == '"') {
+                    entreAspas = true;
+                } else if (c == ',') {
+                    campos.add(atual.toString());
+                    atual.setLength(0);
+                } else {
+                    atual.append(c);
+                }
+            }
+            if (entreAspas) {
+                throw new IllegalArgumentException("Aspas sem fechamento");
+            }
+            campos.add(atual.toString());
+            return campos;
+        }
+    }
+}
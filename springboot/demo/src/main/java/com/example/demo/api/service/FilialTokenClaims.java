@@ -0,0 +1,53 @@
+package com.example.demo.api.service;
+
+import com.example.verificador.Permissao;
+
+import java.time.Instant;
+
+/**
+ * Claims que o próprio serviço coloca nos tokens de filial.
+ * <p>
+ * Tokens de cliente de serviço (client credentials) chegam com {@code cliente = true}: {@code login}
+ * é o {@code client_id}, {@code permissoes} vem da claim {@code scope} (restrita a
+ * {@link Permissao#ESCOPOS_CLIENTE}) e não há filial.
+ * <p>
+ * {@code sessao} são os primeiros 64 bits do {@code jti}, que identificam a sessão no
+ * {@link RegistroSessoes}; {@code 0} para tokens sem {@code jti} (emitidos antes dele ou de cliente).
+ * <p>
+ * {@code opaco} só vem ligado nas claims de um handle opaco, montadas pelo {@link JwtService} a
+ * partir do {@link TokenOpacoStore}: não há {@code login} e o principal é carregado pelo
+ * {@code filialId}. Um JWT sem {@code sub} nunca é opaco.
+ */
+public record FilialTokenClaims(
+        String login,
+        Instant expiraEm,
+        Integer filialId,
+        String nome,
+        Integer permissoes,
+        boolean cliente,
+        long sessao,
+        boolean opaco
+) {
+
+    public FilialTokenClaims(String login, Instant expiraEm, Integer filialId, String nome, Integer permissoes) {
+        this(login, expiraEm, filialId, nome, permissoes, false, 0);
+    }
+
+    public FilialTokenClaims(String login, Instant expiraEm, Integer filialId, String nome, Integer permissoes,
+                             long sessao) {
+        this(login, expiraEm, filialId, nome, permissoes, false, sessao);
+    }
+
+    public FilialTokenClaims(String login, Instant expiraEm, Integer filialId, String nome, Integer permissoes,
+                             boolean cliente, long sessao) {
+        this(login, expiraEm, filialId, nome, permissoes, cliente, sessao, false);
+    }
+
+    static FilialTokenClaims deCliente(String clientId, Instant expiraEm, int escopos) {
+        return new FilialTokenClaims(clientId, expiraEm, null, null, escopos & Permissao.ESCOPOS_CLIENTE, true, 0);
+    }
+
+    static FilialTokenClaims deOpaco(Instant expiraEm, Integer filialId, Integer permissoes) {
+        return new FilialTokenClaims(null, expiraEm, filialId, null, permissoes, false, 0, true);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.api.service;
+
+import com.example.verificador.ClaimsToken;
+import com.example.verificador.TokenInvalidoException;
+import com.example.verificador.VerificadorToken;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Caminho rápido do {@link JwtService} para os tokens HS256 que ele mesmo emite.
+ * <p>
+ * A verificação é a do {@link VerificadorToken} do módulo {@code verificador-token}, o mesmo que os
+ * serviços da loja usam: cabeçalho comparado como texto, HMAC sobre os bytes crus e um leitor
+ * restrito às claims emitidas aqui. O codec só traduz o resultado para {@link FilialTokenClaims}.
+ * <p>
+ * Qualquer token que o verificador recusa (fora do formato, assinatura inválida, expirado) devolve
+ * {@code null} e o chamador cai no jjwt, que continua sendo a referência para mensagens e exceções.
+ * Token de filial sem {@code perm} também: o verificador lê a ausência como nenhuma permissão, e no
+ * serviço ela quer dizer "as do banco".
+ */
+final class FilialTokenCodec {
+
+    private final VerificadorToken verificador;
+
+    FilialTokenCodec(byte[] chave, LongSupplier relogio) {
+        this.verificador = new VerificadorToken(chave, 0, relogio);
+    }
+
+    /**
+     * Verifica e decodifica o token; devolve {@code null} quando ele precisa ir para o jjwt.
+     */
+    FilialTokenClaims decode(String token) {
+        if (token == null) {
+            return null;
+        }
+        ClaimsToken claims;
+        try {
+            claims = verificador.verificar(token);
+        } catch (TokenInvalidoException ex) {
+            return null;
+        }
+        if (claims.cliente()) {
+            return FilialTokenClaims.deCliente(claims.login(), claims.expiraEm(), claims.permissoes());
+        }
+        if (claims.permissoes() == 0) {
+            return null;
+        }
+        return new FilialTokenClaims(claims.login(), claims.expiraEm(), claims.filialId(), claims.nome(),
+                claims.permissoes(), claims.sessao());
+    }
+}
@@ -1,27 +1,38 @@
 package com.example.demo.api.service;
 
 import com.example.demo.api.model.FilialEntity;
+import com.example.verificador.Permissao;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.SecureRandom;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 public class JwtService {
 
+    private static final Base64.Encoder JTI = Base64.getUrlEncoder().withoutPadding();
+
     private final JwtClock clock = new JwtClock();
+    private final SecureRandom random = new SecureRandom();
 
     @Value("${app.security.jwt.secret}")
     private String secret;
@@ -29,62 +40,278 @@ public class JwtService {
     @Value("${app.security.jwt.expiration-millis:3600000}")
     private long expirationMillis;
 
+    @Value("${app.security.jwt.expiration-jitter-millis:0}")
+    private long expirationJitterMillis;
+
+    @Value("${app.security.jwt.renewal-window-millis:0}")
+    private long renewalWindowMillis;
+
+    @Autowired(required = false)
+    private TokenOpacoStore tokensOpacos;
+
+    @Autowired(required = false)
+    private RegistroSessoes sessoes;
+
+    private volatile Chaves chaves;
+
+    /**
+     * JWT da filial com um {@code jti} aleatório, registrado como sessão no {@link RegistroSessoes}.
+     * A validade é {@code expiration-millis} menos o sorteio de {@link #validade()}. Lança
+     * {@link LimiteSessoesException} se a filial estiver no limite e a política for recusar.
+     */
     public String generateToken(FilialEntity filial) {
-        Map<String, Object> claims = Map.of(
-                "filialId", filial.getCodigoFilial(),
-                "nome", filial.getNomeFilial()
-        );
-        return buildToken(claims, filial.getLogin());
+        Instant emitidoEm = clock.now();
+        long validade = validade();
+        String jti = novoJti();
+        String token = buildFilialToken(filial, emitidoEm, validade, jti);
+        if (sessoes != null) {
+            sessoes.abrir(filial.getCodigoFilial(), RegistroSessoes.idSessao(jti), null,
+                    emitidoEm.toEpochMilli() + validade);
+        }
+        return token;
+    }
+
+    /**
+     * O mesmo JWT de {@link #generateToken(FilialEntity)}, mas sem abrir sessão no
+     * {@link RegistroSessoes}: não ocupa vaga no limite da filial nem aparece em
+     * {@code /admin/sessoes}. Para quem só exercita a emissão e a verificação, como o
+     * {@code JitWarmup}; nunca para responder a um login.
+     */
+    public String generateUntrackedToken(FilialEntity filial) {
+        return buildFilialToken(filial, clock.now(), validade(), novoJti());
+    }
+
+    /**
+     * JWT novo no lugar do token da sessão {@code sessaoAnterior} (sessão deslizante). A sessão
+     * anterior é encerrada sem ser descartada: o token antigo ainda vale até o próprio {@code exp}
+     * para as requisições em voo, mas deixa de ocupar vaga no limite da filial. Devolve {@code null}
+     * se mesmo assim a filial estiver no limite e a política for recusar.
+     */
+    public String reemitirToken(FilialEntity filial, long sessaoAnterior) {
+        if (sessoes != null) {
+            sessoes.encerrar(sessaoAnterior);
+        }
+        try {
+            return generateToken(filial);
+        } catch (LimiteSessoesException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Token de cliente de serviço (client credentials): {@code sub} é o {@code client_id} e a claim
+     * {@code scope} lista as permissões concedidas. Não tem filial nem versão opaca.
+     */
+    public String generateClientToken(String clientId, int escopos, long validadeMillis) {
+        return buildToken(Map.of("scope", Permissao.escopo(escopos)), clientId, clock.now(), validadeMillis, null);
+    }
+
+    /**
+     * Emite um token opaco (handle aleatório guardado no {@link TokenOpacoStore}) com a mesma
+     * validade (e o mesmo sorteio) do JWT. Devolve {@code null} se o store estiver cheio.
+     */
+    public String generateOpaqueToken(FilialEntity filial) {
+        if (tokensOpacos == null) {
+            throw new IllegalStateException("Tokens opacos indisponíveis: TokenOpacoStore não configurado");
+        }
+        Integer permissoes = filial.getPermissoes();
+        long expiraEmMillis = clock.now().toEpochMilli() + validade();
+        String handle = tokensOpacos.emitir(filial.getCodigoFilial(),
+                permissoes == null ? Permissao.PADRAO : permissoes,
+                expiraEmMillis);
+        if (handle != null && sessoes != null) {
+            try {
+                sessoes.abrir(filial.getCodigoFilial(), RegistroSessoes.idSessao(handle), handle, expiraEmMillis);
+            } catch (LimiteSessoesException ex) {
+                tokensOpacos.revogar(handle);
+                throw ex;
+            }
+        }
+        return handle;
+    }
+
+    /**
+     * Revoga um token opaco na hora. JWTs não têm estado no servidor e devolvem {@code false}.
+     */
+    public boolean revokeOpaqueToken(String token) {
+        if (tokensOpacos == null || !tokensOpacos.revogar(token)) {
+            return false;
+        }
+        if (sessoes != null) {
+            sessoes.encerrar(RegistroSessoes.idSessao(token));
+        }
+        return true;
     }
 
     public String extractLogin(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return parseToken(token).login();
     }
 
     public boolean isTokenValid(String token, String login) {
-        String username = extractLogin(token);
-        return username != null && username.equals(login) && !isTokenExpired(token);
+        return isTokenValid(parseToken(token), login);
+    }
+
+    public boolean isTokenValid(FilialTokenClaims claims, String login) {
+        String username = claims.login();
+        return !claims.cliente() && username != null && username.equals(login)
+                && !claims.expiraEm().isBefore(clock.now());
     }
 
     public Instant extractExpirationInstant(String token) {
-        return extractClaim(token, claims -> claims.getExpiration().toInstant());
+        return parseToken(token).expiraEm();
+    }
+
+    /**
+     * Verifica o token e devolve as claims da filial. Tokens no formato emitido por este serviço
+     * passam pelo {@link FilialTokenCodec}, sobre o mesmo verificador que os serviços da loja usam;
+     * qualquer outro vai para o parser do jjwt. Handles opacos são procurados no
+     * {@link TokenOpacoStore} e voltam sem {@code login}: o principal é carregado pelo
+     * {@code filialId}. JWTs cuja sessão foi descartada pelo limite de sessões da filial são
+     * recusados como inválidos.
+     */
+    public FilialTokenClaims parseToken(String token) {
+        if (TokenOpacoStore.pareceHandle(token)) {
+            return parseOpaqueToken(token);
+        }
+        FilialTokenClaims claims = chaves().codec().decode(token);
+        if (claims == null) {
+            claims = parseJwt(token);
+        }
+        if (claims.sessao() != 0 && sessoes != null && sessoes.descartada(claims.sessao())) {
+            throw new JwtException("Sessão encerrada pelo limite de sessões da filial");
+        }
+        return claims;
+    }
+
+    private FilialTokenClaims parseJwt(String token) {
+        return extractClaim(token, c -> {
+            String escopo = c.get("scope", String.class);
+            if (escopo != null) {
+                int escopos = Permissao.doEscopo(escopo);
+                if (escopos < 0) {
+                    throw new MalformedJwtException("Escopo desconhecido no token: " + escopo);
+                }
+                return FilialTokenClaims.deCliente(c.getSubject(), c.getExpiration().toInstant(), escopos);
+            }
+            return new FilialTokenClaims(
+                    c.getSubject(),
+                    c.getExpiration().toInstant(),
+                    c.get("filialId", Integer.class),
+                    c.get("nome", String.class),
+                    c.get("perm", Integer.class),
+                    RegistroSessoes.idSessao(c.getId()));
+        });
+    }
+
+    /**
+     * Indica se a chave de assinatura já foi (ou pode ser) montada a partir do secret configurado.
+     */
+    public boolean chavesProntas() {
+        try {
+            chaves();
+            return true;
+        } catch (RuntimeException ex) {
+            return false;
+        }
     }
 
     public long getExpirationMillis() {
         return expirationMillis;
     }
 
-    private String buildToken(Map<String, Object> claims, String subject) {
-        Date issuedAt = Date.from(clock.now());
-        Date expiration = new Date(issuedAt.getTime() + expirationMillis);
+    /**
+     * Validade de um token de filial recém-emitido: {@code expiration-millis} menos um sorteio
+     * uniforme em {@code [0, expiration-jitter-millis]}. As filiais entram todas na abertura das
+     * lojas; com validade fixa os tokens venceriam juntos e o {@code /auth/login} levaria a cada hora
+     * um pico de BCrypt do tamanho da rede. O sorteio só encurta, então nenhum token dura mais que o
+     * configurado, e a cada ciclo as renovações se espalham mais.
+     */
+    long validade() {
+        long jitter = Math.min(expirationJitterMillis, expirationMillis / 2);
+        if (jitter <= 0) {
+            return expirationMillis;
+        }
+        return expirationMillis - ThreadLocalRandom.current().nextLong(jitter + 1);
+    }
+
+    /**
+     * Instante sugerido para a filial renovar o token, sorteado em {@code [expiraEm - renewal-window-millis,
+     * expiraEm)}, ou {@code null} com a janela desligada. Renovando antes do vencimento o cliente não
+     * recebe {@code 401} no meio de uma operação, e o sorteio espalha as renovações dentro da janela.
+     */
+    public Instant renovarEm(Instant expiraEm) {
+        long janela = Math.min(renewalWindowMillis, expirationMillis / 2);
+        if (janela <= 0) {
+            return null;
+        }
+        return expiraEm.minusMillis(janela - ThreadLocalRandom.current().nextLong(janela));
+    }
+
+    private FilialTokenClaims parseOpaqueToken(String token) {
+        TokenOpacoStore.Sessao sessao = tokensOpacos == null ? null
+                : tokensOpacos.buscar(token, clock.now().toEpochMilli());
+        if (sessao == null) {
+            throw new JwtException("Token opaco inexistente, expirado ou revogado");
+        }
+        return FilialTokenClaims.deOpaco(Instant.ofEpochMilli(sessao.expiraEmMillis()),
+                sessao.codigoFilial(), sessao.permissoes());
+    }
+
+    private String buildFilialToken(FilialEntity filial, Instant emitidoEm, long validadeMillis, String jti) {
+        Map<String, Object> claims = Map.of(
+                "filialId", filial.getCodigoFilial(),
+                "nome", filial.getNomeFilial(),
+                "perm", filial.getPermissoes()
+        );
+        return buildToken(claims, filial.getLogin(), emitidoEm, validadeMillis, jti);
+    }
+
+    private String buildToken(Map<String, Object> claims, String subject, Instant emitidoEm, long validadeMillis,
+                              String jti) {
+        Date issuedAt = Date.from(emitidoEm);
+        Date expiration = new Date(issuedAt.getTime() + validadeMillis);
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(jti)
                 .setSubject(subject)
                 .setIssuedAt(issuedAt)
                 .setExpiration(expiration)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(chaves().key(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpirationInstant(token).isBefore(clock.now());
+    private String novoJti() {
+        byte[] bytes = new byte[8];
+        random.nextBytes(bytes);
+        return JTI.encodeToString(bytes);
     }
 
     private <T> T extractClaim(String token, Function<Claims, T> resolver) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        Claims claims = chaves().parser()
                 .parseClaimsJws(token)
                 .getBody();
         return resolver.apply(claims);
     }
 
-    private Key getSigningKey() {
-        if (!StringUtils.hasText(secret)) {
-            throw new IllegalStateException("JWT secret is not configured (app.security.jwt.secret)");
+    private Chaves chaves() {
+        Chaves atual = chaves;
+        if (atual == null) {
+            if (!StringUtils.hasText(secret)) {
+                throw new IllegalStateException("JWT secret is not configured (app.security.jwt.secret)");
+            }
+            byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+            Key key = Keys.hmacShaKeyFor(keyBytes);
+            atual = new Chaves(key, Jwts.parserBuilder().setSigningKey(key).build(),
+                    new FilialTokenCodec(keyBytes, () -> clock.now().toEpochMilli()));
+            chaves = atual;
         }
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return atual;
+    }
+
+    /**
+     * Chave, parser do jjwt e codec montados uma única vez a partir do secret.
+     */
+    private record Chaves(Key key, JwtParser parser, FilialTokenCodec codec) {
     }
 
     /**
@@ -0,0 +1,12 @@
+package com.example.demo.api.service;
+
+/**
+ * A filial já tem {@code app.security.sessions.max-per-filial} sessões vivas e a política é
+ * recusar o login. O {@link AuthService} transforma em {@code 409}.
+ */
+class LimiteSessoesException extends RuntimeException {
+
+    LimiteSessoesException(int limite) {
+        super("Limite de " + limite + " sessões simultâneas da filial atingido");
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.demo.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trilha de auditoria de login gravada fora do caminho da requisição.
+ * <p>
+ * {@link #registrar} só coloca o evento num buffer circular limitado; uma thread de fundo junta
+ * até {@code batch-size} eventos (ou o que chegou em {@code flush-interval-millis}) e grava com um
+ * único {@code batchUpdate}. Com o buffer cheio vale a política configurada: {@code DROP} descarta
+ * na hora, {@code BLOCK} espera até {@code block-timeout-millis} e depois descarta. Ao parar, o
+ * buffer é drenado antes de o pool de conexões fechar.
+ */
+@Service
+@Slf4j
+public class LoginAuditoria implements SmartLifecycle {
+
+    private static final String SQL_INSERT = """
+            INSERT INTO tb_login_auditoria (codigo_filial, login, resultado, motivo, ip_origem, ocorrido_em)
+            VALUES (?, ?, ?, ?, ?, ?)""";
+
+    public enum PoliticaBufferCheio {
+        DROP,
+        BLOCK
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<EventoLogin> buffer;
+    private final int tamanhoLote;
+    private final long intervaloMillis;
+    private final PoliticaBufferCheio politica;
+    private final long esperaMillis;
+    private final Counter descartados;
+    private final Counter gravados;
+
+    private volatile boolean rodando;
+    private Thread escritor;
+
+    public LoginAuditoria(JdbcTemplate jdbcTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.audit.login.buffer-size:8192}") int capacidade,
+                          @Value("${app.audit.login.batch-size:200}") int tamanhoLote,
+                          @Value("${app.audit.login.flush-interval-millis:1000}") long intervaloMillis,
+                          @Value("${app.audit.login.full-policy:DROP}") PoliticaBufferCheio politica,
+                          @Value("${app.audit.login.block-timeout-millis:50}") long esperaMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new ArrayBlockingQueue<>(capacidade);
+        this.tamanhoLote = tamanhoLote;
+        this.intervaloMillis = intervaloMillis;
+        this.politica = politica;
+        this.esperaMillis = esperaMillis;
+        this.descartados = Counter.builder("auth.audit.dropped").register(meterRegistry);
+        this.gravados = Counter.builder("auth.audit.written").register(meterRegistry);
+        Gauge.builder("auth.audit.buffer.fill", buffer, b -> (double) b.size() / capacidade)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Enfileira o evento sem tocar no banco. Devolve {@code false} se ele foi descartado.
+     */
+    public boolean registrar(EventoLogin evento) {
+        if (buffer.offer(evento)) {
+            return true;
+        }
+        if (politica == PoliticaBufferCheio.BLOCK) {
+            try {
+                if (buffer.offer(evento, esperaMillis, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        descartados.increment();
+        return false;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (rodando) {
+            return;
+        }
+        rodando = true;
+        escritor = new Thread(this::executar, "login-audit-writer");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    @Override
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            if (!rodando) {
+                return;
+            }
+            rodando = false;
+            thread = escritor;
+        }
+        // sem interrupt: ele poderia derrubar a aquisição de conexão de um lote em andamento;
+        // o escritor percebe a parada em no máximo flush-interval-millis
+        try {
+            thread.join(intervaloMillis + TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return rodando;
+    }
+
+    /**
+     * Para depois do servidor web (que fica em fases mais altas), para não perder eventos das
+     * últimas requisições.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    int pendentes() {
+        return buffer.size();
+    }
+
+    private void executar() {
+        List<EventoLogin> lote = new ArrayList<>(tamanhoLote);
+        while (rodando) {
+            try {
+                juntarLote(lote);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                rodando = false;
+            }
+            gravar(lote);
+        }
+        while (buffer.drainTo(lote, tamanhoLote) > 0) {
+            gravar(lote);
+        }
+    }
+
+    private void juntarLote(List<EventoLogin> lote) throws InterruptedException {
+        EventoLogin primeiro = buffer.poll(intervaloMillis, TimeUnit.MILLISECONDS);
+        if (primeiro == null) {
+            return;
+        }
+        lote.add(primeiro);
+        long prazo = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervaloMillis);
+        while (lote.size() < tamanhoLote) {
+            buffer.drainTo(lote, tamanhoLote - lote.size());
+            long restante = prazo - System.nanoTime();
+            if (lote.size() >= tamanhoLote || restante <= 0) {
+                return;
+            }
+            EventoLogin proximo = buffer.poll(restante, TimeUnit.NANOSECONDS);
+            if (proximo == null) {
+                return;
+            }
+            lote.add(proximo);
+        }
+    }
+
+    private void gravar(List<EventoLogin> lote) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(SQL_INSERT, lote, lote.size(), (ps, evento) -> {
+                if (evento.codigoFilial() == null) {
+                    ps.setNull(1, Types.INTEGER);
+                } else {
+                    ps.setInt(1, evento.codigoFilial());
+                }
+                ps.setString(2, evento.login());
+                ps.setString(3, evento.resultado().name());
+                ps.setString(4, evento.motivo().name());
+                ps.setString(5, evento.ipOrigem());
+                ps.setTimestamp(6, Timestamp.from(evento.ocorridoEm()));
+            });
+            gravados.increment(lote.size());
+        } catch (DataAccessException ex) {
+            log.warn("Falha ao gravar {} eventos de auditoria de login: {}", lote.size(), ex.getMessage());
+            descartados.increment(lote.size());
+        } finally {
+            lote.clear();
+        }
+    }
+}
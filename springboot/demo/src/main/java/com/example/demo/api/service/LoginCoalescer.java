@@ -0,0 +1,97 @@
+package com.example.demo.api.service;
+
+import com.example.demo.api.dto.LoginRequest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Junta tentativas de login idênticas que chegam ao mesmo tempo (retry do app, toque duplo).
+ * <p>
+ * A primeira requisição faz a verificação; as demais com o mesmo login e a mesma senha esperam
+ * por ela e recebem o mesmo resultado, inclusive a mesma exceção. A chave do mapa é o login, o
+ * modo do token ({@code JWT} ou {@code OPACO}, que geram respostas diferentes) e
+ * um HMAC da senha com uma chave aleatória gerada no start, então nenhuma senha em texto puro
+ * (nem um hash reaproveitável fora do processo) fica guardada. A entrada sai do mapa assim que a
+ * verificação termina.
+ */
+final class LoginCoalescer<T> {
+
+    private static final String ALGORITMO_MAC = "HmacSHA256";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Map<String, CompletableFuture<T>> emAndamento = new ConcurrentHashMap<>();
+    private final ThreadLocal<Mac> macs;
+
+    LoginCoalescer() {
+        byte[] chave = new byte[32];
+        RANDOM.nextBytes(chave);
+        SecretKeySpec keySpec = new SecretKeySpec(chave, ALGORITMO_MAC);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITMO_MAC);
+                mac.init(keySpec);
+                return mac;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("HmacSHA256 indisponível", ex);
+            }
+        });
+    }
+
+    T executar(LoginRequest request, Supplier<T> autenticacao) {
+        if (request.login() == null || request.senha() == null) {
+            return autenticacao.get();
+        }
+        String chave = chave(request);
+        CompletableFuture<T> novo = new CompletableFuture<>();
+        CompletableFuture<T> existente = emAndamento.putIfAbsent(chave, novo);
+        if (existente != null) {
+            return aguardar(existente);
+        }
+        try {
+            T resultado = autenticacao.get();
+            novo.complete(resultado);
+            return resultado;
+        } catch (RuntimeException | Error ex) {
+            novo.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            emAndamento.remove(chave, novo);
+        }
+    }
+
+    int emAndamento() {
+        return emAndamento.size();
+    }
+
+    private String chave(LoginRequest request) {
+        Mac mac = macs.get();
+        mac.update(request.login().getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        byte[] digest = mac.doFinal(request.senha().getBytes(StandardCharsets.UTF_8));
+        return request.login() + '\0' + request.modoOuPadrao() + '\0' + Base64.getEncoder().encodeToString(digest);
+    }
+
+    private static <R> R aguardar(CompletableFuture<R> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (ex.getCause() instanceof Error erro) {
+                throw erro;
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.api.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Falha de login que carrega o motivo para a auditoria. Para o cliente continua sendo um
+ * {@link ResponseStatusException} comum, com a mesma mensagem de antes.
+ */
+class LoginNegadoException extends ResponseStatusException {
+
+    private final Integer codigoFilial;
+    private final EventoLogin.Motivo motivo;
+
+    LoginNegadoException(HttpStatus status, String mensagem, Integer codigoFilial, EventoLogin.Motivo motivo) {
+        super(status, mensagem);
+        this.codigoFilial = codigoFilial;
+        this.motivo = motivo;
+    }
+
+    Integer getCodigoFilial() {
+        return codigoFilial;
+    }
+
+    EventoLogin.Motivo getMotivo() {
+        return motivo;
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.demo.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Sessões vivas por filial: cada token emitido (o {@code jti} do JWT ou o handle opaco) abre uma
+ * sessão, que fecha quando o token expira, é revogado ou é descartado pelo limite.
+ * <p>
+ * Os dois são aleatórios em base64url (64 bits no {@code jti}, 128 no handle); a sessão é
+ * identificada pelos primeiros 64 ({@link #idSessao}), que o {@code VerificadorToken} lê direto dos
+ * bytes do token, sem montar a {@code String} do {@code jti} em cada requisição.
+ * <p>
+ * Nada aqui varre sessões no caminho da requisição:
+ * <ul>
+ *     <li>a contagem de cada filial é um {@link AtomicInteger} reservado por CAS antes da emissão,
+ *     então duas emissões simultâneas nunca passam juntas do limite;</li>
+ *     <li>cada sessão entra num balde pela hora de expiração ({@code bucket-millis}); a varredura
+ *     agendada só abre os baldes que já venceram inteiros e fecha o que encontrar neles;</li>
+ *     <li>a fila de cada filial está em ordem de emissão, que com validade fixa é a ordem de
+ *     expiração: a mais antiga (para descartar) e as já fechadas (para limpar) ficam na cabeça.</li>
+ * </ul>
+ * Com {@code max-per-filial} atingido, {@link Politica#DESCARTAR_MAIS_ANTIGA} derruba a sessão mais
+ * antiga da filial (o JWT dela passa a ser recusado, o handle opaco é revogado) e
+ * {@link Politica#REJEITAR} recusa o login. {@code 0} desliga o limite e só conta.
+ * <p>
+ * Como os tokens opacos, o registro fica na memória desta instância: com mais de uma réplica a
+ * contagem e o limite valem por instância, e um JWT com {@code jti} desconhecido (emitido por outra
+ * réplica ou antes de um restart) continua aceito. Só os descartados daqui são recusados.
+ */
+@Component
+public class RegistroSessoes {
+
+    private static final int ATIVA = 0;
+    private static final int ENCERRADA = 1;
+    private static final int DESCARTADA = 2;
+
+    private final int limitePorFilial;
+    private final Politica politica;
+    private final long baldeMillis;
+    private final LongSupplier relogio;
+    private final Consumer<Sessao> aoDescartar;
+    private final ConcurrentMap<Integer, Filial> porFilial = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Sessao> porId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Queue<Sessao>> baldes = new ConcurrentHashMap<>();
+    private final AtomicInteger ativas = new AtomicInteger();
+    private final Counter descartadas;
+    private final Counter rejeitadas;
+
+    @Autowired
+    public RegistroSessoes(@Value("${app.security.sessions.max-per-filial:0}") int limitePorFilial,
+                           @Value("${app.security.sessions.on-limit:DESCARTAR_MAIS_ANTIGA}") Politica politica,
+                           @Value("${app.security.sessions.bucket-millis:60000}") long baldeMillis,
+                           ObjectProvider<TokenOpacoStore> tokensOpacos,
+                           MeterRegistry meterRegistry) {
+        this(limitePorFilial, politica, baldeMillis, meterRegistry, System::currentTimeMillis,
+                sessao -> {
+                    TokenOpacoStore store = tokensOpacos.getIfAvailable();
+                    if (sessao.handleOpaco() != null && store != null) {
+                        store.revogar(sessao.handleOpaco());
+                    }
+                });
+    }
+
+    RegistroSessoes(int limitePorFilial, Politica politica, long baldeMillis, MeterRegistry meterRegistry,
+                    LongSupplier relogio, Consumer<Sessao> aoDescartar) {
+        this.limitePorFilial = limitePorFilial;
+        this.politica = politica;
+        this.baldeMillis = baldeMillis;
+        this.relogio = relogio;
+        this.aoDescartar = aoDescartar;
+        Gauge.builder("auth.sessions.active", ativas, AtomicInteger::get)
+                .description("Sessões vivas (tokens emitidos por esta instância e ainda válidos)")
+                .register(meterRegistry);
+        this.descartadas = Counter.builder("auth.sessions.evicted")
+                .description("Sessões derrubadas pelo limite por filial")
+                .register(meterRegistry);
+        this.rejeitadas = Counter.builder("auth.sessions.rejected")
+                .description("Logins recusados pelo limite de sessões por filial")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Abre a sessão {@code id} da filial ({@code handleOpaco} é o token, para tokens opacos; {@code null}
+     * para JWT), descartando a mais antiga ou lançando
+     * {@link LimiteSessoesException} se a filial já estiver no limite. Sem código de filial, nada é
+     * registrado.
+     */
+    void abrir(Integer codigoFilial, long id, String handleOpaco, long expiraEmMillis) {
+        if (codigoFilial == null) {
+            return;
+        }
+        Filial filial = porFilial.computeIfAbsent(codigoFilial, codigo -> new Filial());
+        while (true) {
+            int atuais = filial.ativas.get();
+            if (limitePorFilial <= 0 || atuais < limitePorFilial) {
+                if (filial.ativas.compareAndSet(atuais, atuais + 1)) {
+                    break;
+                }
+                continue;
+            }
+            if (liberarExpiradas(filial, relogio.getAsLong())) {
+                continue;
+            }
+            if (politica == Politica.REJEITAR) {
+                rejeitadas.increment();
+                throw new LimiteSessoesException(limitePorFilial);
+            }
+            if (!descartarMaisAntiga(filial)) {
+                // outra emissão já reservou a vaga mas ainda não entrou na fila
+                Thread.onSpinWait();
+            }
+        }
+        Sessao sessao = new Sessao(id, codigoFilial, expiraEmMillis, handleOpaco);
+        ativas.incrementAndGet();
+        porId.put(id, sessao);
+        filial.fila.add(sessao);
+        baldes.computeIfAbsent(expiraEmMillis / baldeMillis, balde -> new ConcurrentLinkedQueue<>()).add(sessao);
+    }
+
+    /**
+     * Fecha a sessão na hora (logout de token opaco).
+     */
+    void encerrar(long id) {
+        Sessao sessao = porId.remove(id);
+        if (sessao != null) {
+            fechar(sessao, ENCERRADA);
+        }
+    }
+
+    /**
+     * {@code true} se a sessão foi derrubada pelo limite e o token não deve mais ser aceito. Um
+     * {@code id} desconhecido (ou {@code 0}, token sem {@code jti}) devolve {@code false}.
+     */
+    boolean descartada(long id) {
+        if (id == 0) {
+            return false;
+        }
+        Sessao sessao = porId.get(id);
+        return sessao != null && sessao.estado.get() == DESCARTADA;
+    }
+
+    /**
+     * Sessões vivas da filial.
+     */
+    public int ativas(Integer codigoFilial) {
+        Filial filial = porFilial.get(codigoFilial);
+        return filial == null ? 0 : filial.ativas.get();
+    }
+
+    /**
+     * Entrega a contagem de cada filial com sessão viva, sem copiar o mapa: o que muda durante a
+     * leitura pode ou não aparecer.
+     */
+    public void paraCada(BiConsumer<Integer, Integer> consumidor) {
+        porFilial.forEach((codigo, filial) -> {
+            int atuais = filial.ativas.get();
+            if (atuais > 0) {
+                consumidor.accept(codigo, atuais);
+            }
+        });
+    }
+
+    public int totalAtivas() {
+        return ativas.get();
+    }
+
+    /**
+     * Fecha as sessões dos baldes que venceram inteiros e limpa a cabeça das filas por filial.
+     * Devolve quantas sessões foram fechadas.
+     */
+    @Scheduled(fixedDelayString = "${app.security.sessions.bucket-millis:60000}")
+    public int varrer() {
+        long baldeAtual = relogio.getAsLong() / baldeMillis;
+        int fechadas = 0;
+        Iterator<Map.Entry<Long, Queue<Sessao>>> it = baldes.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Queue<Sessao>> balde = it.next();
+            if (balde.getKey() >= baldeAtual) {
+                continue;
+            }
+            it.remove();
+            for (Sessao sessao : balde.getValue()) {
+                porId.remove(sessao.id(), sessao);
+                if (fechar(sessao, ENCERRADA)) {
+                    fechadas++;
+                }
+            }
+        }
+        porFilial.values().forEach(RegistroSessoes::limparCabeca);
+        return fechadas;
+    }
+
+    private boolean liberarExpiradas(Filial filial, long agora) {
+        boolean liberou = false;
+        Sessao cabeca;
+        while ((cabeca = filial.fila.peek()) != null
+                && (cabeca.estado.get() != ATIVA || cabeca.expiraEmMillis() <= agora)) {
+            if (filial.fila.remove(cabeca) && fechar(cabeca, ENCERRADA)) {
+                liberou = true;
+            }
+        }
+        return liberou;
+    }
+
+    private boolean descartarMaisAntiga(Filial filial) {
+        Sessao sessao;
+        while ((sessao = filial.fila.poll()) != null) {
+            if (fechar(sessao, DESCARTADA)) {
+                descartadas.increment();
+                aoDescartar.accept(sessao);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean fechar(Sessao sessao, int motivo) {
+        if (!sessao.estado.compareAndSet(ATIVA, motivo)) {
+            return false;
+        }
+        Filial filial = porFilial.get(sessao.codigoFilial());
+        if (filial != null) {
+            filial.ativas.decrementAndGet();
+        }
+        ativas.decrementAndGet();
+        return true;
+    }
+
+    private static void limparCabeca(Filial filial) {
+        Sessao cabeca;
+        while ((cabeca = filial.fila.peek()) != null && cabeca.estado.get() != ATIVA) {
+            filial.fila.remove(cabeca);
+        }
+    }
+
+    /**
+     * Primeiros 64 bits de um identificador base64url ({@code jti} ou handle opaco), ou {@code 0} se
+     * ele tiver menos de 11 caracteres ou algum fora do alfabeto.
+     */
+    static long idSessao(String base64url) {
+        if (base64url == null || base64url.length() < 11) {
+            return 0;
+        }
+        long id = 0;
+        for (int i = 0; i < 11; i++) {
+            int valor = valorBase64(base64url.charAt(i));
+            if (valor < 0) {
+                return 0;
+            }
+            id = i < 10 ? id << 6 | valor : id << 4 | valor >> 2;
+        }
+        return id;
+    }
+
+    static int valorBase64(int c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 26;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 52;
+        }
+        if (c == '-') {
+            return 62;
+        }
+        return c == '_' ? 63 : -1;
+    }
+
+    public enum Politica {
+        DESCARTAR_MAIS_ANTIGA,
+        REJEITAR
+    }
+
+    private static final class Filial {
+        private final AtomicInteger ativas = new AtomicInteger();
+        private final Queue<Sessao> fila = new ConcurrentLinkedQueue<>();
+    }
+
+    record Sessao(long id, Integer codigoFilial, long expiraEmMillis, String handleOpaco, AtomicInteger estado) {
+
+        Sessao(long id, Integer codigoFilial, long expiraEmMillis, String handleOpaco) {
+            this(id, codigoFilial, expiraEmMillis, handleOpaco, new AtomicInteger(ATIVA));
+        }
+    }
+}
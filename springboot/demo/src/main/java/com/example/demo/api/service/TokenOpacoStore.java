@@ -0,0 +1,247 @@
+package com.example.demo.api.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sessões de tokens opacos: handles aleatórios de 128 bits guardados fora do heap.
+ * <p>
+ * A tabela é um único {@link ByteBuffer} direto, de tamanho fixo ({@code max-memory-bytes}),
+ * com endereçamento aberto e sondagem linear. Cada slot tem 32 bytes: as duas metades do handle,
+ * o instante de expiração e, em dois {@code int}, o código da filial e os bits de permissão. Nada
+ * disso vira objeto no heap, então milhões de sessões vivas não pesam no GC.
+ * <p>
+ * Concorrência sem lock:
+ * <ul>
+ *     <li>quem emite reserva o slot com CAS na primeira metade do handle (que sempre tem o bit
+ *     menos significativo ligado, para nunca colidir com {@code VAZIO} ou {@code REMOVIDO}),
+ *     preenche o resto e só então publica a expiração com {@code setRelease};</li>
+ *     <li>quem consulta lê a expiração com {@code getAcquire} (zero = slot ainda sendo escrito ou
+ *     já removido), lê os dados e confere de novo handle e expiração, como num seqlock;</li>
+ *     <li>revogação e varredura zeram a expiração por CAS (só uma das duas ganha) e depois marcam o
+ *     slot como {@code REMOVIDO}, que pode ser reaproveitado por uma emissão. O slot nunca volta a
+ *     {@code VAZIO}, senão quebraria a cadeia de sondagem de quem está depois dele.</li>
+ * </ul>
+ * Sondagens param em {@link #MAX_SONDAGEM} slots; se a emissão não achar lugar nesse trecho, ou
+ * se a tabela já tiver {@code load-factor} de sessões vivas, o token não é emitido.
+ * <p>
+ * As sessões ficam na memória desta instância: com mais de uma réplica, o balanceador precisa de
+ * afinidade para tokens opacos (ou os clientes usam JWT).
+ */
+@Component
+public final class TokenOpacoStore {
+
+    static final int TAMANHO_SLOT = 32;
+    static final int MAX_SONDAGEM = 256;
+    static final int TAMANHO_HANDLE = 22;
+
+    // devolvido por decodificar() para handles mal formados
+    private static final byte[] HANDLE_INVALIDO = {};
+
+    private static final long VAZIO = 0L;
+    private static final long REMOVIDO = 2L;
+
+    private static final int OFF_HI = 0;
+    private static final int OFF_LO = 8;
+    private static final int OFF_EXPIRA = 16;
+    private static final int OFF_FILIAL = 24;
+    private static final int OFF_PERMISSOES = 28;
+
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final VarHandle LONG_ARRAY = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ByteBuffer tabela;
+    private final int mascara;
+    private final int limiteVivos;
+    private final AtomicInteger vivos = new AtomicInteger();
+    private final SecureRandom random = new SecureRandom();
+
+    public TokenOpacoStore(@Value("${app.security.opaque.max-memory-bytes:33554432}") long memoriaMaxima,
+                           @Value("${app.security.opaque.load-factor:0.75}") double fatorCarga,
+                           MeterRegistry meterRegistry) {
+        long slots = Long.highestOneBit(Math.max(memoriaMaxima / TAMANHO_SLOT, MAX_SONDAGEM));
+        if (slots * TAMANHO_SLOT > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("app.security.opaque.max-memory-bytes acima de 2 GiB");
+        }
+        this.tabela = ByteBuffer.allocateDirect((int) (slots * TAMANHO_SLOT) + 8).alignedSlice(8);
+        this.mascara = (int) slots - 1;
+        this.limiteVivos = (int) (slots * fatorCarga);
+        Gauge.builder("auth.opaque.sessions", vivos, AtomicInteger::get)
+                .description("Sessões de token opaco vivas nesta instância")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cria uma sessão e devolve o handle (22 caracteres base64url), ou {@code null} se não houver
+     * espaço.
+     */
+    public String emitir(int codigoFilial, int permissoes, long expiraEmMillis) {
+        if (vivos.incrementAndGet() > limiteVivos) {
+            vivos.decrementAndGet();
+            return null;
+        }
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        bytes[7] |= 1;
+        long hi = (long) LONG_ARRAY.get(bytes, 0);
+        long lo = (long) LONG_ARRAY.get(bytes, 8);
+        int inicio = inicio(lo);
+        for (int i = 0; i < MAX_SONDAGEM; i++) {
+            int base = ((inicio + i) & mascara) * TAMANHO_SLOT;
+            long atual = (long) LONG.getVolatile(tabela, base + OFF_HI);
+            if ((atual == VAZIO || atual == REMOVIDO) && LONG.compareAndSet(tabela, base + OFF_HI, atual, hi)) {
+                LONG.set(tabela, base + OFF_LO, lo);
+                INT.set(tabela, base + OFF_FILIAL, codigoFilial);
+                INT.set(tabela, base + OFF_PERMISSOES, permissoes);
+                LONG.setRelease(tabela, base + OFF_EXPIRA, expiraEmMillis);
+                return ENCODER.encodeToString(bytes);
+            }
+        }
+        vivos.decrementAndGet();
+        return null;
+    }
+
+    /**
+     * Sessão viva do handle, ou {@code null} se ele não existe, expirou ou foi revogado.
+     */
+    public Sessao buscar(String handle, long agoraMillis) {
+        byte[] bytes = decodificar(handle);
+        if (bytes.length == 0) {
+            return null;
+        }
+        long hi = (long) LONG_ARRAY.get(bytes, 0);
+        long lo = (long) LONG_ARRAY.get(bytes, 8);
+        int base = localizar(hi, lo);
+        if (base < 0) {
+            return null;
+        }
+        long expira = (long) LONG.getAcquire(tabela, base + OFF_EXPIRA);
+        int codigoFilial = (int) INT.get(tabela, base + OFF_FILIAL);
+        int permissoes = (int) INT.get(tabela, base + OFF_PERMISSOES);
+        VarHandle.acquireFence();
+        if (expira == 0L
+                || (long) LONG.getAcquire(tabela, base + OFF_EXPIRA) != expira
+                || (long) LONG.getAcquire(tabela, base + OFF_HI) != hi
+                || expira <= agoraMillis) {
+            return null;
+        }
+        return new Sessao(codigoFilial, permissoes, expira);
+    }
+
+    /**
+     * Revoga o handle na hora. Devolve {@code false} se ele já não estava vivo.
+     */
+    public boolean revogar(String handle) {
+        byte[] bytes = decodificar(handle);
+        if (bytes.length == 0) {
+            return false;
+        }
+        int base = localizar((long) LONG_ARRAY.get(bytes, 0), (long) LONG_ARRAY.get(bytes, 8));
+        if (base < 0) {
+            return false;
+        }
+        long expira = (long) LONG.getAcquire(tabela, base + OFF_EXPIRA);
+        return expira != 0L && remover(base, expira);
+    }
+
+    /**
+     * Remove as sessões expiradas e devolve quantas foram removidas.
+     */
+    @Scheduled(fixedDelayString = "${app.security.opaque.sweep-interval-millis:30000}")
+    public int varrer() {
+        return varrer(System.currentTimeMillis());
+    }
+
+    int varrer(long agoraMillis) {
+        int removidas = 0;
+        for (int slot = 0; slot <= mascara; slot++) {
+            int base = slot * TAMANHO_SLOT;
+            long hi = (long) LONG.getAcquire(tabela, base + OFF_HI);
+            if (hi == VAZIO || hi == REMOVIDO) {
+                continue;
+            }
+            long expira = (long) LONG.getAcquire(tabela, base + OFF_EXPIRA);
+            if (expira != 0L && expira <= agoraMillis && remover(base, expira)) {
+                removidas++;
+            }
+        }
+        return removidas;
+    }
+
+    public int vivos() {
+        return vivos.get();
+    }
+
+    public int capacidade() {
+        return limiteVivos;
+    }
+
+    /**
+     * Indica se o texto tem o formato de um handle opaco (JWTs sempre têm pontos).
+     */
+    public static boolean pareceHandle(String token) {
+        return token != null && token.length() == TAMANHO_HANDLE && token.indexOf('.') < 0;
+    }
+
+    private int localizar(long hi, long lo) {
+        int inicio = inicio(lo);
+        for (int i = 0; i < MAX_SONDAGEM; i++) {
+            int base = ((inicio + i) & mascara) * TAMANHO_SLOT;
+            long atual = (long) LONG.getAcquire(tabela, base + OFF_HI);
+            if (atual == VAZIO) {
+                return -1;
+            }
+            if (atual == hi && (long) LONG.getAcquire(tabela, base + OFF_EXPIRA) != 0L
+                    && (long) LONG.get(tabela, base + OFF_LO) == lo) {
+                return base;
+            }
+        }
+        return -1;
+    }
+
+    private boolean remover(int base, long expira) {
+        if (!LONG.compareAndSet(tabela, base + OFF_EXPIRA, expira, 0L)) {
+            return false;
+        }
+        LONG.setRelease(tabela, base + OFF_HI, REMOVIDO);
+        vivos.decrementAndGet();
+        return true;
+    }
+
+    private int inicio(long lo) {
+        return (int) (lo ^ (lo >>> 32)) & mascara;
+    }
+
+    private static byte[] decodificar(String handle) {
+        if (!pareceHandle(handle)) {
+            return HANDLE_INVALIDO;
+        }
+        try {
+            byte[] bytes = DECODER.decode(handle);
+            return bytes.length == 16 && (bytes[7] & 1) != 0 ? bytes : HANDLE_INVALIDO;
+        } catch (IllegalArgumentException ex) {
+            return HANDLE_INVALIDO;
+        }
+    }
+
+    /**
+     * Dados de uma sessão viva.
+     */
+    public record Sessao(int codigoFilial, int permissoes, long expiraEmMillis) {
+    }
+}
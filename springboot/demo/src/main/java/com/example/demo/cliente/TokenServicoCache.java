@@ -0,0 +1,142 @@
+package com.example.demo.cliente;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache do token de cliente de serviço para quem chama este serviço (API da loja, jobs em lote).
+ * <p>
+ * Devolve o mesmo token até faltar {@code antecedencia} para ele expirar. Nessa janela uma única
+ * thread renova e as outras seguem com o token atual, que ainda vale; se a renovação falhar nessa
+ * hora, o token atual continua sendo usado e a próxima chamada tenta de novo. Só quando não há
+ * token válido as chamadas esperam pela emissão. Depois de um 401 do recurso, chame
+ * {@link #invalidar()}.
+ * <pre>{@code
+ * TokenServicoCache cache = new TokenServicoCache(
+ *         TokenServicoCache.viaHttp(HttpClient.newHttpClient(), URI.create("http://auth:8089/auth/token"),
+ *                 "api-loja", segredo, "FERRAMENTA_LEITURA", new ObjectMapper()),
+ *         Duration.ofSeconds(30));
+ * request.header("Authorization", "Bearer " + cache.token());
+ * }</pre>
+ */
+public final class TokenServicoCache {
+
+    /**
+     * Token emitido e o instante em que expira.
+     */
+    public record Token(String valor, Instant expiraEm) {
+    }
+
+    /**
+     * Busca um token novo no servidor.
+     */
+    @FunctionalInterface
+    public interface Emissor {
+        Token emitir() throws IOException, InterruptedException;
+    }
+
+    private final Emissor emissor;
+    private final Duration antecedencia;
+    private final Clock relogio;
+    private final ReentrantLock renovacao = new ReentrantLock();
+
+    private volatile Token atual;
+
+    public TokenServicoCache(Emissor emissor, Duration antecedencia) {
+        this(emissor, antecedencia, Clock.systemUTC());
+    }
+
+    TokenServicoCache(Emissor emissor, Duration antecedencia, Clock relogio) {
+        this.emissor = emissor;
+        this.antecedencia = antecedencia;
+        this.relogio = relogio;
+    }
+
+    public String token() throws IOException, InterruptedException {
+        Token token = atual;
+        Instant agora = relogio.instant();
+        if (token != null && agora.isBefore(token.expiraEm().minus(antecedencia))) {
+            return token.valor();
+        }
+        if (token != null && agora.isBefore(token.expiraEm())) {
+            if (renovacao.tryLock()) {
+                try {
+                    return renovarSeVencendo().valor();
+                } catch (IOException ex) {
+                    return token.valor();
+                } finally {
+                    renovacao.unlock();
+                }
+            }
+            return token.valor();
+        }
+        renovacao.lockInterruptibly();
+        try {
+            return renovarSeVencendo().valor();
+        } finally {
+            renovacao.unlock();
+        }
+    }
+
+    /**
+     * Descarta o token atual; a próxima chamada emite outro.
+     */
+    public void invalidar() {
+        atual = null;
+    }
+
+    private Token renovarSeVencendo() throws IOException, InterruptedException {
+        Token token = atual;
+        if (token != null && relogio.instant().isBefore(token.expiraEm().minus(antecedencia))) {
+            return token;
+        }
+        Token novo = emissor.emitir();
+        atual = novo;
+        return novo;
+    }
+
+    /**
+     * Emissor que chama o {@code POST /auth/token} com as credenciais em {@code Authorization: Basic}.
+     * A validade conta a partir de antes do envio, para a latência não estender o token além do
+     * que o servidor concedeu.
+     */
+    public static Emissor viaHttp(HttpClient http, URI endpoint, String clientId, String segredo,
+                                  String escopo, ObjectMapper objectMapper) {
+        String credenciais = Base64.getEncoder().encodeToString(
+                (formulario(clientId) + ":" + formulario(segredo)).getBytes(StandardCharsets.UTF_8));
+        String corpo = "grant_type=client_credentials" + (escopo == null ? "" : "&scope=" + formulario(escopo));
+        Clock relogio = Clock.systemUTC();
+        return () -> {
+            Instant enviadoEm = relogio.instant();
+            HttpResponse<String> resposta = http.send(HttpRequest.newBuilder(endpoint)
+                    .header("Authorization", "Basic " + credenciais)
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .header("Accept", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(corpo))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (resposta.statusCode() != 200) {
+                throw new IOException("Emissão de token recusada: HTTP " + resposta.statusCode());
+            }
+            JsonNode json = objectMapper.readTree(resposta.body());
+            return new Token(json.path("access_token").asText(),
+                    enviadoEm.plusSeconds(json.path("expires_in").asLong()));
+        };
+    }
+
+    private static String formulario(String valor) {
+        return URLEncoder.encode(valor, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.config;
+
+import com.example.demo.api.security.ModoDegradado;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Readiness a partir do estado em cache do {@link EstadoConectividade}: não abre conexão com o
+ * banco. Fica {@code DOWN} se a última verificação não alcançou o banco ou se a chave JWT não
+ * pôde ser montada.
+ * <p>
+ * A exceção é o modo degradado: com o disjuntor do {@link ModoDegradado} aberto e principais no
+ * cache, a autenticação segue sem o banco, então o componente fica {@code DEGRADED} (ignorado pelo
+ * agregador, como no {@link ModoDegradadoHealthIndicator}) e o pod continua no balanceador.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConectividadeHealthIndicator implements HealthIndicator {
+
+    private final EstadoConectividade conectividade;
+    private final ModoDegradado modoDegradado;
+
+    @Override
+    public Health health() {
+        EstadoConectividade.Estado estado = conectividade.getEstado();
+        if (estado == null) {
+            return Health.outOfService().withDetail("conectividade", "verificando").build();
+        }
+        Health.Builder status;
+        if (!estado.chaveJwtPronta()) {
+            status = Health.down();
+        } else if (estado.banco() == EstadoConectividade.Banco.DISPONIVEL) {
+            status = Health.up();
+        } else if (modoDegradado.getEstado() != ModoDegradado.Estado.FECHADO && estado.principaisEmCache() > 0) {
+            status = Health.status(ModoDegradadoHealthIndicator.DEGRADADO);
+        } else {
+            status = Health.down();
+        }
+        return status
+                .withDetail("banco", estado.banco())
+                .withDetail("bancoVerificadoHaMillis", conectividade.agora() - estado.bancoVerificadoEm())
+                .withDetail("chaveJwt", estado.chaveJwtPronta() ? "pronta" : "indisponível")
+                .withDetail("principaisEmCache", estado.principaisEmCache())
+                .build();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.config;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Escolhe o pool a cada conexão: transações somente leitura (as buscas de autenticação do
+ * {@code FilialRepository}) vão para a réplica enquanto o {@link MonitorReplica} a considerar em dia;
+ * todo o resto, inclusive o acesso fora de transação (auditoria, último login, importação, poller de
+ * alterações, Flyway), vai para o primário.
+ * <p>
+ * Precisa ficar atrás de um {@link LazyConnectionDataSourceProxy}: o {@code JpaTransactionManager}
+ * pede a conexão antes de marcar a transação como somente leitura, e o proxy adia a escolha até o
+ * primeiro comando.
+ */
+final class DataSourceRoteado extends AbstractRoutingDataSource {
+
+    enum Destino {
+        PRIMARIO,
+        REPLICA
+    }
+
+    private final MonitorReplica monitor;
+
+    DataSourceRoteado(DataSource primario, DataSource replica, MonitorReplica monitor) {
+        this.monitor = monitor;
+        setTargetDataSources(Map.of(Destino.PRIMARIO, primario, Destino.REPLICA, replica));
+        setDefaultTargetDataSource(primario);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && monitor.replicaUtilizavel()
+                ? Destino.REPLICA
+                : Destino.PRIMARIO;
+    }
+}
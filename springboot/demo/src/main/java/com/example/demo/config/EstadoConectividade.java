@@ -0,0 +1,157 @@
+package com.example.demo.config;
+
+import com.example.demo.api.security.FilialPrincipalCache;
+import com.example.demo.api.service.JwtService;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Estado de prontidão do serviço, verificado em segundo plano para os probes só lerem um campo.
+ * <p>
+ * O health padrão do DataSource pega uma das 5 conexões do Hikari a cada chamada, e os probes do
+ * balanceador e do Railway chamam com frequência. Aqui a conexão é testada uma vez por
+ * {@code app.health.refresh-interval-millis}, com {@link Connection#isValid(int)}, num pool próprio
+ * de uma conexão ({@code sondagem}) que não disputa com os logins e cuja espera por conexão é
+ * limitada a {@code app.health.db-timeout-seconds}, em vez dos 20 s do {@code connection-timeout}
+ * do pool principal. A verificação roda numa thread só dela, fora do agendador do Spring: tarefas
+ * presas no banco não atrasam o {@link Estado#atualizadoEm()} que a liveness confere. Junto vão a
+ * prontidão da chave de assinatura do {@link JwtService} e o tamanho do {@link FilialPrincipalCache}.
+ */
+@Component
+@Slf4j
+public class EstadoConectividade {
+
+    private final DataSource dataSource;
+    private final JwtService jwtService;
+    private final FilialPrincipalCache principalCache;
+    private final int timeoutSegundos;
+    private final LongSupplier relogio;
+    private final long intervaloMillis;
+    private final ScheduledExecutorService verificacoes = new ScheduledThreadPoolExecutor(1, tarefa -> {
+        Thread thread = new Thread(tarefa, "verificador-conectividade");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Estado estado;
+
+    @Autowired
+    public EstadoConectividade(DataSourceProperties propriedades,
+                               JwtService jwtService,
+                               FilialPrincipalCache principalCache,
+                               @Value("${app.health.db-timeout-seconds:2}") int timeoutSegundos,
+                               @Value("${app.health.refresh-interval-millis:10000}") long intervaloMillis) {
+        this(poolDeSondagem(propriedades, timeoutSegundos), jwtService, principalCache, timeoutSegundos,
+                System::currentTimeMillis, intervaloMillis);
+    }
+
+    EstadoConectividade(DataSource dataSource,
+                        JwtService jwtService,
+                        FilialPrincipalCache principalCache,
+                        int timeoutSegundos,
+                        LongSupplier relogio) {
+        this(dataSource, jwtService, principalCache, timeoutSegundos, relogio, 0);
+    }
+
+    private EstadoConectividade(DataSource dataSource,
+                                JwtService jwtService,
+                                FilialPrincipalCache principalCache,
+                                int timeoutSegundos,
+                                LongSupplier relogio,
+                                long intervaloMillis) {
+        this.dataSource = dataSource;
+        this.jwtService = jwtService;
+        this.principalCache = principalCache;
+        this.timeoutSegundos = timeoutSegundos;
+        this.relogio = relogio;
+        this.intervaloMillis = intervaloMillis;
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        verificacoes.scheduleAtFixedRate(() -> {
+            try {
+                atualizar();
+            } catch (RuntimeException ex) {
+                // uma exceção aqui cancelaria as próximas execuções e derrubaria a liveness
+                log.warn("Falha na verificação de conectividade: {}", ex.getMessage());
+            }
+        }, 0, intervaloMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        verificacoes.shutdownNow();
+        if (dataSource instanceof HikariDataSource pool) {
+            pool.close();
+        }
+    }
+
+    public void atualizar() {
+        long agora = relogio.getAsLong();
+        estado = new Estado(verificarBanco(), agora, jwtService.chavesProntas(), principalCache.size(), agora);
+    }
+
+    /**
+     * Último estado verificado, ou {@code null} antes da primeira verificação.
+     */
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public long agora() {
+        return relogio.getAsLong();
+    }
+
+    private Banco verificarBanco() {
+        try (Connection conexao = dataSource.getConnection()) {
+            return conexao.isValid(timeoutSegundos) ? Banco.DISPONIVEL : Banco.INDISPONIVEL;
+        } catch (SQLException | RuntimeException ex) {
+            log.warn("Banco indisponível na verificação de saúde: {}", ex.getMessage());
+            return Banco.INDISPONIVEL;
+        }
+    }
+
+    /**
+     * Pool de uma conexão para o primário ({@code spring.datasource.*}), aberto só na primeira
+     * verificação. Sem banco, a espera por conexão acaba em {@code timeoutSegundos}.
+     */
+    private static HikariDataSource poolDeSondagem(DataSourceProperties propriedades, int timeoutSegundos) {
+        HikariDataSource pool = propriedades.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        pool.setPoolName("sondagem");
+        pool.setMaximumPoolSize(1);
+        pool.setMinimumIdle(0);
+        pool.setConnectionTimeout(TimeUnit.SECONDS.toMillis(timeoutSegundos));
+        // banco fora do ar no start não impede a subida; a verificação só marca INDISPONIVEL
+        pool.setInitializationFailTimeout(-1);
+        return pool;
+    }
+
+    public enum Banco {
+        DISPONIVEL,
+        INDISPONIVEL
+    }
+
+    /**
+     * Fotografia da última verificação. Instantes em epoch millis.
+     */
+    public record Estado(Banco banco, long bancoVerificadoEm, boolean chaveJwtPronta,
+                         int principaisEmCache, long atualizadoEm) {
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.demo.config;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exportador de spans sem coletor externo, para medir e testar o tracing offline.
+ * <p>
+ * Recebe do Brave os spans já amostrados ({@code management.tracing.sampling.probability}) e, conforme
+ * {@code app.tracing.exporter}: descarta ({@code NONE}), guarda os últimos {@code memory-capacity}
+ * em memória ({@code MEMORY}) ou acrescenta uma linha JSON por span em {@code app.tracing.file}
+ * ({@code FILE}). O arquivo usa um buffer e é descarregado a cada segundo e no shutdown, para a
+ * requisição não pagar um {@code write} por span.
+ */
+@Component
+@Slf4j
+public final class ExportadorSpansLocal extends SpanHandler {
+
+    public enum Destino {
+        NONE,
+        MEMORY,
+        FILE
+    }
+
+    private final Destino destino;
+    private final int capacidade;
+    private final ObjectMapper objectMapper;
+    private final ArrayDeque<SpanExportado> memoria;
+    private final BufferedWriter arquivo;
+
+    public ExportadorSpansLocal(@Value("${app.tracing.exporter:NONE}") Destino destino,
+                                @Value("${app.tracing.file:spans.jsonl}") Path caminho,
+                                @Value("${app.tracing.memory-capacity:1000}") int capacidade,
+                                ObjectMapper objectMapper) {
+        this.destino = destino;
+        this.capacidade = capacidade;
+        this.objectMapper = objectMapper;
+        this.memoria = new ArrayDeque<>(destino == Destino.MEMORY ? capacidade : 0);
+        this.arquivo = destino == Destino.FILE ? abrir(caminho) : null;
+    }
+
+    @Override
+    public boolean end(TraceContext contexto, MutableSpan span, Cause causa) {
+        if (destino == Destino.NONE || causa != Cause.FINISHED) {
+            return true;
+        }
+        SpanExportado exportado = new SpanExportado(
+                contexto.traceIdString(),
+                contexto.spanIdString(),
+                contexto.parentIdString(),
+                span.name(),
+                span.startTimestamp(),
+                span.finishTimestamp() - span.startTimestamp(),
+                tags(span),
+                span.error() == null ? null : span.error().getClass().getSimpleName());
+        if (destino == Destino.MEMORY) {
+            synchronized (memoria) {
+                if (memoria.size() >= capacidade) {
+                    memoria.removeFirst();
+                }
+                memoria.addLast(exportado);
+            }
+        } else {
+            escrever(exportado);
+        }
+        return true;
+    }
+
+    /**
+     * Cópia dos spans em memória, do mais antigo para o mais novo.
+     */
+    public List<SpanExportado> spans() {
+        synchronized (memoria) {
+            return List.copyOf(memoria);
+        }
+    }
+
+    public void limpar() {
+        synchronized (memoria) {
+            memoria.clear();
+        }
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void descarregar() {
+        if (arquivo == null) {
+            return;
+        }
+        synchronized (arquivo) {
+            try {
+                arquivo.flush();
+            } catch (IOException ex) {
+                log.warn("Falha ao gravar spans: {}", ex.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void fechar() {
+        if (arquivo == null) {
+            return;
+        }
+        synchronized (arquivo) {
+            try {
+                arquivo.close();
+            } catch (IOException ex) {
+                log.warn("Falha ao fechar arquivo de spans: {}", ex.getMessage());
+            }
+        }
+    }
+
+    private void escrever(SpanExportado exportado) {
+        try {
+            String linha = objectMapper.writeValueAsString(exportado);
+            synchronized (arquivo) {
+                arquivo.write(linha);
+                arquivo.newLine();
+            }
+        } catch (IOException ex) {
+            log.warn("Falha ao gravar span {}: {}", exportado.nome(), ex.getMessage());
+        }
+    }
+
+    private static Map<String, String> tags(MutableSpan span) {
+        if (span.tagCount() == 0) {
+            return Map.of();
+        }
+        Map<String, String> tags = new HashMap<>();
+        span.forEachTag((destino, chave, valor) -> destino.put(chave, valor), tags);
+        return tags;
+    }
+
+    private static BufferedWriter abrir(Path caminho) {
+        try {
+            return Files.newBufferedWriter(caminho, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Não foi possível abrir " + caminho + " para os spans", ex);
+        }
+    }
+
+    /**
+     * Um span finalizado. Instantes e duração em microssegundos, como no Brave.
+     */
+    public record SpanExportado(
+            String traceId,
+            String spanId,
+            String parentId,
+            String nome,
+            long inicioMicros,
+            long duracaoMicros,
+            Map<String, String> tags,
+            String erro
+    ) {
+
+        public SpanExportado {
+            tags = Map.copyOf(tags);
+        }
+    }
+}
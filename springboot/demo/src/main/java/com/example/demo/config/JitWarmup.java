@@ -0,0 +1,158 @@
+package com.example.demo.config;
+
+import com.example.demo.api.dto.LoginResponse;
+import com.example.demo.api.model.FilialEntity;
+import com.example.demo.api.repository.FilialRepository;
+import com.example.demo.api.service.JwtService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.core.NativeDetector;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Aquece o JIT logo depois do start, antes de o serviço ser marcado como pronto.
+ * <p>
+ * Roda, com dados sintéticos, os mesmos caminhos de uma requisição real: assinatura e
+ * verificação de token, {@code matches} do BCrypt, busca por login no banco e serialização da
+ * resposta. Para quando o tempo de compilação do JIT estabiliza ou quando o orçamento de tempo
+ * acaba. Enquanto isso, o {@link WarmupHealthIndicator} mantém o grupo de readiness fora do ar.
+ */
+@Component
+@Slf4j
+public class JitWarmup {
+
+    private static final String LOGIN_SINTETICO = "__warmup__@local";
+    private static final int OPERACOES_TOKEN_POR_RODADA = 200;
+    private static final int BUSCAS_POR_RODADA = 5;
+    private static final int RODADAS_ESTAVEIS = 3;
+
+    private final JwtService jwtService;
+    private final PasswordEncoder passwordEncoder;
+    private final FilialRepository filialRepository;
+    private final ObjectMapper objectMapper;
+    private final boolean habilitado;
+    private final long orcamentoMillis;
+    private final long limiarCompilacaoMillis;
+
+    private volatile Resultado resultado;
+
+    public JitWarmup(JwtService jwtService,
+                     PasswordEncoder passwordEncoder,
+                     FilialRepository filialRepository,
+                     ObjectMapper objectMapper,
+                     @Value("${app.warmup.enabled:true}") boolean habilitado,
+                     @Value("${app.warmup.budget-millis:20000}") long orcamentoMillis,
+                     @Value("${app.warmup.compilation-threshold-millis:5}") long limiarCompilacaoMillis) {
+        this.jwtService = jwtService;
+        this.passwordEncoder = passwordEncoder;
+        this.filialRepository = filialRepository;
+        this.objectMapper = objectMapper;
+        this.habilitado = habilitado;
+        this.orcamentoMillis = orcamentoMillis;
+        this.limiarCompilacaoMillis = limiarCompilacaoMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!habilitado) {
+            resultado = new Resultado(0, 0, "desabilitado");
+            return;
+        }
+        if (NativeDetector.inNativeImage()) {
+            // compilado AOT: não há JIT para aquecer
+            resultado = new Resultado(0, 0, "imagem nativa");
+            return;
+        }
+        Thread thread = new Thread(this::executar, "jit-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Executa o aquecimento na thread atual. Nunca lança exceção: se algo falhar, o serviço
+     * fica pronto mesmo assim, só que frio.
+     */
+    public Resultado executar() {
+        long inicio = System.nanoTime();
+        long limite = inicio + orcamentoMillis * 1_000_000L;
+        CompilationMXBean compilacao = ManagementFactory.getCompilationMXBean();
+        boolean medeCompilacao = compilacao != null && compilacao.isCompilationTimeMonitoringSupported();
+        int rodadas = 0;
+        String motivo = "orçamento esgotado";
+        try {
+            FilialEntity filial = FilialEntity.builder()
+                    .codigoFilial(-1)
+                    .nomeFilial("Warmup")
+                    .login(LOGIN_SINTETICO)
+                    .build();
+            String hash = passwordEncoder.encode("warmup");
+            boolean consultaBanco = true;
+            long compilacaoAnterior = medeCompilacao ? compilacao.getTotalCompilationTime() : 0;
+            int estaveis = 0;
+
+            while (System.nanoTime() < limite) {
+                rodadas++;
+                rodadaDeTokens(filial);
+                passwordEncoder.matches("warmup", hash);
+                if (consultaBanco) {
+                    consultaBanco = rodadaDeBuscas();
+                }
+
+                if (medeCompilacao) {
+                    long compilacaoAtual = compilacao.getTotalCompilationTime();
+                    estaveis = compilacaoAtual - compilacaoAnterior <= limiarCompilacaoMillis ? estaveis + 1 : 0;
+                    compilacaoAnterior = compilacaoAtual;
+                    if (estaveis >= RODADAS_ESTAVEIS) {
+                        motivo = "compilação estabilizada";
+                        break;
+                    }
+                }
+            }
+        } catch (RuntimeException | JsonProcessingException ex) {
+            motivo = "interrompido: " + ex.getClass().getSimpleName();
+            log.warn("Aquecimento interrompido: {}", ex.getMessage());
+        }
+        long duracaoMillis = (System.nanoTime() - inicio) / 1_000_000L;
+        Resultado fim = new Resultado(rodadas, duracaoMillis, motivo);
+        resultado = fim;
+        log.info("Aquecimento concluído em {} ms ({} rodadas, {})", duracaoMillis, rodadas, motivo);
+        return fim;
+    }
+
+    public Resultado getResultado() {
+        return resultado;
+    }
+
+    private void rodadaDeTokens(FilialEntity filial) throws JsonProcessingException {
+        for (int i = 0; i < OPERACOES_TOKEN_POR_RODADA; i++) {
+            String token = jwtService.generateUntrackedToken(filial);
+            jwtService.isTokenValid(token, LOGIN_SINTETICO);
+            objectMapper.writeValueAsBytes(
+                    new LoginResponse(token, "Bearer", jwtService.extractExpirationInstant(token)));
+        }
+    }
+
+    private boolean rodadaDeBuscas() {
+        try {
+            for (int i = 0; i < BUSCAS_POR_RODADA; i++) {
+                filialRepository.findByLogin(LOGIN_SINTETICO);
+            }
+            return true;
+        } catch (DataAccessException ex) {
+            log.warn("Aquecimento sem banco: {}", ex.getMessage());
+            return false;
+        }
+    }
+
+    public record Resultado(int rodadas, long duracaoMillis, String motivo) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.demo.config;
+
+import com.example.demo.api.security.ModoDegradado;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mostra o disjuntor do {@link ModoDegradado} em {@code /actuator/health}. Com ele aberto o
+ * componente fica {@code DEGRADED}, status que o agregador do Actuator ignora: o serviço continua
+ * atendendo com o cache e não deve sair do balanceador por isso. Fica fora dos grupos de probe; no
+ * de readiness quem responde pelo banco é o {@link ConectividadeHealthIndicator}, que no mesmo
+ * estado também reporta {@code DEGRADED} em vez de {@code DOWN} enquanto houver principais no cache.
+ */
+@Component
+@RequiredArgsConstructor
+public class ModoDegradadoHealthIndicator implements HealthIndicator {
+
+    static final Status DEGRADADO = new Status("DEGRADED", "Autenticação servida do cache de principais");
+
+    private final ModoDegradado modoDegradado;
+
+    @Override
+    public Health health() {
+        ModoDegradado.Estado estado = modoDegradado.getEstado();
+        return (estado == ModoDegradado.Estado.FECHADO ? Health.up() : Health.status(DEGRADADO))
+                .withDetail("disjuntor", estado)
+                .withDetail("falhasSeguidas", modoDegradado.getFalhasSeguidas())
+                .withDetail("obsolescenciaMaximaMillis", modoDegradado.getObsolescenciaMaximaMillis())
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.config;
+
+import com.example.demo.api.security.ModoDegradado;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+
+/**
+ * Mede o atraso da réplica para o {@link DataSourceRoteado} decidir se as leituras de autenticação
+ * podem ir para ela.
+ * <p>
+ * Não usa {@code SHOW REPLICA STATUS}, que exige privilégio de replicação: compara
+ * {@code tb_filial.atualizado_em}, mantida pelo próprio MySQL quando o principal muda. A alteração
+ * mais antiga do primário que a réplica ainda não tem diz há quanto tempo ela está para trás; sem
+ * nenhuma, o atraso é zero. É uma aproximação por baixo (uma linha alterada duas vezes só conta a
+ * última) e mede o atraso só em relação às mudanças de principal: o {@code FilialAtividade} regrava
+ * {@code atualizado_em} com o próprio valor de propósito, então último login e último acesso não
+ * contam. É o que as leituras de autenticação precisam: enquanto nenhum principal muda, a réplica
+ * responde o mesmo que o primário, por mais atrasada que esteja no resto. Exclusões não mexem na
+ * coluna e só aparecem junto com a próxima escrita.
+ * <p>
+ * Réplica inacessível ou com atraso acima de {@code max-lag-millis} sai de uso até a próxima
+ * verificação boa. Com o disjuntor do {@link ModoDegradado} aberto a medição é pulada, porque a
+ * consulta ao primário esperaria o {@code connection-timeout}, e a última decisão continua valendo.
+ */
+@Slf4j
+public class MonitorReplica {
+
+    private static final String SQL_MAIS_RECENTE = "SELECT MAX(atualizado_em) FROM tb_filial";
+
+    private static final String SQL_PENDENTE = """
+            SELECT MIN(atualizado_em) AS pendente, CURRENT_TIMESTAMP(3) AS agora
+              FROM tb_filial
+             WHERE atualizado_em > ?""";
+
+    private static final int TIMEOUT_SEGUNDOS = 2;
+
+    private final JdbcTemplate primario;
+    private final JdbcTemplate replica;
+    private final long atrasoMaximoMillis;
+    private final ModoDegradado modoDegradado;
+
+    private volatile long atrasoMillis = -1;
+    private volatile boolean utilizavel;
+
+    public MonitorReplica(DataSource primario, DataSource replica, long atrasoMaximoMillis,
+                          ModoDegradado modoDegradado, MeterRegistry meterRegistry) {
+        this.primario = comTimeout(primario);
+        this.replica = comTimeout(replica);
+        this.atrasoMaximoMillis = atrasoMaximoMillis;
+        this.modoDegradado = modoDegradado;
+        Gauge.builder("auth.datasource.replica.lag", this, m -> m.atrasoMillis < 0 ? Double.NaN : m.atrasoMillis)
+                .description("Atraso estimado da réplica em milissegundos (NaN se inacessível)")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval-millis:1000}")
+    public void verificar() {
+        if (modoDegradado.disjuntorAberto()) {
+            return;
+        }
+        long atraso;
+        try {
+            atraso = medirAtraso();
+        } catch (DataAccessException ex) {
+            log.debug("Falha ao medir atraso da réplica: {}", ex.getMessage());
+            atraso = -1;
+        }
+        boolean emDia = atraso >= 0 && atraso <= atrasoMaximoMillis;
+        if (emDia != utilizavel) {
+            if (emDia) {
+                log.info("Réplica de volta às leituras de autenticação (atraso {} ms)", atraso);
+            } else {
+                log.warn("Réplica fora das leituras de autenticação (atraso {} ms, máximo {} ms)",
+                        atraso, atrasoMaximoMillis);
+            }
+        }
+        atrasoMillis = atraso;
+        utilizavel = emDia;
+    }
+
+    public boolean replicaUtilizavel() {
+        return utilizavel;
+    }
+
+    /**
+     * Último atraso medido, ou {@code -1} se a réplica não respondeu.
+     */
+    public long getAtrasoMillis() {
+        return atrasoMillis;
+    }
+
+    private long medirAtraso() {
+        Timestamp maisRecente = replica.queryForObject(SQL_MAIS_RECENTE, Timestamp.class);
+        Timestamp desde = maisRecente == null ? new Timestamp(0) : maisRecente;
+        Long atraso = primario.queryForObject(SQL_PENDENTE, (rs, linha) -> {
+            Timestamp pendente = rs.getTimestamp("pendente");
+            Timestamp agora = rs.getTimestamp("agora");
+            return pendente == null || agora == null ? 0L : Math.max(0L, agora.getTime() - pendente.getTime());
+        }, desde);
+        return atraso == null ? 0L : atraso;
+    }
+
+    private static JdbcTemplate comTimeout(DataSource dataSource) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setQueryTimeout(TIMEOUT_SEGUNDOS);
+        return jdbcTemplate;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.config;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+/**
+ * Metadados de reachability que a imagem nativa não descobre sozinha.
+ * <p>
+ * Hibernate, driver MySQL, H2 e Jackson vêm do repositório de metadados do GraalVM (ligado no
+ * profile {@code native}) e das dicas geradas pelo AOT do Spring. O jjwt 0.11 fica de fora dos
+ * dois: {@code Jwts} instancia a implementação por nome de classe e o (de)serializador Jackson é
+ * achado via {@code ServiceLoader}.
+ */
+public class NativeHints implements RuntimeHintsRegistrar {
+
+    private static final String[] JJWT_REFLEXAO = {
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParser",
+            "io.jsonwebtoken.impl.DefaultClaims",
+            "io.jsonwebtoken.impl.DefaultHeader",
+            "io.jsonwebtoken.impl.DefaultJwsHeader",
+            "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+            "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (String tipo : JJWT_REFLEXAO) {
+            hints.reflection().registerType(TypeReference.of(tipo),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        }
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.config;
+
+import com.example.demo.api.security.ModoDegradado;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Réplica de leitura para as buscas de autenticação, ligada só quando
+ * {@code app.datasource.replica.url} está definida; sem ela o DataSource continua o da
+ * auto-configuração do Spring Boot.
+ * <p>
+ * O pool do primário segue {@code spring.datasource.*}; o da réplica usa
+ * {@code app.datasource.replica.*} e herda usuário e senha do primário quando não informados. O
+ * DataSource exposto à aplicação é o {@link DataSourceRoteado}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties propriedades) {
+        HikariDataSource dataSource = propriedades.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primario");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource dataSourceReplica(
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String usuario,
+            @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String senha,
+            @Value("${app.datasource.replica.maximum-pool-size:5}") int tamanhoPool) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(usuario);
+        dataSource.setPassword(senha);
+        dataSource.setMaximumPoolSize(tamanhoPool);
+        dataSource.setMinimumIdle(1);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public MonitorReplica monitorReplica(@Qualifier("dataSourcePrimario") DataSource primario,
+                                         @Qualifier("dataSourceReplica") DataSource replica,
+                                         @Value("${app.datasource.replica.max-lag-millis:2000}") long atrasoMaximoMillis,
+                                         ModoDegradado modoDegradado,
+                                         MeterRegistry meterRegistry) {
+        return new MonitorReplica(primario, replica, atrasoMaximoMillis, modoDegradado, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("dataSourcePrimario") DataSource primario,
+                                 @Qualifier("dataSourceReplica") DataSource replica,
+                                 MonitorReplica monitor) {
+        return new LazyConnectionDataSourceProxy(new DataSourceRoteado(primario, replica, monitor));
+    }
+}
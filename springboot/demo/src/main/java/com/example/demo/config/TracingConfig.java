@@ -0,0 +1,44 @@
+package com.example.demo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Tracing do pipeline de autenticação. Tracer, amostragem ({@code management.tracing.*}) e a
+ * propagação W3C do contexto de entrada ({@code traceparent}) vêm da auto-configuração do Spring
+ * Boot com o Brave; aqui só entra o span de serialização da resposta, que acontece depois do
+ * controller e por isso não dá para observar de dentro dele.
+ */
+@Configuration(proxyBeanMethods = false)
+public class TracingConfig {
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                                  ObservationRegistry registry) {
+        return new ConversorJsonObservado(objectMapper, registry);
+    }
+
+    static final class ConversorJsonObservado extends MappingJackson2HttpMessageConverter {
+
+        private final ObservationRegistry registry;
+
+        ConversorJsonObservado(ObjectMapper objectMapper, ObservationRegistry registry) {
+            super(objectMapper);
+            this.registry = registry;
+        }
+
+        @Override
+        protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+            Observation.createNotStarted("auth.resposta.serializacao", registry)
+                    .observeChecked(() -> super.writeInternal(object, type, outputMessage));
+        }
+    }
+}
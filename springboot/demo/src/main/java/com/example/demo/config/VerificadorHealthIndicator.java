@@ -0,0 +1,37 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Liveness: só confere se a verificação de fundo do {@link EstadoConectividade} continua rodando.
+ * Banco fora do ar não derruba a liveness (reiniciar o pod não resolve): a verificação tem thread
+ * própria e espera limitada por conexão, então um banco lento ou fora do ar não a atrasa além de
+ * {@code app.health.db-timeout-seconds}. Só a thread parada ou a JVM travada passam do limite.
+ */
+@Component
+public class VerificadorHealthIndicator implements HealthIndicator {
+
+    private final EstadoConectividade conectividade;
+    private final long limiteMillis;
+
+    public VerificadorHealthIndicator(EstadoConectividade conectividade,
+                                      @Value("${app.health.stale-after-millis:60000}") long limiteMillis) {
+        this.conectividade = conectividade;
+        this.limiteMillis = limiteMillis;
+    }
+
+    @Override
+    public Health health() {
+        EstadoConectividade.Estado estado = conectividade.getEstado();
+        if (estado == null) {
+            return Health.up().withDetail("verificador", "iniciando").build();
+        }
+        long idadeMillis = conectividade.agora() - estado.atualizadoEm();
+        return (idadeMillis <= limiteMillis ? Health.up() : Health.down())
+                .withDetail("ultimaVerificacaoHaMillis", idadeMillis)
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mantém o grupo de readiness em {@code OUT_OF_SERVICE} até o {@link JitWarmup} terminar.
+ */
+@Component
+@RequiredArgsConstructor
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    private final JitWarmup jitWarmup;
+
+    @Override
+    public Health health() {
+        JitWarmup.Resultado resultado = jitWarmup.getResultado();
+        if (resultado == null) {
+            return Health.outOfService().withDetail("warmup", "em andamento").build();
+        }
+        return Health.up()
+                .withDetail("rodadas", resultado.rodadas())
+                .withDetail("duracaoMillis", resultado.duracaoMillis())
+                .withDetail("motivo", resultado.motivo())
+                .build();
+    }
+}
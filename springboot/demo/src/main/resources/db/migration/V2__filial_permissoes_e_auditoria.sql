@@ -0,0 +1,28 @@
+-- Colunas e tabelas que o serviço passou a usar depois do esquema da V1. Vêm em ALTER/CREATE
+-- para chegarem também aos bancos marcados na V1, antes do índice de cobertura da V3, que
+-- inclui permissoes.
+
+-- bitset de Permissao; as filiais que já existiam ficam com o padrão (leitura e escrita, sem ADMIN)
+ALTER TABLE tb_filial ADD COLUMN permissoes INT NOT NULL DEFAULT 15;
+
+-- marca de alteração lida pelo FilialAlteracaoPoller e pelo MonitorReplica
+ALTER TABLE tb_filial
+    ADD COLUMN atualizado_em TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3);
+
+ALTER TABLE tb_filial ADD COLUMN ultimo_login TIMESTAMP(3) NULL;
+
+ALTER TABLE tb_filial ADD COLUMN ultimo_acesso TIMESTAMP(3) NULL;
+
+CREATE INDEX ix_filial_atualizado_em ON tb_filial (atualizado_em);
+
+CREATE TABLE IF NOT EXISTS tb_login_auditoria (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    codigo_filial INT,
+    login VARCHAR(100),
+    resultado VARCHAR(20) NOT NULL,
+    motivo VARCHAR(40) NOT NULL,
+    ip_origem VARCHAR(45),
+    ocorrido_em TIMESTAMP(3) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE INDEX ix_login_auditoria_filial_data ON tb_login_auditoria (codigo_filial, ocorrido_em);
@@ -0,0 +1,7 @@
+-- Índice de cobertura da busca de autenticação (FilialRepository.findByLogin).
+-- A consulta lê só estas colunas e a PK, que o InnoDB já guarda em todo índice secundário,
+-- então o login e a carga do principal saem do índice sem visitar a linha. A unicidade do
+-- login continua no índice único de uma coluna (ux_filial_login, ou o UK_* criado pelo
+-- Hibernate nos bancos anteriores ao Flyway).
+-- Tamanho da chave em utf8mb4: 400 + 1 + 4 + 1020 + 600 bytes, abaixo do limite de 3072 do InnoDB.
+CREATE INDEX ix_filial_login_auth ON tb_filial (login, ativo, permissoes, senha_hash, nome_filial);
@@ -0,0 +1,10 @@
+-- Clientes de serviço (API da loja, jobs em lote) do fluxo client credentials (POST /auth/token).
+-- O segredo é aleatório (256 bits) e só o HMAC-SHA256 dele, com a chave app.security.clients.secret-hash-key,
+-- fica no banco; escopos é um bitset de Permissao, como tb_filial.permissoes.
+CREATE TABLE IF NOT EXISTS tb_cliente_servico (
+    client_id VARCHAR(64) NOT NULL PRIMARY KEY,
+    segredo_hash BINARY(32) NOT NULL,
+    escopos INT NOT NULL,
+    ativo BOOLEAN NOT NULL DEFAULT TRUE,
+    criado_em TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -0,0 +1,213 @@
+package com.example.demo.api;
+
+import com.example.demo.api.model.FilialEntity;
+import com.example.demo.api.repository.FilialRepository;
+import com.example.demo.api.service.ClienteCredenciaisService;
+import com.example.verificador.Permissao;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ClienteCredenciaisIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ClienteCredenciaisService clienteCredenciaisService;
+
+    @Autowired
+    private FilialRepository filialRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private String segredo;
+
+    @BeforeEach
+    void prepararBanco() {
+        jdbcTemplate.update("DELETE FROM tb_cliente_servico");
+        segredo = clienteCredenciaisService.registrar("api-loja", "FERRAMENTA_LEITURA MATERIAL_LEITURA").segredo();
+        if (filialRepository.findByLogin("clientes-admin@test.com").isEmpty()) {
+            filialRepository.save(FilialEntity.builder()
+                    .nomeFilial("Matriz")
+                    .login("clientes-admin@test.com")
+                    .senhaHash(passwordEncoder.encode("s3nha"))
+                    .ativo(true)
+                    .permissoes(Permissao.PADRAO | Permissao.ADMIN.bit())
+                    .build());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve emitir token com o escopo cadastrado e aceitá-lo nas rotas protegidas")
+    void deveEmitirTokenComEscopoCadastrado() throws Exception {
+        // Act
+        String corpo = mockMvc.perform(pedirToken("api-loja", segredo, null))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+                .andExpect(jsonPath("$.access_token", notNullValue()))
+                .andExpect(jsonPath("$.token_type").value("Bearer"))
+                .andExpect(jsonPath("$.expires_in").value(300))
+                .andExpect(jsonPath("$.scope").value("FERRAMENTA_LEITURA MATERIAL_LEITURA"))
+                .andReturn().getResponse().getContentAsString();
+        String token = JsonPath.read(corpo, "$.access_token");
+
+        // Assert - autenticado (404 da rota inexistente, e não 403) e sem ADMIN
+        mockMvc.perform(get("/auth/inexistente").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/admin/clientes")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"clientId":"outro","escopo":"ADMIN"}
+                                """))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Deve reduzir o escopo ao pedido e recusar escopo não cadastrado")
+    void deveRespeitarEscopoPedido() throws Exception {
+        mockMvc.perform(pedirToken("api-loja", segredo, "MATERIAL_LEITURA"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.scope").value("MATERIAL_LEITURA"));
+        mockMvc.perform(pedirToken("api-loja", segredo, "MATERIAL_LEITURA ADMIN"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve recusar segredo errado, cliente inexistente e outro grant_type")
+    void deveRecusarCredenciaisInvalidas() throws Exception {
+        mockMvc.perform(pedirToken("api-loja", segredo + "x", null))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(pedirToken("inexistente", segredo, null))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/auth/token")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                        .param("grant_type", "password")
+                        .param("client_id", "api-loja")
+                        .param("client_secret", segredo))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Não deve cadastrar cliente de serviço com escopo ADMIN")
+    void naoDeveCadastrarClienteAdmin() throws Exception {
+        // Arrange
+        String tokenAdmin = loginAdmin();
+
+        // Act & Assert
+        assertThatThrownBy(() -> clienteCredenciaisService.registrar("job-admin", "MATERIAL_LEITURA ADMIN"))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("ADMIN");
+        mockMvc.perform(post("/admin/clientes")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenAdmin)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"clientId":"job-admin","escopo":"ADMIN"}
+                                """))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Não deve liberar as rotas administrativas para cliente cadastrado com ADMIN no banco")
+    void naoDeveLiberarAdminParaCliente() throws Exception {
+        // Arrange - linha gravada direto no banco, como um cadastro anterior à restrição
+        jdbcTemplate.update("UPDATE tb_cliente_servico SET escopos = ? WHERE client_id = 'api-loja'", Permissao.TODAS);
+
+        // Act
+        String corpo = mockMvc.perform(pedirToken("api-loja", segredo, null))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.scope").value(Permissao.escopo(Permissao.ESCOPOS_CLIENTE)))
+                .andReturn().getResponse().getContentAsString();
+        String token = JsonPath.read(corpo, "$.access_token");
+
+        // Assert
+        mockMvc.perform(get("/admin/sessoes").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/admin/clientes")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"clientId":"outro","escopo":"MATERIAL_LEITURA"}
+                                """))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(pedirToken("api-loja", segredo, "ADMIN"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve cadastrar cliente pela rota administrativa e aceitar credenciais no formulário")
+    void deveCadastrarClientePorAdmin() throws Exception {
+        // Arrange
+        String tokenAdmin = loginAdmin();
+
+        // Act
+        String corpo = mockMvc.perform(post("/admin/clientes")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenAdmin)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"clientId":"job-estoque","escopo":"MATERIAL_ESCRITA"}
+                                """))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.escopo").value("MATERIAL_ESCRITA"))
+                .andReturn().getResponse().getContentAsString();
+        String novoSegredo = JsonPath.read(corpo, "$.segredo");
+
+        // Assert
+        mockMvc.perform(post("/auth/token")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                        .param("grant_type", "client_credentials")
+                        .param("client_id", "job-estoque")
+                        .param("client_secret", novoSegredo))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.scope").value("MATERIAL_ESCRITA"));
+    }
+
+    private String loginAdmin() throws Exception {
+        String resposta = mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"login\":\"clientes-admin@test.com\",\"senha\":\"s3nha\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(resposta, "$.token");
+    }
+
+    private static MockHttpServletRequestBuilder pedirToken(String clientId, String segredo, String escopo) {
+        String basic = Base64.getEncoder().encodeToString((clientId + ":" + segredo).getBytes(StandardCharsets.UTF_8));
+        MockHttpServletRequestBuilder request = post("/auth/token")
+                .header(HttpHeaders.AUTHORIZATION, "Basic " + basic)
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .param("grant_type", "client_credentials");
+        return escopo == null ? request : request.param("scope", escopo);
+    }
+}
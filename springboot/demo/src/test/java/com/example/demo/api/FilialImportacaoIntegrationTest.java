@@ -0,0 +1,132 @@
+package com.example.demo.api;
+
+import com.example.demo.api.model.FilialEntity;
+import com.example.demo.api.repository.FilialRepository;
+import com.example.demo.api.service.JwtService;
+import com.example.verificador.Permissao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class FilialImportacaoIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FilialRepository filialRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private String tokenAdmin;
+    private String tokenFilial;
+
+    @BeforeEach
+    void prepararBanco() {
+        filialRepository.deleteAll();
+        FilialEntity admin = filialRepository.save(FilialEntity.builder()
+                .nomeFilial("Matriz")
+                .login("admin@test.com")
+                .senhaHash("hash")
+                .ativo(true)
+                .permissoes(Permissao.PADRAO | Permissao.ADMIN.bit())
+                .build());
+        FilialEntity filial = filialRepository.save(FilialEntity.builder()
+                .nomeFilial("Filial Comum")
+                .login("comum@test.com")
+                .senhaHash("hash")
+                .ativo(true)
+                .build());
+        tokenAdmin = jwtService.generateToken(admin);
+        tokenFilial = jwtService.generateToken(filial);
+    }
+
+    @Test
+    @DisplayName("Deve criar as filiais válidas de um NDJSON e apontar as linhas com erro")
+    void deveImportarNdjsonComErrosPorLinha() throws Exception {
+        // Arrange
+        String corpo = """
+                {"nomeFilial":"Filial Norte","login":"norte@test.com","senha":"s3nha"}
+                {"nomeFilial":"Filial Sul","login":"sul@test.com","senha":"s3nha","permissoes":1}
+                {"nomeFilial":"Repetida","login":"norte@test.com","senha":"s3nha"}
+                {"nomeFilial":"Existente","login":"comum@test.com","senha":"s3nha"}
+                {"nomeFilial":"","login":"vazia@test.com","senha":"s3nha"}
+                {nao e json
+                """;
+
+        // Act & Assert
+        mockMvc.perform(post("/admin/filiais/importacao")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenAdmin)
+                        .contentType("application/x-ndjson")
+                        .content(corpo))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recebidas").value(6))
+                .andExpect(jsonPath("$.criadas").value(2))
+                .andExpect(jsonPath("$.erros.length()").value(4))
+                .andExpect(jsonPath("$.erros[0].linha").value(3))
+                .andExpect(jsonPath("$.erros[0].mensagem").value("Login repetido no arquivo"));
+
+        FilialEntity sul = filialRepository.findByLogin("sul@test.com").orElseThrow();
+        assertThat(sul.getPermissoes()).isEqualTo(1);
+        assertThat(sul.getAtivo()).isTrue();
+        assertThat(passwordEncoder.matches("s3nha", sul.getSenhaHash())).isTrue();
+        assertThat(filialRepository.findByLogin("norte@test.com").orElseThrow().getPermissoes())
+                .isEqualTo(Permissao.PADRAO);
+    }
+
+    @Test
+    @DisplayName("Deve importar CSV com cabeçalho e campos entre aspas")
+    void deveImportarCsv() throws Exception {
+        // Arrange
+        String corpo = """
+                login,nome_filial,senha,ativo
+                leste@test.com,"Filial Leste, Centro",s3nha,false
+                oeste@test.com,Filial Oeste,s3nha,
+                """;
+
+        // Act & Assert
+        mockMvc.perform(post("/admin/filiais/importacao")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenAdmin)
+                        .contentType("text/csv")
+                        .content(corpo))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.criadas").value(2))
+                .andExpect(jsonPath("$.erros.length()").value(0));
+
+        FilialEntity leste = filialRepository.findByLogin("leste@test.com").orElseThrow();
+        assertThat(leste.getNomeFilial()).isEqualTo("Filial Leste, Centro");
+        assertThat(leste.getAtivo()).isFalse();
+        assertThat(filialRepository.findByLogin("oeste@test.com").orElseThrow().getAtivo()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve negar a importação para filial sem permissão ADMIN")
+    void deveNegarSemPermissaoAdmin() throws Exception {
+        mockMvc.perform(post("/admin/filiais/importacao")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenFilial)
+                        .contentType("application/x-ndjson")
+                        .content("{\"nomeFilial\":\"X\",\"login\":\"x@test.com\",\"senha\":\"s\"}\n"))
+                .andExpect(status().isForbidden());
+
+        assertThat(filialRepository.findByLogin("x@test.com")).isEmpty();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.api;
+
+import com.example.demo.api.model.FilialEntity;
+import com.example.demo.api.repository.FilialRepository;
+import com.example.verificador.Permissao;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+// contexto próprio: o data.sql de teste já rodou no mesmo H2 em memória
+@TestPropertySource(properties = {"app.security.sessions.max-per-filial=1", "spring.sql.init.mode=never"})
+class SessoesIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FilialRepository filialRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private FilialEntity admin;
+
+    @BeforeEach
+    void prepararBanco() {
+        filialRepository.deleteAll();
+        admin = filialRepository.save(FilialEntity.builder()
+                .nomeFilial("Matriz")
+                .login("sessoes@test.com")
+                .senhaHash(passwordEncoder.encode("s3nha"))
+                .ativo(true)
+                .permissoes(Permissao.PADRAO | Permissao.ADMIN.bit())
+                .build());
+    }
+
+    private String login() throws Exception {
+        String resposta = mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"login\":\"sessoes@test.com\",\"senha\":\"s3nha\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(resposta).get("token").asText();
+    }
+
+    @Test
+    @DisplayName("Deve derrubar a sessão mais antiga no limite e listar as sessões vivas por filial")
+    void deveDescartarMaisAntigaEListarSessoes() throws Exception {
+        // Arrange
+        String primeiro = login();
+        String segundo = login();
+
+        // Act & Assert
+        mockMvc.perform(get("/admin/sessoes").header(HttpHeaders.AUTHORIZATION, "Bearer " + primeiro))
+                .andExpect(status().isUnauthorized());
+        String linhas = mockMvc.perform(get("/admin/sessoes").header(HttpHeaders.AUTHORIZATION, "Bearer " + segundo))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+        assertThat(linhas.lines())
+                .contains("{\"codigoFilial\":" + admin.getCodigoFilial() + ",\"ativas\":1}");
+    }
+}
@@ -15,6 +15,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.aot.DisabledInAotMode;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -29,6 +30,7 @@ import org.junit.jupiter.api.Test;
 
 @WebMvcTest(AuthController.class)
 @AutoConfigureMockMvc(addFilters = false)
+@DisabledInAotMode // @MockBean não é suportado no AOT; o teste nativo é o AuthIntegrationTest
 class AuthControllerTest {
 
     @Autowired
@@ -58,7 +60,7 @@ class AuthControllerTest {
                     Instant.parse("2024-12-31T23:59:59Z")
             );
 
-            when(authService.autenticar(any(LoginRequest.class))).thenReturn(response);
+            when(authService.autenticar(any(LoginRequest.class), any())).thenReturn(response);
 
             // Act & Assert
             mockMvc.perform(post("/auth/login")
@@ -77,7 +79,7 @@ class AuthControllerTest {
             // Arrange
             LoginRequest request = new LoginRequest("user@test.com", "wrong");
 
-            when(authService.autenticar(any(LoginRequest.class)))
+            when(authService.autenticar(any(LoginRequest.class), any()))
                     .thenThrow(new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Login ou senha invalidos"));
 
             // Act & Assert
@@ -93,7 +95,7 @@ class AuthControllerTest {
             // Arrange
             LoginRequest request = new LoginRequest("inativo@test.com", "password");
 
-            when(authService.autenticar(any(LoginRequest.class)))
+            when(authService.autenticar(any(LoginRequest.class), any()))
                     .thenThrow(new ResponseStatusException(HttpStatus.FORBIDDEN, "Filial desativada"));
 
             // Act & Assert
@@ -110,7 +112,7 @@ class AuthControllerTest {
             LoginRequest request = new LoginRequest("user@test.com", "password");
             LoginResponse response = new LoginResponse("token", "Bearer", Instant.now());
 
-            when(authService.autenticar(any(LoginRequest.class))).thenReturn(response);
+            when(authService.autenticar(any(LoginRequest.class), any())).thenReturn(response);
 
             // Act & Assert
             mockMvc.perform(post("/auth/login")
@@ -127,7 +129,7 @@ class AuthControllerTest {
             Instant expiraEm = Instant.now().plusSeconds(3600);
             LoginResponse response = new LoginResponse("my-jwt-token", "Bearer", expiraEm);
 
-            when(authService.autenticar(any(LoginRequest.class))).thenReturn(response);
+            when(authService.autenticar(any(LoginRequest.class), any())).thenReturn(response);
 
             // Act & Assert
             mockMvc.perform(post("/auth/login")
@@ -150,7 +152,7 @@ class AuthControllerTest {
             // Arrange
             LoginRequest request = new LoginRequest("", "");
 
-            when(authService.autenticar(any(LoginRequest.class)))
+            when(authService.autenticar(any(LoginRequest.class), any()))
                     .thenThrow(new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Login ou senha invalidos"));
 
             // Act & Assert
@@ -0,0 +1,236 @@
+package com.example.demo.api.limiter;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    private static final long UM_MS = 1_000_000L;
+
+    @Nested
+    @DisplayName("Ajuste AIMD do limite")
+    class AjusteLimite {
+
+        @Test
+        @DisplayName("Deve crescer aditivamente quando as respostas estão dentro da latência alvo")
+        void deveCrescerAditivamente() {
+            AimdLimiter limiter = new AimdLimiter("teste", 4, 1, 10, 0.5, 100);
+
+            for (int i = 0; i < 40; i++) {
+                int adquiridas = 0;
+                while (limiter.tentarAdquirir()) {
+                    adquiridas++;
+                }
+                for (int j = 0; j < adquiridas; j++) {
+                    limiter.liberar(10 * UM_MS, false);
+                }
+            }
+
+            assertThat(limiter.getLimite()).isEqualTo(10);
+        }
+
+        @Test
+        @DisplayName("Não deve crescer com o limite ocioso")
+        void naoDeveCrescerOcioso() {
+            AimdLimiter limiter = new AimdLimiter("teste", 8, 1, 10, 0.5, 100);
+
+            for (int i = 0; i < 100; i++) {
+                limiter.tentarAdquirir();
+                limiter.liberar(10 * UM_MS, false);
+            }
+
+            assertThat(limiter.getLimite()).isEqualTo(8);
+        }
+
+        @Test
+        @DisplayName("Deve reduzir multiplicativamente quando a latência passa do alvo")
+        void deveReduzirMultiplicativamente() {
+            AimdLimiter limiter = new AimdLimiter("teste", 8, 1, 10, 0.5, 100);
+
+            limiter.tentarAdquirir();
+            limiter.liberar(500 * UM_MS, false);
+
+            assertThat(limiter.getLimite()).isEqualTo(4);
+        }
+
+        @Test
+        @DisplayName("Deve reduzir uma vez só quando uma rajada de requisições lentas termina junta")
+        void deveReduzirUmaVezPorJanela() {
+            // Arrange
+            AimdLimiter limiter = new AimdLimiter("teste", 50, 10, 200, 0.9, 100);
+            int adquiridas = 0;
+            while (limiter.tentarAdquirir()) {
+                adquiridas++;
+            }
+
+            // Act
+            for (int i = 0; i < adquiridas; i++) {
+                limiter.liberar(500 * UM_MS, false);
+            }
+            int depoisDaRajada = limiter.getLimite();
+            limiter.tentarAdquirir();
+            limiter.liberar(500 * UM_MS, false);
+
+            // Assert
+            assertThat(adquiridas).isEqualTo(50);
+            assertThat(depoisDaRajada).isEqualTo(45);
+            assertThat(limiter.getLimite()).isEqualTo(40);
+        }
+
+        @Test
+        @DisplayName("Não deve passar do limite mínimo em falhas seguidas")
+        void deveRespeitarLimiteMinimo() {
+            AimdLimiter limiter = new AimdLimiter("teste", 8, 2, 10, 0.5, 100);
+
+            for (int i = 0; i < 10; i++) {
+                limiter.tentarAdquirir();
+                limiter.liberar(UM_MS, true);
+            }
+
+            assertThat(limiter.getLimite()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Deve recusar quando todas as vagas estão em uso")
+        void deveRecusarSemVagas() {
+            AimdLimiter limiter = new AimdLimiter("teste", 2, 1, 10, 0.5, 100);
+
+            assertThat(limiter.tentarAdquirir()).isTrue();
+            assertThat(limiter.tentarAdquirir()).isTrue();
+            assertThat(limiter.tentarAdquirir()).isFalse();
+            assertThat(limiter.getRejeitadas()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Filtro")
+    class Filtro {
+
+        private ConcurrencyLimitFilter filtro(int limiteLogin, int limiteToken) {
+            return new ConcurrencyLimitFilter(true, 0.8,
+                    limiteLogin, 1, 32, 800,
+                    limiteToken, 1, 200, 150, 0.9);
+        }
+
+        private MockHttpServletRequest login() {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/login");
+            request.setServletPath("/auth/login");
+            return request;
+        }
+
+        @Test
+        @DisplayName("Deve responder 503 quando a classe de login está cheia")
+        void deveResponder503ParaLoginSemVaga() throws Exception {
+            // Arrange
+            ConcurrencyLimitFilter filtro = filtro(1, 10);
+            filtro.getLoginLimiter().tentarAdquirir();
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            AtomicInteger chamadas = new AtomicInteger();
+
+            // Act
+            filtro.doFilter(login(), response, (req, res) -> chamadas.incrementAndGet());
+
+            // Assert
+            assertThat(response.getStatus()).isEqualTo(503);
+            assertThat(response.getHeader("Retry-After")).isEqualTo("1");
+            assertThat(chamadas).hasValue(0);
+        }
+
+        @Test
+        @DisplayName("Deve recusar login quando o tráfego com token está próximo do limite")
+        void devePriorizarTrafegoComToken() throws Exception {
+            // Arrange
+            ConcurrencyLimitFilter filtro = filtro(8, 10);
+            for (int i = 0; i < 8; i++) {
+                filtro.getTokenLimiter().tentarAdquirir();
+            }
+            MockHttpServletResponse respostaLogin = new MockHttpServletResponse();
+            MockHttpServletResponse respostaToken = new MockHttpServletResponse();
+            FilterChain chain = (req, res) -> { };
+
+            // Act
+            filtro.doFilter(login(), respostaLogin, chain);
+            filtro.doFilter(new MockHttpServletRequest("GET", "/ferramentas"), respostaToken, chain);
+
+            // Assert
+            assertThat(respostaLogin.getStatus()).isEqualTo(503);
+            assertThat(respostaToken.getStatus()).isEqualTo(200);
+        }
+
+        @Test
+        @DisplayName("Não deve limitar probes do actuator")
+        void naoDeveLimitarProbes() throws Exception {
+            // Arrange
+            ConcurrencyLimitFilter filtro = filtro(1, 1);
+            filtro.getTokenLimiter().tentarAdquirir();
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            AtomicInteger chamadas = new AtomicInteger();
+
+            // Act
+            filtro.doFilter(new MockHttpServletRequest("GET", "/actuator/health/readiness"), response,
+                    (req, res) -> chamadas.incrementAndGet());
+
+            // Assert
+            assertThat(chamadas).hasValue(1);
+        }
+
+        @Test
+        @DisplayName("Deve limitar a importação de filiais na classe de login")
+        void deveLimitarImportacaoComoLogin() throws Exception {
+            // Arrange
+            ConcurrencyLimitFilter filtro = filtro(1, 10);
+            filtro.getLoginLimiter().tentarAdquirir();
+            MockHttpServletRequest importacao = new MockHttpServletRequest("POST", "/admin/filiais/importacao");
+            importacao.setServletPath("/admin/filiais/importacao");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            AtomicInteger chamadas = new AtomicInteger();
+
+            // Act
+            filtro.doFilter(importacao, response, (req, res) -> chamadas.incrementAndGet());
+
+            // Assert
+            assertThat(response.getStatus()).isEqualTo(503);
+            assertThat(chamadas).hasValue(0);
+            assertThat(filtro.getTokenLimiter().getEmUso()).isZero();
+        }
+
+        @Test
+        @DisplayName("Deve limitar os demais caminhos de /admin na classe de token")
+        void deveLimitarAdminComoToken() throws Exception {
+            // Arrange
+            ConcurrencyLimitFilter filtro = filtro(8, 1);
+            filtro.getTokenLimiter().tentarAdquirir();
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            // Act
+            filtro.doFilter(new MockHttpServletRequest("GET", "/admin/sessoes"), response, (req, res) -> { });
+
+            // Assert
+            assertThat(response.getStatus()).isEqualTo(503);
+        }
+
+        @Test
+        @DisplayName("Deve liberar a vaga e reduzir o limite quando a resposta é 5xx")
+        void deveReduzirLimiteEm5xx() throws Exception {
+            // Arrange
+            ConcurrencyLimitFilter filtro = filtro(8, 20);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            // Act
+            filtro.doFilter(new MockHttpServletRequest("GET", "/ferramentas"), response,
+                    (req, res) -> ((MockHttpServletResponse) res).setStatus(500));
+
+            // Assert
+            assertThat(filtro.getTokenLimiter().getEmUso()).isZero();
+            assertThat(filtro.getTokenLimiter().getLimite()).isEqualTo(18);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.api.repository;
+
+import com.example.demo.api.model.FilialEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class FilialRepositoryTest {
+
+    @Autowired
+    private FilialRepository filialRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void prepararBanco() {
+        filialRepository.deleteAll();
+        filialRepository.save(FilialEntity.builder()
+                .nomeFilial("Filial Repositorio")
+                .login("repositorio@test.com")
+                .senhaHash("hash")
+                .ativo(true)
+                .permissoes(3)
+                .build());
+    }
+
+    @Test
+    @DisplayName("Deve aplicar as migrações até o índice de cobertura do login")
+    void deveAplicarMigracoes() {
+        // Act
+        List<String> versoes = jdbcTemplate.queryForList(
+                "SELECT version FROM flyway_schema_history WHERE version IS NOT NULL AND success ORDER BY installed_rank",
+                String.class);
+        List<String> colunas = jdbcTemplate.queryForList("""
+                SELECT c.column_name
+                  FROM information_schema.index_columns c
+                 WHERE c.index_name = 'ix_filial_login_auth'
+                 ORDER BY c.ordinal_position""", String.class);
+
+        // Assert
+        assertThat(versoes).startsWith("1", "2", "3");
+        assertThat(colunas).containsExactly("login", "ativo", "permissoes", "senha_hash", "nome_filial");
+    }
+
+    @Test
+    @DisplayName("Deve buscar pelo login só as colunas usadas na autenticação")
+    void deveBuscarColunasDeAutenticacao() {
+        // Act
+        FilialEntity filial = filialRepository.findByLogin("repositorio@test.com").orElseThrow();
+
+        // Assert
+        assertThat(filial.getCodigoFilial()).isNotNull();
+        assertThat(filial.getNomeFilial()).isEqualTo("Filial Repositorio");
+        assertThat(filial.getSenhaHash()).isEqualTo("hash");
+        assertThat(filial.getAtivo()).isTrue();
+        assertThat(filial.getPermissoes()).isEqualTo(3);
+        assertThat(filial.getAtualizadoEm()).isNull();
+        assertThat(filialRepository.findByLogin("outro@test.com")).isEmpty();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.api.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upgrade de um banco anterior ao Flyway: o esquema do schema.sql com as colunas que o
+ * {@code ddl-auto=update} acrescentava, marcado na V1 pelo {@code baseline-on-migrate} como em
+ * produção, tem que receber tudo o que as migrações seguintes criam.
+ */
+class MigracaoBancoLegadoTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void criarBancoLegado() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:legado-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+                "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+                CREATE TABLE tb_filial (
+                    codigo_filial INT AUTO_INCREMENT PRIMARY KEY,
+                    nome_filial VARCHAR(150) NOT NULL,
+                    login VARCHAR(100) NOT NULL,
+                    senha_hash VARCHAR(255) NOT NULL,
+                    ativo BIT NOT NULL,
+                    CONSTRAINT UK_filial_login_hibernate UNIQUE (login)
+                )""");
+        jdbcTemplate.execute("""
+                CREATE TABLE tb_ferramenta (
+                    codigo_ferramenta INT AUTO_INCREMENT PRIMARY KEY,
+                    codigo_produto VARCHAR(50) NOT NULL,
+                    valor DOUBLE NOT NULL,
+                    marca VARCHAR(100),
+                    nome VARCHAR(150) NOT NULL,
+                    qtd_pacote INT,
+                    codigo_filial INT NOT NULL,
+                    CONSTRAINT fk_ferramenta_filial FOREIGN KEY (codigo_filial) REFERENCES tb_filial (codigo_filial)
+                )""");
+        jdbcTemplate.update("INSERT INTO tb_filial (nome_filial, login, senha_hash, ativo) VALUES (?, ?, ?, ?)",
+                "Filial Antiga", "antiga@loja.com", "hash", true);
+    }
+
+    @Test
+    @DisplayName("Deve levar um banco anterior ao Flyway até a última migração")
+    void deveMigrarBancoLegado() {
+        // Act
+        Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        // Assert
+        List<String> versoes = jdbcTemplate.queryForList("""
+                SELECT version || ':' || type
+                  FROM flyway_schema_history
+                 WHERE success AND version IS NOT NULL
+                 ORDER BY installed_rank""", String.class);
+        assertThat(versoes).startsWith("1:BASELINE", "2:SQL", "3:SQL", "4:SQL");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT permissoes FROM tb_filial WHERE login = 'antiga@loja.com'", Integer.class)).isEqualTo(15);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM tb_filial WHERE atualizado_em IS NOT NULL AND ultimo_login IS NULL",
+                Integer.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("""
+                SELECT c.column_name
+                  FROM information_schema.index_columns c
+                 WHERE c.index_name = 'ix_filial_login_auth'
+                 ORDER BY c.ordinal_position""", String.class))
+                .containsExactly("login", "ativo", "permissoes", "senha_hash", "nome_filial");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_login_auditoria", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_cliente_servico", Integer.class)).isZero();
+    }
+}
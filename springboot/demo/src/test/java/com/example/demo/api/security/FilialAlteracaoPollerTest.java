@@ -0,0 +1,79 @@
+package com.example.demo.api.security;
+
+import com.example.demo.api.model.FilialEntity;
+import com.example.demo.api.repository.FilialRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class FilialAlteracaoPollerTest {
+
+    @Autowired
+    private FilialRepository filialRepository;
+
+    @Autowired
+    private FilialDetailsService filialDetailsService;
+
+    @Autowired
+    private FilialPrincipalCache principalCache;
+
+    @Autowired
+    private FilialAlteracaoPoller poller;
+
+    private FilialEntity filial;
+
+    @BeforeEach
+    void prepararBanco() {
+        filialRepository.deleteAll();
+        filial = filialRepository.save(FilialEntity.builder()
+                .nomeFilial("Filial Poller")
+                .login("poller@test.com")
+                .senhaHash("hash-antigo")
+                .ativo(true)
+                .build());
+        poller.sincronizar();
+    }
+
+    @Test
+    @DisplayName("Deve invalidar a filial desativada em outro nó")
+    void deveInvalidarFilialDesativada() throws InterruptedException {
+        // Arrange
+        assertThat(filialDetailsService.loadUserByUsername("poller@test.com").isEnabled()).isTrue();
+        Thread.sleep(5);
+
+        // Act - alteração feita "por outro nó", direto no banco
+        filial.setAtivo(false);
+        filialRepository.save(filial);
+        int vistas = poller.sincronizar();
+
+        // Assert
+        assertThat(vistas).isPositive();
+        assertThat(filialDetailsService.loadUserByUsername("poller@test.com").isEnabled()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve entregar a senha nova após a sincronização")
+    void deveEntregarSenhaNova() throws InterruptedException {
+        // Arrange
+        assertThat(filialDetailsService.loadUserByUsername("poller@test.com").getPassword()).isEqualTo("hash-antigo");
+        Thread.sleep(5);
+
+        // Act
+        filial.setSenhaHash("hash-novo");
+        filialRepository.save(filial);
+        poller.sincronizar();
+
+        // Assert
+        assertThat(principalCache.size()).isZero();
+        assertThat(filialDetailsService.loadUserByUsername("poller@test.com").getPassword()).isEqualTo("hash-novo");
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.api.security;
+
+import com.example.demo.api.model.FilialEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilialPrincipalCacheTest {
+
+    private final AtomicLong agora = new AtomicLong(1_000);
+    private final AtomicInteger cargas = new AtomicInteger();
+    private FilialPrincipalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new FilialPrincipalCache(60_000, agora::get);
+    }
+
+    private FilialDetails carregar(String login) {
+        cargas.incrementAndGet();
+        return new FilialDetails(FilialEntity.builder()
+                .codigoFilial(10)
+                .nomeFilial("Filial")
+                .login(login)
+                .senhaHash("hash")
+                .ativo(true)
+                .build());
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar a filial carregada dentro do TTL")
+    void deveReaproveitarDentroDoTtl() {
+        cache.get("filial@teste.com", () -> carregar("filial@teste.com"));
+        cache.get("filial@teste.com", () -> carregar("filial@teste.com"));
+
+        assertThat(cargas).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Deve recarregar depois do TTL")
+    void deveRecarregarDepoisDoTtl() {
+        cache.get("filial@teste.com", () -> carregar("filial@teste.com"));
+        agora.addAndGet(60_000);
+        cache.get("filial@teste.com", () -> carregar("filial@teste.com"));
+
+        assertThat(cargas).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Deve invalidar pelo código mesmo quando o login mudou")
+    void deveInvalidarPeloCodigo() {
+        cache.get("antigo@teste.com", () -> carregar("antigo@teste.com"));
+
+        cache.invalidar(10, "novo@teste.com");
+        cache.get("antigo@teste.com", () -> carregar("antigo@teste.com"));
+
+        assertThat(cargas).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Não deve guardar valor carregado durante uma invalidação")
+    void naoDeveGuardarCargaConcorrenteComInvalidacao() {
+        cache.get("filial@teste.com", () -> {
+            FilialDetails antigo = carregar("filial@teste.com");
+            cache.invalidar(10, "filial@teste.com");
+            return antigo;
+        });
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve devolver a entrada vencida dentro da janela de obsolescência")
+    void deveDevolverObsoletoDentroDaJanela() {
+        cache.get("filial@teste.com", () -> carregar("filial@teste.com"));
+        agora.addAndGet(120_000);
+
+        assertThat(cache.obsoleto("filial@teste.com", 300_000)).isNotNull();
+        assertThat(cache.obsoleto("filial@teste.com", 120_000)).isNull();
+    }
+
+    @Test
+    @DisplayName("Não deve devolver como obsoleta uma entrada invalidada")
+    void naoDeveDevolverObsoletoInvalidado() {
+        cache.get("filial@teste.com", () -> carregar("filial@teste.com"));
+
+        cache.invalidar(10, "filial@teste.com");
+
+        assertThat(cache.obsoleto("filial@teste.com", 300_000)).isNull();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.demo.api.security;
+
+import com.example.demo.api.model.FilialEntity;
+import com.example.demo.api.service.FilialAtividade;
+import com.example.demo.api.service.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Regressão de alocação do filtro JWT: mede, com o contador de bytes alocados da própria thread,
+ * quanto uma requisição autenticada (cache de principais quente) aloca dentro do filtro.
+ * <p>
+ * O orçamento conta com a escape analysis do C2 depois do aquecimento; numa JVM só com C1 ou com
+ * outros flags a medição muda. Por isso fica fora do {@code mvn test} e roda com
+ * {@code ./mvnw -Palocacao test}, na mesma JVM em que o orçamento foi medido.
+ */
+@Tag("alocacao")
+class JwtAuthenticationFilterAlocacaoTest {
+
+    // medido: ~1.950 bytes (antes da FilialAuthentication, ~2.150); a maior parte é a
+    // decodificação do token. A folga cobre diferenças entre JVMs
+    private static final long ORCAMENTO_BYTES_POR_REQUISICAO = 2_560;
+    private static final int AQUECIMENTO = 20_000;
+    private static final int MEDICAO = 20_000;
+
+    private final AtomicReference<Authentication> autenticacao = new AtomicReference<>();
+    private final FilterChain chain = (req, res) -> autenticacao.set(SecurityContextHolder.getContext().getAuthentication());
+    private JwtAuthenticationFilter filtro;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", "minha-chave-secreta-com-pelo-menos-32-caracteres-para-hmac");
+        ReflectionTestUtils.setField(jwtService, "expirationMillis", 3600000L);
+        FilialEntity filial = FilialEntity.builder()
+                .codigoFilial(7)
+                .nomeFilial("Filial Alocação")
+                .login("alocacao@teste.com")
+                .senhaHash("hash")
+                .ativo(true)
+                .build();
+
+        FilialPrincipalCache cache = new FilialPrincipalCache(3_600_000);
+        cache.get(filial.getLogin(), () -> new FilialDetails(filial));
+        FilialDetailsService detailsService = new FilialDetailsService(null, cache, null, null);
+        filtro = new JwtAuthenticationFilter(jwtService, detailsService, new FilialAtividade(null, null),
+                ObservationRegistry.NOOP, new RegistroEventosSeguranca(new SimpleMeterRegistry(), 5, 10_000),
+                new ReemissaoDeslizante(false, 0, 0, new SimpleMeterRegistry(), System::currentTimeMillis));
+
+        request = new MockHttpServletRequest("GET", "/ferramentas");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + jwtService.generateToken(filial));
+        response = new MockHttpServletResponse();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Deve autenticar com FilialAuthentication imutável e sem details")
+    void deveAutenticarComAutenticacaoEnxuta() throws Exception {
+        // Act
+        filtro.doFilter(request, response, chain);
+
+        // Assert
+        assertThat(autenticacao.get()).isInstanceOf(FilialAuthentication.class);
+        assertThat(autenticacao.get().getName()).isEqualTo("alocacao@teste.com");
+        assertThat(autenticacao.get().getDetails()).isNull();
+        assertThat(autenticacao.get().getCredentials()).isNull();
+    }
+
+    @Test
+    @DisplayName("Não deve ler o token no login, no preflight nem no health")
+    void deveIgnorarRotasSemToken() throws Exception {
+        // Arrange
+        MockHttpServletRequest login = new MockHttpServletRequest("POST", "/auth/login");
+        login.addHeader(HttpHeaders.AUTHORIZATION, "Bearer lixo");
+        MockHttpServletRequest preflight = new MockHttpServletRequest("OPTIONS", "/ferramentas");
+        preflight.addHeader(HttpHeaders.AUTHORIZATION, "Bearer lixo");
+        MockHttpServletRequest health = new MockHttpServletRequest("GET", "/actuator/health/readiness");
+        health.addHeader(HttpHeaders.AUTHORIZATION, "Bearer lixo");
+
+        // Act & Assert
+        for (MockHttpServletRequest semToken : new MockHttpServletRequest[]{login, preflight, health}) {
+            MockHttpServletResponse resposta = new MockHttpServletResponse();
+            autenticacao.set(null);
+            filtro.doFilter(semToken, resposta, chain);
+            assertThat(resposta.getStatus()).isEqualTo(200);
+            assertThat(autenticacao.get()).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Requisição autenticada deve ficar dentro do orçamento de alocação")
+    void deveRespeitarOrcamentoDeAlocacao() throws Exception {
+        // Arrange
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean mx
+                && mx.isThreadAllocatedMemorySupported(), "JVM sem contador de alocação por thread");
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        mx.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+        executar(AQUECIMENTO);
+
+        // Act
+        long antes = mx.getThreadAllocatedBytes(thread);
+        executar(MEDICAO);
+        long porRequisicao = (mx.getThreadAllocatedBytes(thread) - antes) / MEDICAO;
+
+        // Assert
+        assertThat(autenticacao.get()).isInstanceOf(FilialAuthentication.class);
+        assertThat(porRequisicao)
+                .as("bytes alocados por requisição autenticada")
+                .isLessThanOrEqualTo(ORCAMENTO_BYTES_POR_REQUISICAO);
+    }
+
+    private void executar(int vezes) throws Exception {
+        for (int i = 0; i < vezes; i++) {
+            filtro.doFilter(request, response, chain);
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.demo.api.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ModoDegradadoTest {
+
+    private final AtomicLong agora = new AtomicLong(1_000);
+    private final AtomicInteger consultas = new AtomicInteger();
+    private ModoDegradado modo;
+
+    @BeforeEach
+    void setUp() {
+        modo = new ModoDegradado(3, 10_000, 900_000, new SimpleMeterRegistry(), agora::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        modo.encerrar();
+    }
+
+    private String falhar() {
+        consultas.incrementAndGet();
+        throw new CannotGetJdbcConnectionException("Connection is not available, request timed out after 20000ms.");
+    }
+
+    private String responder() {
+        consultas.incrementAndGet();
+        return "ok";
+    }
+
+    private void abrir() {
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> modo.executar(this::falhar)).isInstanceOf(BancoIndisponivelException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve abrir depois das falhas seguidas e parar de consultar o banco")
+    void deveAbrirEFalharRapido() {
+        // Arrange
+        abrir();
+
+        // Act & Assert
+        assertThatThrownBy(() -> modo.executar(this::responder)).isInstanceOf(BancoIndisponivelException.class);
+        assertThat(modo.getEstado()).isEqualTo(ModoDegradado.Estado.ABERTO);
+        assertThat(consultas).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("Deve liberar uma consulta de teste depois do intervalo e fechar se ela responder")
+    void deveFecharAposConsultaDeTeste() {
+        // Arrange
+        abrir();
+        agora.addAndGet(10_000);
+
+        // Act
+        String resultado = modo.executar(this::responder);
+
+        // Assert
+        assertThat(resultado).isEqualTo("ok");
+        assertThat(modo.getEstado()).isEqualTo(ModoDegradado.Estado.FECHADO);
+        assertThat(modo.getFalhasSeguidas()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve reabrir quando a consulta de teste falha")
+    void deveReabrirSeConsultaDeTesteFalhar() {
+        // Arrange
+        abrir();
+        agora.addAndGet(10_000);
+
+        // Act
+        assertThatThrownBy(() -> modo.executar(this::falhar)).isInstanceOf(BancoIndisponivelException.class);
+
+        // Assert
+        assertThat(modo.getEstado()).isEqualTo(ModoDegradado.Estado.ABERTO);
+        assertThatThrownBy(() -> modo.executar(this::responder)).isInstanceOf(BancoIndisponivelException.class);
+        assertThat(consultas).hasValue(4);
+    }
+
+    @Test
+    @DisplayName("Não deve contar como falha uma exceção que não é de conexão")
+    void naoDeveContarErroQueNaoEDeConexao() {
+        // Act
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> modo.executar(() -> {
+                throw new EmptyResultDataAccessException(1);
+            })).isInstanceOf(EmptyResultDataAccessException.class);
+        }
+
+        // Assert
+        assertThat(modo.getEstado()).isEqualTo(ModoDegradado.Estado.FECHADO);
+    }
+
+    @Test
+    @DisplayName("Deve reconhecer falha de conexão embrulhada pelo gerenciador de transações")
+    void deveReconhecerFalhaNaAberturaDaTransacao() {
+        assertThat(ModoDegradado.falhaDeBanco(new CannotCreateTransactionException("Could not open JPA EntityManager")))
+                .isTrue();
+        assertThat(ModoDegradado.falhaDeBanco(new IllegalStateException(
+                new CannotGetJdbcConnectionException("timeout")))).isTrue();
+        assertThat(ModoDegradado.falhaDeBanco(new IllegalArgumentException("login"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve ignorar revalidação repetida enquanto a anterior não terminou")
+    void deveIgnorarRevalidacaoRepetida() throws InterruptedException {
+        // Arrange
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch terminou = new CountDownLatch(1);
+        AtomicInteger execucoes = new AtomicInteger();
+
+        // Act
+        modo.revalidar("filial@teste.com", () -> {
+            execucoes.incrementAndGet();
+            try {
+                liberar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            terminou.countDown();
+        });
+        modo.revalidar("filial@teste.com", execucoes::incrementAndGet);
+        liberar.countDown();
+
+        // Assert
+        assertThat(terminou.await(5, TimeUnit.SECONDS)).isTrue();
+        modo.encerrar();
+        assertThat(execucoes).hasValue(1);
+    }
+}
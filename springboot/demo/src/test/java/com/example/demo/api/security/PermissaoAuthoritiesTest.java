@@ -0,0 +1,81 @@
+package com.example.demo.api.security;
+
+import com.example.demo.api.model.FilialEntity;
+import com.example.verificador.Permissao;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PermissaoAuthoritiesTest {
+
+    @Test
+    @DisplayName("Deve devolver a mesma coleção imutável para o mesmo bitset")
+    void deveDevolverColecaoInternada() {
+        // Arrange
+        int bits = Permissao.FERRAMENTA_LEITURA.bit() | Permissao.MATERIAL_ESCRITA.bit();
+
+        // Act
+        List<GrantedAuthority> primeira = PermissaoAuthorities.de(bits);
+        List<GrantedAuthority> segunda = PermissaoAuthorities.de(bits);
+
+        // Assert
+        assertThat(primeira).isSameAs(segunda);
+        assertThat(primeira).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_FILIAL", "FERRAMENTA_LEITURA", "MATERIAL_ESCRITA");
+        assertThatThrownBy(() -> primeira.add(PermissaoAuthorities.ROLE_FILIAL))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    @DisplayName("Deve ignorar bits que não correspondem a nenhuma permissão")
+    void deveIgnorarBitsDesconhecidos() {
+        assertThat(PermissaoAuthorities.de(Integer.MIN_VALUE | Permissao.MATERIAL_LEITURA.bit()))
+                .isSameAs(PermissaoAuthorities.de(Permissao.MATERIAL_LEITURA.bit()));
+        assertThat(PermissaoAuthorities.de(0)).containsExactly(PermissaoAuthorities.ROLE_FILIAL);
+    }
+
+    @Test
+    @DisplayName("Deve limitar as permissões do token às que a filial tem no banco")
+    void deveLimitarPermissoesDoTokenAoBanco() {
+        // Arrange
+        FilialDetails filial = new FilialDetails(FilialEntity.builder()
+                .codigoFilial(1)
+                .login("filial@teste.com")
+                .ativo(true)
+                .permissoes(Permissao.FERRAMENTA_LEITURA.bit())
+                .build());
+
+        // Act
+        List<GrantedAuthority> doToken = filial.getAuthorities(Permissao.TODAS);
+        List<GrantedAuthority> semClaim = filial.getAuthorities(null);
+
+        // Assert
+        assertThat(doToken).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_FILIAL", "FERRAMENTA_LEITURA");
+        assertThat(semClaim).isSameAs(doToken);
+    }
+
+    @Test
+    @DisplayName("Deve atender hasAuthority usado pelo @PreAuthorize")
+    void deveAtenderHasAuthority() {
+        // Arrange
+        Authentication autenticacao = UsernamePasswordAuthenticationToken.authenticated(
+                "filial@teste.com", null, PermissaoAuthorities.de(Permissao.FERRAMENTA_ESCRITA.bit()));
+
+        // Act & Assert
+        assertThat(AuthorityAuthorizationManager.hasAuthority("FERRAMENTA_ESCRITA")
+                .check(() -> autenticacao, new Object()).isGranted()).isTrue();
+        assertThat(AuthorityAuthorizationManager.hasAuthority("MATERIAL_ESCRITA")
+                .check(() -> autenticacao, new Object()).isGranted()).isFalse();
+        assertThat(AuthorityAuthorizationManager.hasRole("FILIAL")
+                .check(() -> autenticacao, new Object()).isGranted()).isTrue();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.demo.api.security;
+
+import com.example.demo.api.model.FilialEntity;
+import com.example.demo.api.service.FilialAtividade;
+import com.example.demo.api.service.FilialTokenClaims;
+import com.example.demo.api.service.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReemissaoDeslizanteTest {
+
+    private static final long JANELA = 600_000;
+
+    private final AtomicLong agora = new AtomicLong(1_000_000_000);
+
+    private ReemissaoDeslizante reemissao(boolean ativa, int capacidade) {
+        return new ReemissaoDeslizante(ativa, JANELA, capacidade, new SimpleMeterRegistry(), agora::get);
+    }
+
+    private FilialTokenClaims token(long sessao, long faltamMillis) {
+        return new FilialTokenClaims("filial@teste.com", Instant.ofEpochMilli(agora.get() + faltamMillis),
+                1, "Filial", null, sessao);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Deve renovar só dentro da janela antes do exp")
+    void deveRenovarSoNaJanela() {
+        // Arrange
+        ReemissaoDeslizante reemissao = reemissao(true, 100);
+
+        // Act & Assert
+        assertThat(reemissao.deveRenovar(token(1, JANELA + 1))).isFalse();
+        assertThat(reemissao.deveRenovar(token(1, JANELA))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve renovar cada token uma única vez")
+    void deveRenovarUmaVez() {
+        // Arrange
+        ReemissaoDeslizante reemissao = reemissao(true, 100);
+
+        // Act & Assert
+        assertThat(reemissao.deveRenovar(token(1, 60_000))).isTrue();
+        assertThat(reemissao.deveRenovar(token(1, 60_000))).isFalse();
+        assertThat(reemissao.deveRenovar(token(2, 60_000))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Não deve renovar desligada, sem jti ou token de cliente")
+    void naoDeveRenovarForaDoEscopo() {
+        // Arrange
+        ReemissaoDeslizante desligada = reemissao(false, 100);
+        ReemissaoDeslizante ligada = reemissao(true, 100);
+        FilialTokenClaims cliente = new FilialTokenClaims("servico", Instant.ofEpochMilli(agora.get() + 60_000),
+                null, null, 1, true, 9);
+
+        // Act & Assert
+        assertThat(desligada.deveRenovar(token(1, 60_000))).isFalse();
+        assertThat(ligada.deveRenovar(token(0, 60_000))).isFalse();
+        assertThat(ligada.deveRenovar(cliente)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Com o mapa cheio deve liberar as sessões vencidas e, sem vaga, não renovar")
+    void deveLimitarMapa() {
+        // Arrange
+        ReemissaoDeslizante reemissao = reemissao(true, 2);
+        reemissao.deveRenovar(token(1, 1_000));
+        reemissao.deveRenovar(token(2, 60_000));
+
+        // Act & Assert
+        assertThat(reemissao.deveRenovar(token(3, 60_000))).isFalse();
+        agora.addAndGet(1_000);
+        assertThat(reemissao.deveRenovar(token(4, 60_000))).isTrue();
+    }
+
+    @Test
+    @DisplayName("O filtro deve devolver um token novo no header dentro da janela")
+    void filtroDeveDevolverTokenNovo() throws Exception {
+        // Arrange
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", "minha-chave-secreta-com-pelo-menos-32-caracteres-para-hmac");
+        ReflectionTestUtils.setField(jwtService, "expirationMillis", 300_000L);
+        FilialEntity filial = FilialEntity.builder()
+                .codigoFilial(7)
+                .nomeFilial("Filial Deslizante")
+                .login("deslizante@teste.com")
+                .senhaHash("hash")
+                .ativo(true)
+                .build();
+        FilialPrincipalCache cache = new FilialPrincipalCache(3_600_000);
+        cache.get(filial.getLogin(), () -> new FilialDetails(filial));
+        JwtAuthenticationFilter filtro = new JwtAuthenticationFilter(jwtService,
+                new FilialDetailsService(null, cache, null, null), new FilialAtividade(null, null), ObservationRegistry.NOOP,
+                new RegistroEventosSeguranca(new SimpleMeterRegistry(), 5, 10_000),
+                new ReemissaoDeslizante(true, JANELA, 100, new SimpleMeterRegistry(), System::currentTimeMillis));
+        String antigo = jwtService.generateToken(filial);
+
+        // Act
+        MockHttpServletResponse primeira = requisitar(filtro, antigo);
+        MockHttpServletResponse segunda = requisitar(filtro, antigo);
+
+        // Assert
+        String novo = primeira.getHeader(ReemissaoDeslizante.HEADER);
+        assertThat(novo).isNotNull().isNotEqualTo(antigo);
+        assertThat(jwtService.parseToken(novo).login()).isEqualTo("deslizante@teste.com");
+        assertThat(jwtService.parseToken(novo).sessao()).isNotEqualTo(jwtService.parseToken(antigo).sessao());
+        assertThat(segunda.getHeader(ReemissaoDeslizante.HEADER)).isNull();
+        assertThat(segunda.getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletResponse requisitar(JwtAuthenticationFilter filtro, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ferramentas");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filtro.doFilter(request, response, (req, res) -> { });
+        SecurityContextHolder.clearContext();
+        return response;
+    }
+}
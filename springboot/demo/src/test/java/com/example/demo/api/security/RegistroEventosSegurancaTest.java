@@ -0,0 +1,77 @@
+package com.example.demo.api.security;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RegistroEventosSegurancaTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ListAppender<ILoggingEvent> linhas = new ListAppender<>();
+    private final Logger logger = (Logger) LoggerFactory.getLogger(RegistroEventosSeguranca.LOGGER);
+    private RegistroEventosSeguranca registro;
+
+    @BeforeEach
+    void setUp() {
+        linhas.start();
+        logger.addAppender(linhas);
+        registro = new RegistroEventosSeguranca(meterRegistry, 3, 10_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(linhas);
+    }
+
+    @Test
+    @DisplayName("Deve limitar as linhas por motivo e resumir o restante no fim do intervalo")
+    void deveLimitarEResumir() {
+        // Arrange
+        ExpiredJwtException expirado = new ExpiredJwtException(null, null, "JWT expired; token eyJhbGciOiJIUzI1NiJ9.segredo");
+
+        // Act
+        for (int i = 0; i < 50; i++) {
+            registro.registrar(EventoSeguranca.TOKEN_EXPIRADO, expirado, "10.0.0.1");
+        }
+        registro.registrar(EventoSeguranca.FILIAL_INEXISTENTE, null, "10.0.0.2");
+        registro.resumir();
+
+        // Assert
+        assertThat(linhas.list).hasSize(3 + 1 + 1);
+        assertThat(linhas.list).last().extracting(ILoggingEvent::getFormattedMessage)
+                .isEqualTo("50 tokens expirados nos últimos 10s, 47 omitidos do log");
+        assertThat(linhas.list).extracting(ILoggingEvent::getFormattedMessage)
+                .noneMatch(linha -> linha.contains("eyJ") || linha.contains("segredo"));
+        assertThat(meterRegistry.get("auth.security.events").tag("motivo", "TOKEN_EXPIRADO").counter().count())
+                .isEqualTo(50.0);
+    }
+
+    @Test
+    @DisplayName("Deve reabrir o limite no intervalo seguinte")
+    void deveReabrirLimite() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            registro.registrar(EventoSeguranca.TOKEN_INVALIDO, null, "10.0.0.1");
+        }
+        registro.resumir();
+        linhas.list.clear();
+
+        // Act
+        registro.registrar(EventoSeguranca.TOKEN_INVALIDO, null, "10.0.0.1");
+        registro.resumir();
+
+        // Assert
+        assertThat(linhas.list).extracting(ILoggingEvent::getFormattedMessage)
+                .containsExactly("Requisição recusada: TOKEN_INVALIDO (-) ip=10.0.0.1");
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.demo.api.security;
+
+import com.example.demo.api.model.FilialEntity;
+import com.example.demo.api.repository.FilialRepository;
+import com.example.demo.api.service.FilialAtividade;
+import com.example.demo.api.service.FilialTokenClaims;
+import com.example.demo.api.service.JwtService;
+import com.example.demo.api.service.TokenOpacoStore;
+import com.example.verificador.Permissao;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Testes de estresse de concorrência dos componentes de segurança compartilhados entre threads:
+ * {@link JwtService} (chaves e verificador montados uma vez), {@link TokenOpacoStore},
+ * {@link FilialPrincipalCache} e o {@link JwtAuthenticationFilter} com o
+ * {@link SecurityContextHolder}.
+ * <p>
+ * Cada thread tem a própria filial e confere, em toda operação, que recebeu de volta exatamente a
+ * sua (login, código e permissões); qualquer troca entre requisições conta como falha. As threads
+ * largam juntas numa {@link CyclicBarrier} para maximizar a sobreposição. Ficam fora do
+ * {@code mvn test} (tag {@code stress}); rode com {@code ./mvnw -Pstress test}. A duração de cada
+ * cenário vem de {@code -Dstress.duracao-millis} (padrão 3000) e o número de threads de
+ * {@code -Dstress.threads} (padrão: 4 por núcleo, no mínimo 8).
+ */
+@Tag("stress")
+class SegurancaConcorrenciaStressTest {
+
+    private static final String SECRET = "minha-chave-secreta-com-pelo-menos-32-caracteres-para-hmac";
+    private static final long DURACAO_MILLIS = Long.getLong("stress.duracao-millis", 3_000);
+    private static final int NUCLEOS = Runtime.getRuntime().availableProcessors();
+    private static final int THREADS = Integer.getInteger("stress.threads", Math.max(8, NUCLEOS * 4));
+
+    private final Map<String, FilialEntity> banco = new ConcurrentHashMap<>();
+    private final List<FilialEntity> filiais = new ArrayList<>();
+    private final AtomicInteger cargasDoBanco = new AtomicInteger();
+    private JwtService jwtService;
+    private FilialPrincipalCache cache;
+    private JwtAuthenticationFilter filtro;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "expirationMillis", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "tokensOpacos",
+                new TokenOpacoStore(8 * 1024 * 1024, 0.75, new SimpleMeterRegistry()));
+
+        for (int i = 0; i < THREADS; i++) {
+            FilialEntity filial = FilialEntity.builder()
+                    .codigoFilial(1000 + i)
+                    .nomeFilial("Filial Estresse " + i)
+                    .login("estresse-" + i + "@teste.com")
+                    .senhaHash("hash-" + i)
+                    .ativo(true)
+                    .permissoes(i % (Permissao.TODAS + 1))
+                    .build();
+            filiais.add(filial);
+            banco.put(filial.getLogin(), filial);
+        }
+
+        cache = new FilialPrincipalCache(3_600_000);
+        FilialDetailsService detailsService = new FilialDetailsService(repositorio(), cache,
+                new SnapshotPrincipais(null, cache, null, false, Path.of("nao-usado.snap"), 0),
+                new ModoDegradado(5, 10_000, 900_000, new SimpleMeterRegistry()));
+        filtro = new JwtAuthenticationFilter(jwtService, detailsService, new FilialAtividade(null, null),
+                ObservationRegistry.NOOP, new RegistroEventosSeguranca(new SimpleMeterRegistry(), 5, 10_000),
+                new ReemissaoDeslizante(false, 0, 0, new SimpleMeterRegistry(), System::currentTimeMillis));
+    }
+
+    @Test
+    @DisplayName("Emissão e verificação de JWT e token opaco em paralelo devem devolver sempre a filial certa")
+    void emissaoEVerificacaoConcorrentes() throws Exception {
+        // Act
+        Resultado resultado = executar(THREADS, DURACAO_MILLIS, indice -> {
+            FilialEntity filial = filiais.get(indice);
+            boolean opaco = ThreadLocalRandom.current().nextInt(4) == 0;
+            String token = opaco ? jwtService.generateOpaqueToken(filial) : jwtService.generateToken(filial);
+            FilialTokenClaims claims = jwtService.parseToken(token);
+            boolean certo = filial.getCodigoFilial().equals(claims.filialId())
+                    && filial.getPermissoes().equals(claims.permissoes())
+                    && (opaco ? claims.login() == null : filial.getLogin().equals(claims.login())
+                    && jwtService.isTokenValid(claims, filial.getLogin()));
+            if (opaco) {
+                jwtService.revokeOpaqueToken(token);
+            }
+            return certo;
+        });
+
+        // Assert
+        registrar("emissao-verificacao", resultado);
+        assertThat(resultado.falhas()).isZero();
+        assertThat(resultado.operacoes()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Filtro compartilhado não deve vazar principal entre requisições, mesmo com o cache sendo invalidado")
+    void filtroSemVazamentoDePrincipal() throws Exception {
+        // Arrange
+        List<String> tokens = new ArrayList<>();
+        for (FilialEntity filial : filiais) {
+            tokens.add(jwtService.generateToken(filial));
+        }
+        AtomicBoolean rodando = new AtomicBoolean(true);
+        Thread invalidador = new Thread(() -> {
+            while (rodando.get()) {
+                FilialEntity filial = filiais.get(ThreadLocalRandom.current().nextInt(filiais.size()));
+                cache.invalidar(filial.getCodigoFilial(), filial.getLogin());
+                Thread.onSpinWait();
+            }
+        }, "estresse-invalidador");
+        invalidador.start();
+
+        // Act
+        Resultado resultado;
+        try {
+            resultado = executar(THREADS, DURACAO_MILLIS, indice -> {
+                FilialEntity filial = filiais.get(indice);
+                MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ferramentas");
+                request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + tokens.get(indice));
+                Authentication[] vista = new Authentication[1];
+                FilterChain chain = (req, res) -> vista[0] = SecurityContextHolder.getContext().getAuthentication();
+                try {
+                    filtro.doFilter(request, new MockHttpServletResponse(), chain);
+                } finally {
+                    // papel do SecurityContextHolderFilter no fim de cada requisição
+                    SecurityContextHolder.clearContext();
+                }
+                return vista[0] instanceof FilialAuthentication autenticacao
+                        && filial.getLogin().equals(autenticacao.getName())
+                        && filial.getCodigoFilial().equals(autenticacao.getPrincipal().getCodigoFilial())
+                        && autenticacao.getAuthorities().equals(PermissaoAuthorities.de(filial.getPermissoes()))
+                        && SecurityContextHolder.getContext().getAuthentication() == null;
+            });
+        } finally {
+            rodando.set(false);
+            invalidador.join();
+        }
+
+        // Assert
+        registrar("filtro-principal", resultado);
+        assertThat(resultado.falhas()).isZero();
+        assertThat(cargasDoBanco.get()).as("o invalidador deve forçar recargas").isGreaterThan(THREADS);
+    }
+
+    @Test
+    @DisplayName("Deve registrar a vazão de emissão e verificação de 1 a N threads")
+    void escalabilidade() throws Exception {
+        // Arrange
+        List<String> linhas = new ArrayList<>();
+        linhas.add("threads,operacoes_por_segundo,falhas");
+        long duracao = Math.max(500, DURACAO_MILLIS / 3);
+
+        Operacao emitirEVerificar = indice -> {
+            FilialEntity filial = filiais.get(indice);
+            return filial.getLogin().equals(jwtService.parseToken(jwtService.generateToken(filial)).login());
+        };
+        executar(1, duracao, emitirEVerificar); // aquecimento do JIT, descartado
+
+        // Act
+        for (int threads = 1; threads <= Math.max(NUCLEOS, 2); threads *= 2) {
+            Resultado resultado = executar(threads, duracao, emitirEVerificar);
+            linhas.add(threads + "," + resultado.porSegundo() + "," + resultado.falhas());
+            assertThat(resultado.falhas()).isZero();
+        }
+
+        // Assert
+        Path saida = Path.of("target", "stress", "escalabilidade.csv");
+        Files.createDirectories(saida.getParent());
+        Files.write(saida, linhas);
+        System.out.println("Vazão de emissão + verificação (" + NUCLEOS + " núcleos): " + String.join(" | ", linhas));
+        assertThat(linhas).hasSizeGreaterThan(1);
+    }
+
+    private Resultado executar(int threads, long duracaoMillis, Operacao operacao) throws Exception {
+        CyclicBarrier largada = new CyclicBarrier(threads);
+        AtomicLong operacoes = new AtomicLong();
+        AtomicLong falhas = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futuros = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int indice = t % filiais.size();
+                futuros.add(executor.submit(() -> {
+                    largada.await();
+                    long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(duracaoMillis);
+                    long feitas = 0;
+                    long erradas = 0;
+                    while (System.nanoTime() < limite) {
+                        try {
+                            if (!operacao.executar(indice)) {
+                                erradas++;
+                            }
+                        } catch (RuntimeException | IOException | ServletException ex) {
+                            erradas++;
+                        }
+                        feitas++;
+                    }
+                    operacoes.addAndGet(feitas);
+                    falhas.addAndGet(erradas);
+                    return null;
+                }));
+            }
+            for (Future<?> futuro : futuros) {
+                futuro.get(duracaoMillis + 30_000, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Resultado(threads, operacoes.get(), falhas.get(), duracaoMillis);
+    }
+
+    private static void registrar(String cenario, Resultado resultado) {
+        System.out.printf("[stress] %s: %d threads, %d operações, %d/s, %d falhas%n",
+                cenario, resultado.threads(), resultado.operacoes(), resultado.porSegundo(), resultado.falhas());
+    }
+
+    private FilialRepository repositorio() {
+        return (FilialRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{FilialRepository.class}, (proxy, metodo, args) -> {
+                    if ("findByLogin".equals(metodo.getName())) {
+                        cargasDoBanco.incrementAndGet();
+                        return Optional.ofNullable(banco.get((String) args[0]));
+                    }
+                    throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+
+    @FunctionalInterface
+    private interface Operacao {
+        boolean executar(int indice) throws IOException, ServletException;
+    }
+
+    private record Resultado(int threads, long operacoes, long falhas, long duracaoMillis) {
+
+        long porSegundo() {
+            return operacoes * 1000 / Math.max(1, duracaoMillis);
+        }
+    }
+}
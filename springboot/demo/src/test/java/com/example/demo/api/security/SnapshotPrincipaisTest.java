@@ -0,0 +1,174 @@
+package com.example.demo.api.security;
+
+import com.example.demo.api.model.FilialEntity;
+import com.example.demo.api.repository.FilialRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SnapshotPrincipaisTest {
+
+    private static final long UM_DIA = 86_400_000L;
+
+    @Autowired
+    private FilialRepository filialRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ModoDegradado modoDegradado;
+
+    @TempDir
+    Path diretorio;
+
+    private Path arquivo;
+    private FilialEntity filial;
+    private FilialPrincipalCache cache;
+
+    @BeforeEach
+    void prepararBanco() {
+        filialRepository.deleteAll();
+        filial = filialRepository.save(FilialEntity.builder()
+                .nomeFilial("Filial Snapshot")
+                .login("snapshot@test.com")
+                .senhaHash("hash-snapshot")
+                .ativo(true)
+                .permissoes(0b10011)
+                .build());
+        arquivo = diretorio.resolve("principais.snap");
+        cache = new FilialPrincipalCache(3_600_000);
+    }
+
+    @Test
+    @DisplayName("Deve responder pelo arquivo mapeado logo no start, sem consultar o banco")
+    void deveResponderPeloSnapshot() {
+        // Arrange
+        new SnapshotPrincipais(jdbcTemplate, cache, modoDegradado, true, arquivo, UM_DIA).gravar();
+        jdbcTemplate.update("DELETE FROM tb_filial");
+
+        // Act
+        SnapshotPrincipais reiniciado = new SnapshotPrincipais(jdbcTemplate, cache, modoDegradado, true, arquivo, UM_DIA);
+        FilialDetails details = reiniciado.buscar("snapshot@test.com");
+
+        // Assert
+        assertThat(reiniciado.isCarregado()).isTrue();
+        assertThat(details.getCodigoFilial()).isEqualTo(filial.getCodigoFilial());
+        assertThat(details.getNomeFilial()).isEqualTo("Filial Snapshot");
+        assertThat(details.getPassword()).isEqualTo("hash-snapshot");
+        assertThat(details.isEnabled()).isTrue();
+        assertThat(details.getPermissoes()).isEqualTo(0b10011);
+        assertThat(reiniciado.buscar("outra@test.com")).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve tirar do cache na reconciliação as filiais alteradas ou apagadas e parar de responder")
+    void deveReconciliarComBanco() throws InterruptedException {
+        // Arrange
+        FilialEntity apagada = filialRepository.save(FilialEntity.builder()
+                .nomeFilial("Filial Apagada")
+                .login("apagada@test.com")
+                .senhaHash("hash")
+                .ativo(true)
+                .build());
+        FilialEntity intacta = filialRepository.save(FilialEntity.builder()
+                .nomeFilial("Filial Intacta")
+                .login("intacta@test.com")
+                .senhaHash("hash")
+                .ativo(true)
+                .build());
+        new SnapshotPrincipais(jdbcTemplate, cache, modoDegradado, true, arquivo, UM_DIA).gravar();
+        Thread.sleep(5);
+        filial.setAtivo(false);
+        filialRepository.save(filial);
+        filialRepository.delete(apagada);
+        SnapshotPrincipais reiniciado = new SnapshotPrincipais(jdbcTemplate, cache, modoDegradado, true, arquivo, UM_DIA);
+        for (String login : new String[]{"snapshot@test.com", "apagada@test.com", "intacta@test.com"}) {
+            cache.get(login, () -> reiniciado.buscar(login));
+        }
+
+        // Act
+        int alteradas = reiniciado.reconciliar();
+
+        // Assert
+        assertThat(alteradas).isEqualTo(2);
+        assertThat(cache.loginDe(filial.getCodigoFilial())).isNull();
+        assertThat(cache.loginDe(apagada.getCodigoFilial())).isNull();
+        assertThat(cache.loginDe(intacta.getCodigoFilial())).isEqualTo("intacta@test.com");
+        assertThat(reiniciado.isReconciliado()).isTrue();
+        assertThat(reiniciado.buscar(intacta.getLogin())).isNull();
+    }
+
+    @Test
+    @DisplayName("Antes da reconciliação, filial já carregada do banco não volta a ser lida do arquivo")
+    void naoDeveResponderDepoisDaCargaPeloBanco() {
+        // Arrange
+        new SnapshotPrincipais(jdbcTemplate, cache, modoDegradado, true, arquivo, UM_DIA).gravar();
+        filial.setAtivo(false);
+        filialRepository.save(filial);
+        SnapshotPrincipais reiniciado = new SnapshotPrincipais(jdbcTemplate, cache, modoDegradado, true, arquivo, UM_DIA);
+        FilialDetailsService detailsService = new FilialDetailsService(filialRepository, cache, reiniciado, modoDegradado);
+
+        // Act
+        FilialDetails doBanco = detailsService.loadByCodigoFilial(filial.getCodigoFilial());
+        cache.invalidar(filial.getCodigoFilial(), filial.getLogin());
+        FilialDetails recarregado = detailsService.loadUserByUsername(filial.getLogin());
+
+        // Assert
+        assertThat(reiniciado.isReconciliado()).isFalse();
+        assertThat(doBanco.isEnabled()).isFalse();
+        assertThat(reiniciado.buscar(filial.getLogin())).isNull();
+        assertThat(recarregado.isEnabled()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve esquecer o descarte quando um snapshot gravado depois dele inclui a filial")
+    void deveLimparDescartesNoProximoSnapshot() {
+        // Arrange
+        SnapshotPrincipais snapshot = new SnapshotPrincipais(jdbcTemplate, cache, modoDegradado, true, arquivo, UM_DIA);
+        snapshot.gravar();
+        snapshot.descartar(filial.getCodigoFilial());
+        FilialDetails descartada = snapshot.buscar(filial.getLogin());
+
+        // Act
+        snapshot.gravar();
+
+        // Assert
+        assertThat(descartada).isNull();
+        assertThat(snapshot.buscar(filial.getLogin())).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Deve ignorar snapshot corrompido ou velho demais")
+    void deveIgnorarSnapshotInvalido() throws Exception {
+        // Arrange
+        new SnapshotPrincipais(jdbcTemplate, cache, modoDegradado, true, arquivo, UM_DIA).gravar();
+        byte[] bytes = Files.readAllBytes(arquivo);
+        bytes[bytes.length - 1] ^= 0x7F;
+        Path corrompido = diretorio.resolve("corrompido.snap");
+        Files.write(corrompido, bytes);
+
+        // Act
+        SnapshotPrincipais comCorrompido = new SnapshotPrincipais(jdbcTemplate, cache, modoDegradado, true, corrompido, UM_DIA);
+        SnapshotPrincipais comVelho = new SnapshotPrincipais(jdbcTemplate, cache, modoDegradado, true, arquivo, -1);
+
+        // Assert
+        assertThat(comCorrompido.isCarregado()).isFalse();
+        assertThat(comVelho.isCarregado()).isFalse();
+        assertThat(comCorrompido.buscar("snapshot@test.com")).isNull();
+    }
+}
@@ -5,6 +5,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.Instant;
@@ -13,6 +15,12 @@ import java.util.Optional;
 import com.example.demo.api.dto.LoginResponse;
 import com.example.demo.api.model.FilialEntity;
 import com.example.demo.api.repository.FilialRepository;
+import com.example.demo.api.security.BancoIndisponivelException;
+import com.example.demo.api.security.FilialDetails;
+import com.example.demo.api.security.FilialDetailsService;
+import com.example.demo.api.security.ModoDegradado;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -20,10 +28,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.server.ResponseStatusException;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,6 +49,21 @@ class AuthServiceTest {
     @Mock
     private JwtService jwtService;
 
+    @Mock
+    private LoginAuditoria loginAuditoria;
+
+    @Mock
+    private FilialAtividade filialAtividade;
+
+    @Spy
+    private ObservationRegistry observationRegistry = ObservationRegistry.create();
+
+    @Spy
+    private ModoDegradado modoDegradado = new ModoDegradado(5, 10_000, 900_000, new SimpleMeterRegistry());
+
+    @Mock
+    private FilialDetailsService filialDetailsService;
+
     @InjectMocks
     private AuthService authService;
 
@@ -238,4 +264,119 @@ class AuthServiceTest {
                     .hasMessageContaining("Login ou senha invalidos");
         }
     }
+
+    @Nested
+    @DisplayName("Testes de auditoria de login")
+    class Auditoria {
+
+        @Test
+        @DisplayName("Deve registrar sucesso com filial e IP de origem")
+        void deveRegistrarSucesso() {
+            // Arrange
+            LoginRequest request = new LoginRequest("filial@teste.com", "senhaCorreta");
+
+            when(filialRepository.findByLogin("filial@teste.com")).thenReturn(Optional.of(filialAtiva));
+            when(passwordEncoder.matches("senhaCorreta", "hashedPassword")).thenReturn(true);
+            when(jwtService.generateToken(filialAtiva)).thenReturn("token");
+            when(jwtService.extractExpirationInstant("token")).thenReturn(Instant.now());
+
+            // Act
+            authService.autenticar(request, "10.0.0.1");
+
+            // Assert
+            ArgumentCaptor<EventoLogin> evento = ArgumentCaptor.forClass(EventoLogin.class);
+            verify(loginAuditoria).registrar(evento.capture());
+            assertThat(evento.getValue().codigoFilial()).isEqualTo(1);
+            assertThat(evento.getValue().resultado()).isEqualTo(EventoLogin.Resultado.SUCESSO);
+            assertThat(evento.getValue().motivo()).isEqualTo(EventoLogin.Motivo.OK);
+            assertThat(evento.getValue().ipOrigem()).isEqualTo("10.0.0.1");
+        }
+
+        @Test
+        @DisplayName("Deve registrar negação com o motivo da falha")
+        void deveRegistrarNegacaoComMotivo() {
+            // Arrange
+            LoginRequest request = new LoginRequest("filial@teste.com", "senhaErrada");
+
+            when(filialRepository.findByLogin("filial@teste.com")).thenReturn(Optional.of(filialAtiva));
+            when(passwordEncoder.matches("senhaErrada", "hashedPassword")).thenReturn(false);
+
+            // Act
+            assertThatThrownBy(() -> authService.autenticar(request, "10.0.0.2"))
+                    .isInstanceOf(ResponseStatusException.class);
+
+            // Assert
+            ArgumentCaptor<EventoLogin> evento = ArgumentCaptor.forClass(EventoLogin.class);
+            verify(loginAuditoria).registrar(evento.capture());
+            assertThat(evento.getValue().codigoFilial()).isEqualTo(1);
+            assertThat(evento.getValue().resultado()).isEqualTo(EventoLogin.Resultado.NEGADO);
+            assertThat(evento.getValue().motivo()).isEqualTo(EventoLogin.Motivo.SENHA_INVALIDA);
+        }
+
+        @Test
+        @DisplayName("Deve registrar login inexistente sem filial")
+        void deveRegistrarLoginInexistente() {
+            // Arrange
+            LoginRequest request = new LoginRequest("inexistente@teste.com", "senha");
+
+            when(filialRepository.findByLogin("inexistente@teste.com")).thenReturn(Optional.empty());
+
+            // Act
+            assertThatThrownBy(() -> authService.autenticar(request, "10.0.0.3"))
+                    .isInstanceOf(ResponseStatusException.class);
+
+            // Assert
+            ArgumentCaptor<EventoLogin> evento = ArgumentCaptor.forClass(EventoLogin.class);
+            verify(loginAuditoria).registrar(evento.capture());
+            assertThat(evento.getValue().codigoFilial()).isNull();
+            assertThat(evento.getValue().motivo()).isEqualTo(EventoLogin.Motivo.LOGIN_INEXISTENTE);
+        }
+    }
+
+    @Nested
+    @DisplayName("Testes de login com o banco indisponível")
+    class BancoIndisponivel {
+
+        @Test
+        @DisplayName("Deve autenticar pelo principal em cache quando o banco não responde")
+        void deveAutenticarPeloCache() {
+            // Arrange
+            LoginRequest request = new LoginRequest("filial@teste.com", "senhaCorreta");
+            when(filialRepository.findByLogin("filial@teste.com"))
+                    .thenThrow(new CannotCreateTransactionException("pool esgotado"));
+            when(filialDetailsService.obsoleto(eq("filial@teste.com"), eq(true), any(BancoIndisponivelException.class)))
+                    .thenReturn(new FilialDetails(filialAtiva));
+            when(passwordEncoder.matches("senhaCorreta", "hashedPassword")).thenReturn(true);
+            when(jwtService.generateToken(any())).thenReturn("token");
+            when(jwtService.extractExpirationInstant("token")).thenReturn(Instant.now());
+
+            // Act
+            LoginResponse response = authService.autenticar(request);
+
+            // Assert
+            assertThat(response.token()).isEqualTo("token");
+            ArgumentCaptor<FilialEntity> filial = ArgumentCaptor.forClass(FilialEntity.class);
+            verify(jwtService).generateToken(filial.capture());
+            assertThat(filial.getValue().getCodigoFilial()).isEqualTo(1);
+            assertThat(filial.getValue().getLogin()).isEqualTo("filial@teste.com");
+        }
+
+        @Test
+        @DisplayName("Deve responder 503 quando a filial não está em cache")
+        void deveResponder503SemCache() {
+            // Arrange
+            LoginRequest request = new LoginRequest("filial@teste.com", "senhaCorreta");
+            when(filialRepository.findByLogin("filial@teste.com"))
+                    .thenThrow(new CannotCreateTransactionException("pool esgotado"));
+            when(filialDetailsService.obsoleto(eq("filial@teste.com"), eq(true), any(BancoIndisponivelException.class)))
+                    .thenAnswer(invocacao -> {
+                        throw invocacao.getArgument(2, BancoIndisponivelException.class);
+                    });
+
+            // Act & Assert
+            assertThatThrownBy(() -> authService.autenticar(request))
+                    .isInstanceOf(BancoIndisponivelException.class)
+                    .satisfies(ex -> assertThat(((ResponseStatusException) ex).getStatusCode().value()).isEqualTo(503));
+        }
+    }
 }
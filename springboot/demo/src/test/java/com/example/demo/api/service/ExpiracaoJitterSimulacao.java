@@ -0,0 +1,103 @@
+package com.example.demo.api.service;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Simula um dia de logins da rede: todas as filiais entram na abertura das lojas (espalhadas em
+ * {@code aberturaMillis}) e cada uma loga de novo em {@link JwtService#renovarEm} ou, com a janela
+ * desligada, quando o token vence. A validade e a renovação vêm do próprio {@link JwtService}, então
+ * o resultado reflete a configuração de {@code expiration-jitter-millis} e
+ * {@code renewal-window-millis}.
+ * <p>
+ * O pico da abertura não depende do token; o que interessa é o pico de re-login nas horas seguintes,
+ * que com validade fixa repete o da abertura a cada {@code expiration-millis}.
+ * <p>
+ * Não roda no {@code mvn test} (o {@code JwtServiceTest} usa só {@link #simular}). Para executar:
+ * <pre>
+ * ./mvnw -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *      com.example.demo.api.service.ExpiracaoJitterSimulacao [filiais]
+ * </pre>
+ */
+public final class ExpiracaoJitterSimulacao {
+
+    private static final String SECRET = "minha-chave-secreta-com-pelo-menos-32-caracteres-para-hmac";
+    private static final long MINUTO = 60_000;
+    private static final long HORA = 60 * MINUTO;
+
+    private ExpiracaoJitterSimulacao() {
+    }
+
+    /**
+     * Pico de logins por minuto e por segundo depois da onda de abertura.
+     */
+    record Resultado(long jitterMillis, long janelaMillis, int logins, int picoPorMinuto, int picoPorSegundo) {
+    }
+
+    public static void main(String[] args) {
+        int filiais = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        System.out.printf("%d filiais, abertura em 2 min, validade 1 h, 10 h de operação%n%n", filiais);
+        System.out.printf("%-12s %-12s %10s %14s %14s%n", "jitter", "janela", "logins", "pico/min", "pico/s");
+        long[][] cenarios = {{0, 0}, {5 * MINUTO, 0}, {15 * MINUTO, 0}, {0, 10 * MINUTO}, {15 * MINUTO, 5 * MINUTO}};
+        for (long[] cenario : cenarios) {
+            Resultado r = simular(jwtService(HORA, cenario[0], cenario[1]), filiais, 2 * MINUTO, 10 * HORA);
+            System.out.printf("%-12s %-12s %10d %14d %14d%n", minutos(r.jitterMillis()), minutos(r.janelaMillis()),
+                    r.logins(), r.picoPorMinuto(), r.picoPorSegundo());
+        }
+    }
+
+    static JwtService jwtService(long validadeMillis, long jitterMillis, long janelaMillis) {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "expirationMillis", validadeMillis);
+        ReflectionTestUtils.setField(jwtService, "expirationJitterMillis", jitterMillis);
+        ReflectionTestUtils.setField(jwtService, "renewalWindowMillis", janelaMillis);
+        return jwtService;
+    }
+
+    /**
+     * Roda {@code duracaoMillis} de operação com {@code filiais} filiais e conta os re-logins (os
+     * logins depois do primeiro de cada filial) por minuto e por segundo.
+     */
+    static Resultado simular(JwtService jwtService, int filiais, long aberturaMillis, long duracaoMillis) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        PriorityQueue<long[]> agenda = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        for (int i = 0; i < filiais; i++) {
+            agenda.add(new long[]{random.nextLong(aberturaMillis), 0});
+        }
+        int[] porMinuto = new int[(int) (duracaoMillis / MINUTO) + 1];
+        int[] porSegundo = new int[(int) (duracaoMillis / 1_000) + 1];
+        int logins = 0;
+        long[] login;
+        while ((login = agenda.poll()) != null && login[0] < duracaoMillis) {
+            long agora = login[0];
+            if (login[1] > 0) {
+                porMinuto[(int) (agora / MINUTO)]++;
+                porSegundo[(int) (agora / 1_000)]++;
+                logins++;
+            }
+            Instant expiraEm = Instant.ofEpochMilli(agora + jwtService.validade());
+            Instant renovarEm = jwtService.renovarEm(expiraEm);
+            agenda.add(new long[]{(renovarEm == null ? expiraEm : renovarEm).toEpochMilli(), login[1] + 1});
+        }
+        return new Resultado((long) ReflectionTestUtils.getField(jwtService, "expirationJitterMillis"),
+                (long) ReflectionTestUtils.getField(jwtService, "renewalWindowMillis"),
+                logins, maximo(porMinuto), maximo(porSegundo));
+    }
+
+    private static int maximo(int[] contagens) {
+        int maximo = 0;
+        for (int contagem : contagens) {
+            maximo = Math.max(maximo, contagem);
+        }
+        return maximo;
+    }
+
+    private static String minutos(long millis) {
+        return millis == 0 ? "-" : millis / MINUTO + " min";
+    }
+}
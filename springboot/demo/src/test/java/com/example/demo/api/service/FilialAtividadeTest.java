@@ -0,0 +1,131 @@
+package com.example.demo.api.service;
+
+import com.example.demo.api.model.FilialEntity;
+import com.example.demo.api.repository.FilialRepository;
+import com.example.demo.api.security.BancoIndisponivelException;
+import com.example.demo.api.security.ModoDegradado;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class FilialAtividadeTest {
+
+    @Autowired
+    private FilialRepository filialRepository;
+
+    @Autowired
+    private FilialAtividade filialAtividade;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private FilialEntity filial;
+
+    @BeforeEach
+    void prepararBanco() {
+        filialAtividade.descarregar();
+        filialRepository.deleteAll();
+        filial = filialRepository.save(FilialEntity.builder()
+                .nomeFilial("Filial Atividade")
+                .login("atividade@test.com")
+                .senhaHash("hash")
+                .ativo(true)
+                .build());
+    }
+
+    @Test
+    @DisplayName("Deve gravar último login e acesso num único descarregamento")
+    void deveGravarUltimoLoginEAcesso() throws InterruptedException {
+        // Arrange
+        Object atualizadoAntes = linha().get("atualizado_em");
+        Thread.sleep(5);
+        for (int i = 0; i < 1000; i++) {
+            filialAtividade.registrarAcesso(filial.getCodigoFilial());
+        }
+        filialAtividade.registrarLogin(filial.getCodigoFilial());
+
+        // Act
+        int atualizadas = filialAtividade.descarregar();
+
+        // Assert
+        Map<String, Object> linha = linha();
+        assertThat(atualizadas).isEqualTo(1);
+        assertThat(linha.get("ultimo_login")).isNotNull();
+        assertThat(linha.get("ultimo_acesso")).isNotNull();
+        assertThat(linha.get("atualizado_em")).isEqualTo(atualizadoAntes);
+        assertThat(filialAtividade.pendentes()).isZero();
+    }
+
+    @Test
+    @DisplayName("Não deve voltar o último login gravado por outra réplica")
+    void naoDeveVoltarUltimoLogin() {
+        // Arrange
+        Timestamp futuro = Timestamp.valueOf("2099-01-01 00:00:00");
+        jdbcTemplate.update("UPDATE tb_filial SET ultimo_login = ? WHERE codigo_filial = ?",
+                futuro, filial.getCodigoFilial());
+        filialAtividade.registrarLogin(filial.getCodigoFilial());
+
+        // Act
+        filialAtividade.descarregar();
+
+        // Assert
+        Map<String, Object> linha = linha();
+        assertThat(linha.get("ultimo_login")).isEqualTo(futuro);
+        assertThat(linha.get("ultimo_acesso")).isNull();
+    }
+
+    @Test
+    @DisplayName("Não deve escrever nada sem atividade pendente")
+    void naoDeveEscreverSemAtividade() {
+        // Act
+        int atualizadas = filialAtividade.descarregar();
+
+        // Assert
+        assertThat(atualizadas).isZero();
+        assertThat(linha().get("ultimo_login")).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve pular o ciclo agendado com o disjuntor do banco aberto")
+    void devePularCicloComDisjuntorAberto() {
+        // Arrange
+        JdbcTemplate semBanco = mock(JdbcTemplate.class);
+        ModoDegradado modoDegradado = new ModoDegradado(1, 10_000, 900_000, new SimpleMeterRegistry());
+        assertThatThrownBy(() -> modoDegradado.executar(() -> {
+            throw new DataAccessResourceFailureException("Communications link failure");
+        })).isInstanceOf(BancoIndisponivelException.class);
+        FilialAtividade atividade = new FilialAtividade(semBanco, modoDegradado);
+        atividade.registrarLogin(filial.getCodigoFilial());
+
+        // Act
+        atividade.agendado();
+
+        // Assert
+        verifyNoInteractions(semBanco);
+        assertThat(atividade.pendentes()).isEqualTo(1);
+    }
+
+    private Map<String, Object> linha() {
+        return jdbcTemplate.queryForMap(
+                "SELECT ultimo_login, ultimo_acesso, atualizado_em FROM tb_filial WHERE codigo_filial = ?",
+                filial.getCodigoFilial());
+    }
+}
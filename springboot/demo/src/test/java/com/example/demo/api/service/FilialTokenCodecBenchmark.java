@@ -0,0 +1,121 @@
+package com.example.demo.api.service;
+
+import com.example.demo.api.model.FilialEntity;
+import com.example.verificador.ClaimsToken;
+import com.example.verificador.VerificadorToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara a verificação de token antiga (parser do jjwt montado a cada chamada, como fazia o
+ * {@code extractClaim} original), o jjwt com parser reaproveitado, o {@link VerificadorToken} do
+ * módulo {@code verificador-token} e o {@link FilialTokenCodec} que o {@link JwtService} usa sobre ele.
+ * <p>
+ * Não roda no {@code mvn test}. Para executar:
+ * <pre>
+ * ./mvnw -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *      com.example.demo.api.service.FilialTokenCodecBenchmark
+ * </pre>
+ * Com a configuração abaixo (3 forks, 5 × 2 s de aquecimento e 5 × 2 s de medição), JDK 17.0.9, 1 vCPU:
+ * <pre>
+ * jjwtParserPorChamada     128200 ± 16165 ns/op
+ * jjwtParserReaproveitado    4546 ±   670 ns/op
+ * verificadorToken           1437 ±   341 ns/op
+ * codec                      1801 ±   389 ns/op
+ * jwtServiceExtractLogin     1963 ±   276 ns/op
+ * </pre>
+ * O codec é o verificador mais a conversão para {@link FilialTokenClaims}; a diferença fica dentro
+ * do erro da medição. O {@code extractLogin} soma o teste de handle opaco e de sessão descartada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+public class FilialTokenCodecBenchmark {
+
+    private static final String SECRET = "minha-chave-secreta-com-pelo-menos-32-caracteres-para-hmac";
+
+    private String token;
+    private Key key;
+    private JwtParser parser;
+    private VerificadorToken verificador;
+    private FilialTokenCodec codec;
+    private JwtService jwtService;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "expirationMillis", 3600000L);
+        token = jwtService.generateToken(FilialEntity.builder()
+                .codigoFilial(42)
+                .nomeFilial("Filial Centro")
+                .login("centro@loja.com")
+                .build());
+
+        byte[] keyBytes = SECRET.getBytes(StandardCharsets.UTF_8);
+        key = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+        verificador = new VerificadorToken(keyBytes, 0, System::currentTimeMillis);
+        codec = new FilialTokenCodec(keyBytes, System::currentTimeMillis);
+    }
+
+    @Benchmark
+    public String jjwtParserPorChamada() {
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+        return claims.getSubject();
+    }
+
+    @Benchmark
+    public String jjwtParserReaproveitado() {
+        return parser.parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public ClaimsToken verificadorToken() {
+        return verificador.verificar(token);
+    }
+
+    @Benchmark
+    public FilialTokenClaims codec() {
+        return codec.decode(token);
+    }
+
+    @Benchmark
+    public String jwtServiceExtractLogin() {
+        return jwtService.extractLogin(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FilialTokenCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
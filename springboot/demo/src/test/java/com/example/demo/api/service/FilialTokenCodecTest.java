@@ -0,0 +1,181 @@
+package com.example.demo.api.service;
+
+import com.example.demo.api.model.FilialEntity;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilialTokenCodecTest {
+
+    private static final String SECRET = "minha-chave-secreta-com-pelo-menos-32-caracteres-para-hmac";
+
+    private final AtomicLong agora = new AtomicLong();
+    private JwtService jwtService;
+    private FilialTokenCodec codec;
+    private FilialEntity filial;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "expirationMillis", 3600000L);
+        agora.set(System.currentTimeMillis());
+        codec = new FilialTokenCodec(SECRET.getBytes(StandardCharsets.UTF_8), agora::get);
+
+        filial = FilialEntity.builder()
+                .codigoFilial(7)
+                .nomeFilial("Filial São João \"Centro\"")
+                .login("filial@teste.com")
+                .senhaHash("hash")
+                .ativo(true)
+                .permissoes(0b0101)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("Tokens emitidos pelo JwtService")
+    class TokensProprios {
+
+        @Test
+        @DisplayName("Deve decodificar as claims sem passar pelo jjwt")
+        void deveDecodificarClaims() {
+            // Arrange
+            String token = jwtService.generateToken(filial);
+
+            // Act
+            FilialTokenClaims claims = codec.decode(token);
+
+            // Assert
+            assertThat(claims).isNotNull();
+            assertThat(claims.login()).isEqualTo("filial@teste.com");
+            assertThat(claims.filialId()).isEqualTo(7);
+            assertThat(claims.nome()).isEqualTo("Filial São João \"Centro\"");
+            assertThat(claims.permissoes()).isEqualTo(0b0101);
+            assertThat(claims.expiraEm()).isEqualTo(jwtService.extractExpirationInstant(token));
+        }
+
+        @Test
+        @DisplayName("Deve produzir o mesmo resultado que o caminho do jjwt")
+        void deveConcordarComJjwt() {
+            // Arrange
+            String token = jwtService.generateToken(filial);
+            Key key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+            var body = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+
+            // Act
+            FilialTokenClaims claims = codec.decode(token);
+
+            // Assert
+            assertThat(claims.login()).isEqualTo(body.getSubject());
+            assertThat(claims.expiraEm()).isEqualTo(body.getExpiration().toInstant());
+            assertThat(claims.filialId()).isEqualTo(body.get("filialId", Integer.class));
+            assertThat(claims.nome()).isEqualTo(body.get("nome", String.class));
+            assertThat(claims.permissoes()).isEqualTo(body.get("perm", Integer.class));
+        }
+
+        @Test
+        @DisplayName("Deve decodificar token de cliente de serviço com o escopo")
+        void deveDecodificarTokenDeCliente() {
+            // Arrange
+            String token = jwtService.generateClientToken("api-loja", 0b0101, 300000);
+
+            // Act
+            FilialTokenClaims claims = codec.decode(token);
+
+            // Assert
+            assertThat(claims).isNotNull();
+            assertThat(claims.cliente()).isTrue();
+            assertThat(claims.login()).isEqualTo("api-loja");
+            assertThat(claims.filialId()).isNull();
+            assertThat(claims.permissoes()).isEqualTo(0b0101);
+            assertThat(jwtService.isTokenValid(claims, "api-loja")).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Tokens que devem cair no jjwt")
+    class Fallback {
+
+        @Test
+        @DisplayName("Deve recusar assinatura adulterada")
+        void deveRecusarAssinaturaAdulterada() {
+            // Arrange
+            String token = jwtService.generateToken(filial);
+            char ultimo = token.charAt(token.length() - 2);
+            String adulterado = token.substring(0, token.length() - 2)
+                    + (ultimo == 'A' ? 'B' : 'A')
+                    + token.charAt(token.length() - 1);
+
+            // Act & Assert
+            assertThat(codec.decode(adulterado)).isNull();
+        }
+
+        @Test
+        @DisplayName("Deve recusar token expirado")
+        void deveRecusarTokenExpirado() {
+            // Arrange
+            String token = jwtService.generateToken(filial);
+            agora.addAndGet(7_200_000);
+
+            // Act & Assert
+            assertThat(codec.decode(token)).isNull();
+        }
+
+        @Test
+        @DisplayName("Deve deixar para o jjwt o token de filial sem perm")
+        void deveDeixarSemPermParaJjwt() {
+            // Arrange
+            Key key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+            String token = Jwts.builder()
+                    .setClaims(Map.of("filialId", 7, "nome", "Filial"))
+                    .setSubject("filial@teste.com")
+                    .setExpiration(new Date(agora.get() + 60000))
+                    .signWith(key, SignatureAlgorithm.HS256)
+                    .compact();
+
+            // Act & Assert
+            assertThat(codec.decode(token)).isNull();
+            assertThat(jwtService.parseToken(token).permissoes()).isNull();
+        }
+
+        @Test
+        @DisplayName("Deve recusar claims desconhecidas")
+        void deveRecusarClaimsDesconhecidas() {
+            // Arrange
+            Key key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+            String token = Jwts.builder()
+                    .setClaims(Map.of("roles", "admin"))
+                    .setSubject("filial@teste.com")
+                    .setExpiration(new Date(agora.get() + 60000))
+                    .signWith(key, SignatureAlgorithm.HS256)
+                    .compact();
+
+            // Act & Assert
+            assertThat(codec.decode(token)).isNull();
+            assertThat(jwtService.extractLogin(token)).isEqualTo("filial@teste.com");
+        }
+
+        @Test
+        @DisplayName("Deve recusar entradas que não são JWT")
+        void deveRecusarEntradasInvalidas() {
+            assertThat(codec.decode(null)).isNull();
+            assertThat(codec.decode("")).isNull();
+            assertThat(codec.decode("token-invalido")).isNull();
+            assertThat(codec.decode("eyJhbGciOiJIUzI1NiJ9.payload.assinatura")).isNull();
+            assertThat(codec.decode("eyJhbGciOiJIUzI1NiJ9.e30.")).isNull();
+        }
+    }
+}
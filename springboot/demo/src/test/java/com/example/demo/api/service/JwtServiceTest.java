@@ -1,8 +1,15 @@
 package com.example.demo.api.service;
 
 import com.example.demo.api.model.FilialEntity;
+import com.example.verificador.Permissao;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -11,7 +18,11 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -124,6 +135,56 @@ class JwtServiceTest {
             // Assert
             assertThat(expiration).isEqualTo(EXPIRATION_MILLIS);
         }
+
+        @Test
+        @DisplayName("Deve aceitar pelo jjwt token assinado fora do formato do verificador")
+        void deveAceitarTokenForaDoFormatoPeloJjwt() {
+            // Arrange - claim extra que o VerificadorToken recusa
+            String token = assinar(Jwts.builder().setSubject("filial@teste.com").setIssuer("outro-emissor")
+                    .claim("filialId", 1).claim("perm", Permissao.MATERIAL_LEITURA.bit()));
+
+            // Act
+            FilialTokenClaims claims = jwtService.parseToken(token);
+
+            // Assert
+            assertThat(claims.login()).isEqualTo("filial@teste.com");
+            assertThat(claims.permissoes()).isEqualTo(Permissao.MATERIAL_LEITURA.bit());
+        }
+
+        @Test
+        @DisplayName("Token de filial sem a claim perm deve ficar sem permissões no token, para valerem as do banco")
+        void deveManterPermissoesNulasSemClaimPerm() {
+            // Arrange
+            String token = assinar(Jwts.builder().setSubject("filial@teste.com").claim("filialId", 1));
+
+            // Act
+            FilialTokenClaims claims = jwtService.parseToken(token);
+
+            // Assert
+            assertThat(claims.filialId()).isEqualTo(1);
+            assertThat(claims.permissoes()).isNull();
+        }
+
+        @Test
+        @DisplayName("JWT sem sub não deve ser lido como token opaco")
+        void naoDeveTratarJwtSemSubComoOpaco() {
+            // Arrange
+            String token = assinar(Jwts.builder().claim("filialId", 1).claim("perm", Permissao.PADRAO));
+
+            // Act
+            FilialTokenClaims claims = jwtService.parseToken(token);
+
+            // Assert
+            assertThat(claims.login()).isNull();
+            assertThat(claims.filialId()).isEqualTo(1);
+            assertThat(claims.opaco()).isFalse();
+        }
+
+        private String assinar(JwtBuilder builder) {
+            return builder.setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                    .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                    .compact();
+        }
     }
 
     @Nested
@@ -274,4 +335,145 @@ class JwtServiceTest {
                 "eyJhbGciOiJIUzI1NiJ9.payload.assinatura"
         );
     }
+
+    @Nested
+    @DisplayName("Testes de sessão (jti)")
+    class Sessao {
+
+        @Test
+        @DisplayName("Deve gerar jti diferente a cada token")
+        void deveGerarJtiUnico() {
+            // Act
+            FilialTokenClaims primeiro = jwtService.parseToken(jwtService.generateToken(filial));
+            FilialTokenClaims segundo = jwtService.parseToken(jwtService.generateToken(filial));
+
+            // Assert
+            assertThat(primeiro.sessao()).isNotZero();
+            assertThat(segundo.sessao()).isNotEqualTo(primeiro.sessao());
+        }
+
+        @Test
+        @DisplayName("Deve recusar o token cuja sessão foi descartada pelo limite")
+        void deveRecusarSessaoDescartada() {
+            // Arrange
+            RegistroSessoes sessoes = new RegistroSessoes(1, RegistroSessoes.Politica.DESCARTAR_MAIS_ANTIGA, 60_000,
+                    new SimpleMeterRegistry(), System::currentTimeMillis, sessao -> { });
+            ReflectionTestUtils.setField(jwtService, "sessoes", sessoes);
+            String antigo = jwtService.generateToken(filial);
+
+            // Act
+            String novo = jwtService.generateToken(filial);
+
+            // Assert
+            assertThatThrownBy(() -> jwtService.parseToken(antigo)).isInstanceOf(JwtException.class);
+            assertThat(jwtService.parseToken(novo).login()).isEqualTo("filial@teste.com");
+            assertThat(sessoes.ativas(1)).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Token sem sessão não deve ocupar vaga nem derrubar a sessão da filial")
+        void naoDeveRegistrarTokenSemSessao() {
+            // Arrange
+            RegistroSessoes sessoes = new RegistroSessoes(1, RegistroSessoes.Politica.REJEITAR, 60_000,
+                    new SimpleMeterRegistry(), System::currentTimeMillis, sessao -> { });
+            ReflectionTestUtils.setField(jwtService, "sessoes", sessoes);
+            String login = jwtService.generateToken(filial);
+
+            // Act
+            String semSessao = jwtService.generateUntrackedToken(filial);
+
+            // Assert
+            assertThat(jwtService.isTokenValid(semSessao, "filial@teste.com")).isTrue();
+            assertThat(jwtService.parseToken(login).login()).isEqualTo("filial@teste.com");
+            assertThat(sessoes.ativas(1)).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Token opaco de filial sem permissões gravadas deve valer só o padrão, sem ADMIN")
+        void deveUsarPermissoesPadraoNoTokenOpaco() {
+            // Arrange
+            ReflectionTestUtils.setField(jwtService, "tokensOpacos",
+                    new TokenOpacoStore(64 * 1024, 0.75, new SimpleMeterRegistry()));
+            filial.setPermissoes(null);
+
+            // Act
+            FilialTokenClaims claims = jwtService.parseToken(jwtService.generateOpaqueToken(filial));
+
+            // Assert
+            assertThat(claims.opaco()).isTrue();
+            assertThat(claims.permissoes()).isEqualTo(Permissao.PADRAO);
+            assertThat(Permissao.ADMIN.presenteEm(claims.permissoes())).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Testes de jitter na expiração")
+    class JitterExpiracao {
+
+        @Test
+        @DisplayName("Deve sortear a validade sem passar da configurada")
+        void deveSortearValidadeDentroDoJitter() {
+            // Arrange
+            ReflectionTestUtils.setField(jwtService, "expirationJitterMillis", 600_000L);
+
+            // Act
+            Set<Long> validades = new HashSet<>();
+            for (int i = 0; i < 200; i++) {
+                validades.add(jwtService.validade());
+            }
+
+            // Assert
+            assertThat(validades).allSatisfy(v -> assertThat(v).isBetween(EXPIRATION_MILLIS - 600_000, EXPIRATION_MILLIS));
+            assertThat(validades).hasSizeGreaterThan(1);
+        }
+
+        @Test
+        @DisplayName("Deve levar a validade sorteada para o exp do token")
+        void deveAplicarJitterNoToken() {
+            // Arrange
+            ReflectionTestUtils.setField(jwtService, "expirationJitterMillis", 600_000L);
+            Instant antes = Instant.now();
+
+            // Act
+            Instant expiraEm = jwtService.extractExpirationInstant(jwtService.generateToken(filial));
+
+            // Assert
+            assertThat(expiraEm).isBetween(antes.plusMillis(EXPIRATION_MILLIS - 601_000),
+                    Instant.now().plusMillis(EXPIRATION_MILLIS));
+        }
+
+        @Test
+        @DisplayName("Deve sugerir a renovação dentro da janela antes do vencimento")
+        void deveSugerirRenovacaoNaJanela() {
+            // Arrange
+            Instant expiraEm = Instant.now().plusMillis(EXPIRATION_MILLIS);
+            assertThat(jwtService.renovarEm(expiraEm)).isNull();
+            ReflectionTestUtils.setField(jwtService, "renewalWindowMillis", 300_000L);
+
+            // Act
+            Instant renovarEm = jwtService.renovarEm(expiraEm);
+
+            // Assert
+            assertThat(renovarEm).isBetween(expiraEm.minusMillis(300_000), expiraEm.minusMillis(1));
+        }
+
+        @Test
+        @DisplayName("Deve achatar o pico de re-login da rede com jitter e janela de renovação")
+        void deveAchatarPicoDeRelogin() {
+            // Arrange
+            long hora = 3_600_000;
+            JwtService fixo = ExpiracaoJitterSimulacao.jwtService(hora, 0, 0);
+            JwtService espalhado = ExpiracaoJitterSimulacao.jwtService(hora, 900_000, 300_000);
+
+            // Act
+            ExpiracaoJitterSimulacao.Resultado semJitter =
+                    ExpiracaoJitterSimulacao.simular(fixo, 5_000, 120_000, 10 * hora);
+            ExpiracaoJitterSimulacao.Resultado comJitter =
+                    ExpiracaoJitterSimulacao.simular(espalhado, 5_000, 120_000, 10 * hora);
+
+            // Assert
+            assertThat(semJitter.picoPorMinuto()).isGreaterThan(2_000);
+            assertThat(comJitter.picoPorMinuto()).isLessThan(semJitter.picoPorMinuto() / 4);
+        }
+    }
 }
@@ -0,0 +1,142 @@
+package com.example.demo.api.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LoginAuditoriaTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Integer> lotes = new CopyOnWriteArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    private LoginAuditoria criar(int capacidade, int tamanhoLote, long intervaloMillis,
+                                 LoginAuditoria.PoliticaBufferCheio politica) {
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    Collection<EventoLogin> lote = invocation.getArgument(1);
+                    lotes.add(lote.size());
+                    return new int[0][0];
+                });
+        return new LoginAuditoria(jdbcTemplate, meterRegistry, capacidade, tamanhoLote, intervaloMillis, politica, 10);
+    }
+
+    private static EventoLogin evento(int i) {
+        return new EventoLogin(i, "filial" + i + "@teste.com", EventoLogin.Resultado.SUCESSO,
+                EventoLogin.Motivo.OK, "10.0.0.1", Instant.now());
+    }
+
+    @Nested
+    @DisplayName("Testes de buffer")
+    class Buffer {
+
+        @Test
+        @DisplayName("Deve descartar e contar eventos com o buffer cheio na política DROP")
+        void deveDescartarComBufferCheio() {
+            // Arrange
+            LoginAuditoria auditoria = criar(2, 10, 1000, LoginAuditoria.PoliticaBufferCheio.DROP);
+
+            // Act
+            boolean primeiro = auditoria.registrar(evento(1));
+            boolean segundo = auditoria.registrar(evento(2));
+            boolean terceiro = auditoria.registrar(evento(3));
+
+            // Assert
+            assertThat(primeiro).isTrue();
+            assertThat(segundo).isTrue();
+            assertThat(terceiro).isFalse();
+            assertThat(meterRegistry.counter("auth.audit.dropped").count()).isEqualTo(1.0);
+            assertThat(meterRegistry.get("auth.audit.buffer.fill").gauge().value()).isEqualTo(1.0);
+            verify(jdbcTemplate, never()).batchUpdate(anyString(), any(Collection.class), anyInt(),
+                    any(ParameterizedPreparedStatementSetter.class));
+        }
+
+        @Test
+        @DisplayName("Deve esperar e depois descartar com o buffer cheio na política BLOCK")
+        void deveEsperarAntesDeDescartar() {
+            // Arrange
+            LoginAuditoria auditoria = criar(1, 10, 1000, LoginAuditoria.PoliticaBufferCheio.BLOCK);
+            auditoria.registrar(evento(1));
+
+            // Act
+            long inicio = System.nanoTime();
+            boolean aceito = auditoria.registrar(evento(2));
+            long esperaMillis = (System.nanoTime() - inicio) / 1_000_000L;
+
+            // Assert
+            assertThat(aceito).isFalse();
+            assertThat(esperaMillis).isGreaterThanOrEqualTo(9);
+            assertThat(meterRegistry.counter("auth.audit.dropped").count()).isEqualTo(1.0);
+        }
+    }
+
+    @Nested
+    @DisplayName("Testes de gravação")
+    class Gravacao {
+
+        @Test
+        @DisplayName("Deve gravar em lotes de no máximo batch-size")
+        void deveGravarEmLotes() throws Exception {
+            // Arrange
+            LoginAuditoria auditoria = criar(100, 4, 200, LoginAuditoria.PoliticaBufferCheio.DROP);
+            for (int i = 0; i < 10; i++) {
+                auditoria.registrar(evento(i));
+            }
+
+            // Act
+            auditoria.start();
+            long prazo = System.currentTimeMillis() + 5000;
+            while (meterRegistry.counter("auth.audit.written").count() < 10 && System.currentTimeMillis() < prazo) {
+                Thread.sleep(10);
+            }
+            auditoria.stop();
+
+            // Assert
+            assertThat(meterRegistry.counter("auth.audit.written").count()).isEqualTo(10.0);
+            assertThat(lotes).allSatisfy(tamanho -> assertThat(tamanho).isLessThanOrEqualTo(4));
+            assertThat(lotes).hasSizeGreaterThanOrEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Deve drenar o buffer ao parar")
+        void deveDrenarAoParar() {
+            // Arrange
+            LoginAuditoria auditoria = criar(100, 50, 300, LoginAuditoria.PoliticaBufferCheio.DROP);
+            auditoria.start();
+            List<EventoLogin> eventos = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                eventos.add(evento(i));
+            }
+            eventos.forEach(auditoria::registrar);
+
+            // Act
+            auditoria.stop();
+
+            // Assert
+            assertThat(auditoria.isRunning()).isFalse();
+            assertThat(auditoria.pendentes()).isZero();
+            assertThat(meterRegistry.counter("auth.audit.written").count()).isEqualTo(7.0);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.demo.api.service;
+
+import com.example.demo.api.dto.LoginRequest;
+import com.example.demo.api.dto.LoginResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginCoalescerTest {
+
+    private final LoginCoalescer<LoginResponse> coalescer = new LoginCoalescer<>();
+
+    @Test
+    @DisplayName("Deve executar uma única verificação para logins idênticos simultâneos")
+    void deveJuntarLoginsIdenticos() throws Exception {
+        // Arrange
+        LoginRequest request = new LoginRequest("filial@teste.com", "senha");
+        CountDownLatch liberar = new CountDownLatch(1);
+        AtomicInteger verificacoes = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            // Act
+            List<Future<LoginResponse>> respostas = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                respostas.add(executor.submit(() -> coalescer.executar(request, () -> {
+                    verificacoes.incrementAndGet();
+                    aguardar(liberar);
+                    return new LoginResponse("token", "Bearer", Instant.now());
+                })));
+            }
+            Thread.sleep(200);
+            liberar.countDown();
+
+            // Assert
+            LoginResponse primeira = respostas.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<LoginResponse> resposta : respostas) {
+                assertThat(resposta.get(5, TimeUnit.SECONDS)).isSameAs(primeira);
+            }
+            assertThat(verificacoes).hasValue(1);
+            assertThat(coalescer.emAndamento()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Não deve juntar tentativas com senhas diferentes")
+    void naoDeveJuntarSenhasDiferentes() throws Exception {
+        // Arrange
+        CountDownLatch liberar = new CountDownLatch(1);
+        AtomicInteger verificacoes = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // Act
+            Future<LoginResponse> certa = executor.submit(() -> coalescer.executar(
+                    new LoginRequest("filial@teste.com", "certa"), () -> {
+                        verificacoes.incrementAndGet();
+                        aguardar(liberar);
+                        return new LoginResponse("token", "Bearer", Instant.now());
+                    }));
+            Future<LoginResponse> errada = executor.submit(() -> coalescer.executar(
+                    new LoginRequest("filial@teste.com", "errada"), () -> {
+                        verificacoes.incrementAndGet();
+                        aguardar(liberar);
+                        return new LoginResponse("outro", "Bearer", Instant.now());
+                    }));
+            Thread.sleep(200);
+            liberar.countDown();
+
+            // Assert
+            assertThat(certa.get(5, TimeUnit.SECONDS).token()).isEqualTo("token");
+            assertThat(errada.get(5, TimeUnit.SECONDS).token()).isEqualTo("outro");
+            assertThat(verificacoes).hasValue(2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve propagar a mesma exceção e limpar a entrada")
+    void devePropagarExcecao() {
+        // Arrange
+        LoginRequest request = new LoginRequest("filial@teste.com", "errada");
+
+        // Act & Assert
+        assertThatThrownBy(() -> coalescer.executar(request, () -> {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Login ou senha invalidos");
+        }))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("Login ou senha invalidos");
+        assertThat(coalescer.emAndamento()).isZero();
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
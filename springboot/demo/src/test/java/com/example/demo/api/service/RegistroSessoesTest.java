@@ -0,0 +1,186 @@
+package com.example.demo.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RegistroSessoesTest {
+
+    private static final long HORA = 3_600_000;
+
+    private final AtomicLong agora = new AtomicLong(1_000_000);
+    private final List<String> revogadas = new ArrayList<>();
+
+    private RegistroSessoes registro(int limite, RegistroSessoes.Politica politica) {
+        return new RegistroSessoes(limite, politica, 60_000, new SimpleMeterRegistry(), agora::get,
+                sessao -> {
+                    if (sessao.handleOpaco() != null) {
+                        revogadas.add(sessao.handleOpaco());
+                    }
+                });
+    }
+
+    @Test
+    @DisplayName("Deve contar as sessões por filial")
+    void deveContarPorFilial() {
+        // Arrange
+        RegistroSessoes registro = registro(0, RegistroSessoes.Politica.DESCARTAR_MAIS_ANTIGA);
+
+        // Act
+        registro.abrir(1, 1, null, agora.get() + HORA);
+        registro.abrir(1, 2, null, agora.get() + HORA);
+        registro.abrir(2, 3, "c", agora.get() + HORA);
+        Map<Integer, Integer> contagens = new HashMap<>();
+        registro.paraCada(contagens::put);
+
+        // Assert
+        assertThat(contagens).containsEntry(1, 2).containsEntry(2, 1).hasSize(2);
+        assertThat(registro.totalAtivas()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve descartar a sessão mais antiga ao passar do limite")
+    void deveDescartarMaisAntiga() {
+        // Arrange
+        RegistroSessoes registro = registro(2, RegistroSessoes.Politica.DESCARTAR_MAIS_ANTIGA);
+        registro.abrir(1, 1, "a", agora.get() + HORA);
+        registro.abrir(1, 2, null, agora.get() + HORA);
+
+        // Act
+        registro.abrir(1, 3, null, agora.get() + HORA);
+
+        // Assert
+        assertThat(registro.ativas(1)).isEqualTo(2);
+        assertThat(registro.descartada(1)).isTrue();
+        assertThat(registro.descartada(2)).isFalse();
+        assertThat(registro.descartada(99)).isFalse();
+        assertThat(revogadas).containsExactly("a");
+    }
+
+    @Test
+    @DisplayName("Deve recusar o login ao passar do limite com a política REJEITAR")
+    void deveRejeitarAcimaDoLimite() {
+        // Arrange
+        RegistroSessoes registro = registro(1, RegistroSessoes.Politica.REJEITAR);
+        registro.abrir(1, 1, null, agora.get() + HORA);
+
+        // Act & Assert
+        assertThatThrownBy(() -> registro.abrir(1, 2, null, agora.get() + HORA))
+                .isInstanceOf(LimiteSessoesException.class);
+        assertThat(registro.ativas(1)).isEqualTo(1);
+        assertThat(registro.descartada(1)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve liberar a vaga de sessão já expirada antes de recusar")
+    void deveLiberarExpiradaAntesDeRejeitar() {
+        // Arrange
+        RegistroSessoes registro = registro(1, RegistroSessoes.Politica.REJEITAR);
+        registro.abrir(1, 1, null, agora.get() + 1_000);
+        agora.addAndGet(1_000);
+
+        // Act
+        registro.abrir(1, 2, null, agora.get() + HORA);
+
+        // Assert
+        assertThat(registro.ativas(1)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve fechar só as sessões dos baldes já vencidos na varredura")
+    void deveVarrerBaldesVencidos() {
+        // Arrange
+        RegistroSessoes registro = registro(0, RegistroSessoes.Politica.DESCARTAR_MAIS_ANTIGA);
+        registro.abrir(1, 1, null, agora.get() + 60_000);
+        registro.abrir(1, 2, null, agora.get() + HORA);
+        agora.addAndGet(180_000);
+
+        // Act
+        int fechadas = registro.varrer();
+
+        // Assert
+        assertThat(fechadas).isEqualTo(1);
+        assertThat(registro.ativas(1)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve liberar a vaga no logout")
+    void deveEncerrarNoLogout() {
+        // Arrange
+        RegistroSessoes registro = registro(0, RegistroSessoes.Politica.DESCARTAR_MAIS_ANTIGA);
+        registro.abrir(1, 1, "a", agora.get() + HORA);
+
+        // Act
+        registro.encerrar(1);
+        registro.encerrar(1);
+
+        // Assert
+        assertThat(registro.ativas(1)).isZero();
+        assertThat(registro.totalAtivas()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve identificar a sessão pelos primeiros 64 bits do jti")
+    void deveLerIdDoJti() {
+        // Arrange
+        byte[] bytes = new byte[16];
+        new Random(7).nextBytes(bytes);
+        String jti = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        // Act & Assert
+        assertThat(RegistroSessoes.idSessao(jti)).isEqualTo(ByteBuffer.wrap(bytes).getLong());
+        assertThat(RegistroSessoes.idSessao("curto")).isZero();
+        assertThat(RegistroSessoes.idSessao("inválido+/=")).isZero();
+    }
+
+    @Test
+    @DisplayName("Não deve passar do limite com emissões concorrentes")
+    void naoDevePassarDoLimiteEmParalelo() throws Exception {
+        // Arrange
+        RegistroSessoes registro = registro(3, RegistroSessoes.Politica.DESCARTAR_MAIS_ANTIGA);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger ids = new AtomicInteger();
+        List<Future<?>> tarefas = new ArrayList<>();
+
+        // Act
+        for (int t = 0; t < threads; t++) {
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                for (int i = 0; i < 500; i++) {
+                    registro.abrir(1, ids.incrementAndGet(), null, agora.get() + HORA);
+                    assertThat(registro.ativas(1)).isLessThanOrEqualTo(3);
+                }
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert
+        assertThat(registro.ativas(1)).isEqualTo(3);
+        assertThat(registro.totalAtivas()).isEqualTo(3);
+    }
+}
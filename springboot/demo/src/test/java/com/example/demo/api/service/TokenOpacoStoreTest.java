@@ -0,0 +1,172 @@
+package com.example.demo.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenOpacoStoreTest {
+
+    private static final long AGORA = 1_700_000_000_000L;
+
+    private final TokenOpacoStore store = new TokenOpacoStore(64 * 1024, 0.75, new SimpleMeterRegistry());
+
+    @Nested
+    @DisplayName("Emissão e consulta")
+    class EmissaoEConsulta {
+
+        @Test
+        @DisplayName("Deve devolver filial, permissões e expiração do handle emitido")
+        void deveDevolverSessao() {
+            // Arrange
+            String handle = store.emitir(7, 0b1011, AGORA + 60_000);
+
+            // Act
+            TokenOpacoStore.Sessao sessao = store.buscar(handle, AGORA);
+
+            // Assert
+            assertThat(handle).hasSize(TokenOpacoStore.TAMANHO_HANDLE).doesNotContain(".");
+            assertThat(TokenOpacoStore.pareceHandle(handle)).isTrue();
+            assertThat(sessao).isEqualTo(new TokenOpacoStore.Sessao(7, 0b1011, AGORA + 60_000));
+        }
+
+        @Test
+        @DisplayName("Não deve aceitar handle desconhecido, malformado ou JWT")
+        void naoDeveAceitarHandleDesconhecido() {
+            // Arrange
+            store.emitir(7, 1, AGORA + 60_000);
+
+            // Act & Assert
+            assertThat(store.buscar("AAAAAAAAAAAAAAAAAAAAAA", AGORA)).isNull();
+            assertThat(store.buscar("!!!!!!!!!!!!!!!!!!!!!!", AGORA)).isNull();
+            assertThat(store.buscar("eyJhbGciOiJIUzI1NiJ9.e30.sig", AGORA)).isNull();
+            assertThat(TokenOpacoStore.pareceHandle("eyJhbGciOiJIUzI1NiJ9.e30.sig")).isFalse();
+        }
+
+        @Test
+        @DisplayName("Não deve emitir além do fator de carga")
+        void deveRespeitarLimite() {
+            // Arrange
+            int capacidade = store.capacidade();
+
+            // Act
+            for (int i = 0; i < capacidade; i++) {
+                assertThat(store.emitir(i, 1, AGORA + 60_000)).isNotNull();
+            }
+            String excedente = store.emitir(-1, 1, AGORA + 60_000);
+
+            // Assert
+            assertThat(capacidade).isEqualTo(64 * 1024 / TokenOpacoStore.TAMANHO_SLOT * 3 / 4);
+            assertThat(excedente).isNull();
+            assertThat(store.vivos()).isEqualTo(capacidade);
+        }
+    }
+
+    @Nested
+    @DisplayName("Revogação e expiração")
+    class RevogacaoEExpiracao {
+
+        @Test
+        @DisplayName("Deve invalidar o handle na hora da revogação")
+        void deveRevogar() {
+            // Arrange
+            String handle = store.emitir(7, 1, AGORA + 60_000);
+
+            // Act
+            boolean revogado = store.revogar(handle);
+
+            // Assert
+            assertThat(revogado).isTrue();
+            assertThat(store.buscar(handle, AGORA)).isNull();
+            assertThat(store.revogar(handle)).isFalse();
+            assertThat(store.vivos()).isZero();
+        }
+
+        @Test
+        @DisplayName("Deve ignorar sessões vencidas e removê-las na varredura")
+        void deveVarrerExpiradas() {
+            // Arrange
+            String vencido = store.emitir(1, 1, AGORA - 1);
+            String vivo = store.emitir(2, 1, AGORA + 60_000);
+
+            // Act
+            TokenOpacoStore.Sessao antes = store.buscar(vencido, AGORA);
+            int removidas = store.varrer(AGORA);
+
+            // Assert
+            assertThat(antes).isNull();
+            assertThat(removidas).isEqualTo(1);
+            assertThat(store.vivos()).isEqualTo(1);
+            assertThat(store.buscar(vivo, AGORA)).isNotNull();
+        }
+
+        @Test
+        @DisplayName("Deve reaproveitar slots removidos sem perder sessões vivas")
+        void deveReaproveitarSlots() {
+            // Arrange
+            int capacidade = store.capacidade();
+            for (int rodada = 0; rodada < 5; rodada++) {
+                for (int i = 0; i < capacidade; i++) {
+                    String handle = store.emitir(i, 1, AGORA + rodada);
+                    assertThat(handle).isNotNull();
+                }
+                store.varrer(AGORA + rodada);
+            }
+
+            // Act
+            List<String> vivos = new ArrayList<>();
+            for (int i = 0; i < capacidade / 2; i++) {
+                vivos.add(store.emitir(i, 1, AGORA + 60_000));
+            }
+
+            // Assert
+            assertThat(vivos).allSatisfy(handle -> assertThat(store.buscar(handle, AGORA + 10)).isNotNull());
+        }
+    }
+
+    @Test
+    @DisplayName("Consultas concorrentes devem sempre enxergar a própria sessão enquanto outras threads emitem e revogam")
+    void deveSuportarAcessoConcorrente() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            // Act
+            List<Future<Integer>> erros = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int filial = t;
+                erros.add(executor.submit(() -> {
+                    int falhas = 0;
+                    for (int i = 0; i < 2_000; i++) {
+                        String handle = store.emitir(filial, i, AGORA + 60_000);
+                        TokenOpacoStore.Sessao sessao = store.buscar(handle, AGORA);
+                        if (sessao == null || sessao.codigoFilial() != filial || sessao.permissoes() != i) {
+                            falhas++;
+                        }
+                        if (!store.revogar(handle) || store.buscar(handle, AGORA) != null) {
+                            falhas++;
+                        }
+                    }
+                    return falhas;
+                }));
+            }
+
+            // Assert
+            for (Future<Integer> falhas : erros) {
+                assertThat(falhas.get(30, TimeUnit.SECONDS)).isZero();
+            }
+            assertThat(store.vivos()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.api.service;
+
+import com.example.demo.api.model.FilialEntity;
+import com.example.demo.api.security.PermissaoAuthorities;
+import com.example.verificador.ClaimsToken;
+import com.example.verificador.Permissao;
+import com.example.verificador.TokenInvalidoException;
+import com.example.verificador.VerificadorToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Compatibilidade do módulo {@code verificador-token} com os tokens que o {@link JwtService} emite
+ * de fato: o que o serviço aceita, o verificador dos serviços da loja tem que aceitar com as mesmas
+ * claims e os mesmos nomes de authority do {@code PermissaoAuthorities}.
+ */
+class VerificadorTokenCompatibilidadeTest {
+
+    private static final String SECRET = "minha-chave-secreta-com-pelo-menos-32-caracteres-para-hmac";
+
+    private JwtService jwtService;
+    private VerificadorToken verificador;
+    private FilialEntity filial;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "expirationMillis", 3600000L);
+        ReflectionTestUtils.setField(jwtService, "expirationJitterMillis", 600000L);
+        verificador = new VerificadorToken(SECRET);
+
+        filial = FilialEntity.builder()
+                .codigoFilial(7)
+                .nomeFilial("Filial São João \"Centro\"")
+                .login("filial@teste.com")
+                .senhaHash("hash")
+                .ativo(true)
+                .permissoes(Permissao.PADRAO | Permissao.ADMIN.bit())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Deve ler do token de filial as mesmas claims que o JwtService")
+    void deveLerTokenDeFilial() {
+        // Arrange
+        String token = jwtService.generateToken(filial);
+        FilialTokenClaims esperado = jwtService.parseToken(token);
+
+        // Act
+        ClaimsToken claims = verificador.verificar(token);
+
+        // Assert
+        assertThat(claims.login()).isEqualTo(esperado.login());
+        assertThat(claims.expiraEm()).isEqualTo(esperado.expiraEm());
+        assertThat(claims.filialId()).isEqualTo(esperado.filialId());
+        assertThat(claims.nome()).isEqualTo(esperado.nome());
+        assertThat(claims.permissoes()).isEqualTo(esperado.permissoes());
+        assertThat(claims.sessao()).isEqualTo(esperado.sessao()).isNotZero();
+        assertThat(claims.cliente()).isFalse();
+        assertThat(claims.authorities()).containsExactly(nomes(PermissaoAuthorities.de(esperado.permissoes())));
+    }
+
+    @Test
+    @DisplayName("Deve ler o scope do token de cliente de serviço")
+    void deveLerTokenDeCliente() {
+        // Arrange
+        int escopos = Permissao.FERRAMENTA_LEITURA.bit() | Permissao.MATERIAL_LEITURA.bit();
+        String token = jwtService.generateClientToken("estoque-api", escopos, 300_000);
+
+        // Act
+        ClaimsToken claims = verificador.verificar(token);
+
+        // Assert
+        assertThat(claims.cliente()).isTrue();
+        assertThat(claims.login()).isEqualTo("estoque-api");
+        assertThat(claims.permissoes()).isEqualTo(escopos);
+        assertThat(claims.authorities()).containsExactly(nomes(PermissaoAuthorities.deCliente(escopos)));
+    }
+
+    @Test
+    @DisplayName("Deve recusar token do JwtService vencido ou assinado com outro segredo")
+    void deveRecusarVencidoOuOutroSegredo() {
+        // Arrange
+        String token = jwtService.generateToken(filial);
+        long exp = jwtService.extractExpirationInstant(token).toEpochMilli();
+        VerificadorToken depoisDoExp = new VerificadorToken(SECRET.getBytes(StandardCharsets.UTF_8), 0, () -> exp + 1);
+        VerificadorToken outroSegredo = new VerificadorToken("outra-chave-secreta-com-pelo-menos-32-caracteres");
+
+        // Act & Assert
+        assertThatThrownBy(() -> depoisDoExp.verificar(token))
+                .isInstanceOfSatisfying(TokenInvalidoException.class,
+                        ex -> assertThat(ex.getMotivo()).isEqualTo(TokenInvalidoException.Motivo.EXPIRADO));
+        assertThatThrownBy(() -> outroSegredo.verificar(token))
+                .isInstanceOfSatisfying(TokenInvalidoException.class,
+                        ex -> assertThat(ex.getMotivo()).isEqualTo(TokenInvalidoException.Motivo.ASSINATURA));
+    }
+
+    private static String[] nomes(List<GrantedAuthority> authorities) {
+        return authorities.stream().map(GrantedAuthority::getAuthority).toArray(String[]::new);
+    }
+}
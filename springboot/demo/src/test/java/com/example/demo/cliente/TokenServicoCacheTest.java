@@ -0,0 +1,124 @@
+package com.example.demo.cliente;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenServicoCacheTest {
+
+    private static final Instant INICIO = Instant.parse("2024-01-01T00:00:00Z");
+    private static final Duration VALIDADE = Duration.ofMinutes(5);
+
+    private final RelogioManual relogio = new RelogioManual();
+    private final AtomicInteger emissoes = new AtomicInteger();
+
+    @Test
+    @DisplayName("Deve reaproveitar o token até a janela de renovação")
+    void deveReaproveitarToken() throws Exception {
+        // Arrange
+        TokenServicoCache cache = new TokenServicoCache(this::emitir, Duration.ofSeconds(30), relogio);
+
+        // Act
+        String primeiro = cache.token();
+        relogio.avancar(Duration.ofMinutes(4));
+        String segundo = cache.token();
+
+        // Assert
+        assertThat(segundo).isEqualTo(primeiro);
+        assertThat(emissoes).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Deve renovar antes de expirar")
+    void deveRenovarAntesDeExpirar() throws Exception {
+        // Arrange
+        TokenServicoCache cache = new TokenServicoCache(this::emitir, Duration.ofSeconds(30), relogio);
+        String primeiro = cache.token();
+
+        // Act
+        relogio.avancar(Duration.ofSeconds(280));
+        String renovado = cache.token();
+
+        // Assert
+        assertThat(renovado).isNotEqualTo(primeiro);
+        assertThat(emissoes).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Deve seguir com o token atual se a renovação antecipada falhar")
+    void deveManterTokenQuandoRenovacaoFalha() throws Exception {
+        // Arrange
+        boolean[] falhar = {false};
+        TokenServicoCache cache = new TokenServicoCache(() -> {
+            if (falhar[0]) {
+                throw new IOException("servidor fora");
+            }
+            return emitir();
+        }, Duration.ofSeconds(30), relogio);
+        String primeiro = cache.token();
+        falhar[0] = true;
+
+        // Act
+        relogio.avancar(Duration.ofSeconds(280));
+        String naJanela = cache.token();
+        relogio.avancar(Duration.ofSeconds(30));
+
+        // Assert
+        assertThat(naJanela).isEqualTo(primeiro);
+        assertThatThrownBy(cache::token).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    @DisplayName("Deve emitir outro token depois de invalidar")
+    void deveEmitirDepoisDeInvalidar() throws Exception {
+        // Arrange
+        TokenServicoCache cache = new TokenServicoCache(this::emitir, Duration.ofSeconds(30), relogio);
+        String primeiro = cache.token();
+
+        // Act
+        cache.invalidar();
+        String segundo = cache.token();
+
+        // Assert
+        assertThat(segundo).isNotEqualTo(primeiro);
+        assertThat(emissoes).hasValue(2);
+    }
+
+    private TokenServicoCache.Token emitir() {
+        return new TokenServicoCache.Token("token-" + emissoes.incrementAndGet(), relogio.instant().plus(VALIDADE));
+    }
+
+    private static final class RelogioManual extends Clock {
+
+        private Instant agora = INICIO;
+
+        void avancar(Duration duracao) {
+            agora = agora.plus(duracao);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zona) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return agora;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.demo.config;
+
+import com.example.demo.api.model.FilialEntity;
+import com.example.demo.api.security.BancoIndisponivelException;
+import com.example.demo.api.security.FilialDetails;
+import com.example.demo.api.security.FilialPrincipalCache;
+import com.example.demo.api.security.ModoDegradado;
+import com.example.demo.api.service.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.SimpleStatusAggregator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EstadoConectividadeTest {
+
+    private final DataSource dataSource = mock(DataSource.class);
+    private final Connection conexao = mock(Connection.class);
+    private final JwtService jwtService = mock(JwtService.class);
+    private final AtomicLong relogio = new AtomicLong(1_000_000L);
+    private final FilialPrincipalCache principalCache = new FilialPrincipalCache(60_000);
+    private final ModoDegradado modoDegradado = new ModoDegradado(1, 10_000, 900_000, new SimpleMeterRegistry());
+    private EstadoConectividade conectividade;
+
+    @BeforeEach
+    void setUp() {
+        conectividade = new EstadoConectividade(dataSource, jwtService, principalCache, 2, relogio::get);
+        when(jwtService.chavesProntas()).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("Probes devem ler o estado em cache sem pegar conexão do pool")
+    void probesNaoDevemAbrirConexao() throws Exception {
+        // Arrange
+        when(dataSource.getConnection()).thenReturn(conexao);
+        when(conexao.isValid(anyInt())).thenReturn(true);
+        ConectividadeHealthIndicator readiness = new ConectividadeHealthIndicator(conectividade, modoDegradado);
+        conectividade.atualizar();
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            assertThat(readiness.health().getStatus()).isEqualTo(Status.UP);
+        }
+
+        // Assert
+        verify(dataSource, times(1)).getConnection();
+    }
+
+    @Test
+    @DisplayName("Readiness deve ficar fora do ar antes da primeira verificação e DOWN sem banco")
+    void readinessDeveRefletirBanco() throws Exception {
+        // Arrange
+        ConectividadeHealthIndicator readiness = new ConectividadeHealthIndicator(conectividade, modoDegradado);
+        when(dataSource.getConnection()).thenThrow(new SQLException("Communications link failure"));
+
+        // Act
+        Status antes = readiness.health().getStatus();
+        conectividade.atualizar();
+
+        // Assert
+        assertThat(antes).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(readiness.health().getStatus()).isEqualTo(Status.DOWN);
+        assertThat(readiness.health().getDetails()).containsEntry("banco", EstadoConectividade.Banco.INDISPONIVEL);
+    }
+
+    @Test
+    @DisplayName("Readiness deve continuar UP sem banco com o disjuntor aberto e o cache aquecido")
+    void readinessDeveManterModoDegradadoNoBalanceador() throws Exception {
+        // Arrange
+        principalCache.get("centro@loja.com", () -> new FilialDetails(FilialEntity.builder()
+                .codigoFilial(10)
+                .nomeFilial("Filial Centro")
+                .login("centro@loja.com")
+                .senhaHash("hash")
+                .ativo(true)
+                .build()));
+        assertThatThrownBy(() -> modoDegradado.executar(() -> {
+            throw new DataAccessResourceFailureException("Communications link failure");
+        })).isInstanceOf(BancoIndisponivelException.class);
+        when(dataSource.getConnection()).thenThrow(new SQLException("Communications link failure"));
+        ConectividadeHealthIndicator conectividadeHealth = new ConectividadeHealthIndicator(conectividade, modoDegradado);
+
+        // Act
+        conectividade.atualizar();
+        Status componente = conectividadeHealth.health().getStatus();
+        Status grupo = new SimpleStatusAggregator().getAggregateStatus(Set.of(Status.UP, componente));
+
+        // Assert
+        assertThat(modoDegradado.getEstado()).isEqualTo(ModoDegradado.Estado.ABERTO);
+        assertThat(componente).isEqualTo(ModoDegradadoHealthIndicator.DEGRADADO);
+        assertThat(grupo).isEqualTo(Status.UP);
+    }
+
+    @Test
+    @DisplayName("Readiness deve ficar DOWN quando a chave JWT não pode ser montada")
+    void readinessDeveRefletirChave() throws Exception {
+        // Arrange
+        when(dataSource.getConnection()).thenReturn(conexao);
+        when(conexao.isValid(anyInt())).thenReturn(true);
+        when(jwtService.chavesProntas()).thenReturn(false);
+
+        // Act
+        conectividade.atualizar();
+
+        // Assert
+        assertThat(new ConectividadeHealthIndicator(conectividade, modoDegradado).health().getStatus()).isEqualTo(Status.DOWN);
+    }
+
+    @Test
+    @DisplayName("Liveness deve cair só quando a verificação de fundo para")
+    void livenessDeveDetectarVerificadorParado() throws Exception {
+        // Arrange
+        when(dataSource.getConnection()).thenThrow(new SQLException("Communications link failure"));
+        VerificadorHealthIndicator liveness = new VerificadorHealthIndicator(conectividade, 30_000);
+        conectividade.atualizar();
+
+        // Act
+        Status comBancoFora = liveness.health().getStatus();
+        relogio.addAndGet(31_000);
+
+        // Assert
+        assertThat(comBancoFora).isEqualTo(Status.UP);
+        assertThat(liveness.health().getStatus()).isEqualTo(Status.DOWN);
+    }
+}
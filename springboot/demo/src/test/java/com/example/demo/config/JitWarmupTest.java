@@ -0,0 +1,84 @@
+package com.example.demo.config;
+
+import com.example.demo.api.repository.FilialRepository;
+import com.example.demo.api.service.JwtService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JitWarmupTest {
+
+    @Mock
+    private FilialRepository filialRepository;
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", "minha-chave-secreta-com-pelo-menos-32-caracteres-para-hmac");
+        ReflectionTestUtils.setField(jwtService, "expirationMillis", 3600000L);
+    }
+
+    private JitWarmup warmup(long orcamentoMillis) {
+        return new JitWarmup(jwtService, new BCryptPasswordEncoder(4), filialRepository,
+                new ObjectMapper().registerModule(new JavaTimeModule()), true, orcamentoMillis, 5);
+    }
+
+    @Test
+    @DisplayName("Readiness deve ficar fora do ar até o aquecimento terminar")
+    void readinessDeveEsperarAquecimento() {
+        // Arrange
+        JitWarmup warmup = warmup(300);
+        WarmupHealthIndicator indicator = new WarmupHealthIndicator(warmup);
+
+        // Act & Assert
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        warmup.executar();
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    @DisplayName("Deve exercitar a busca por login com dado sintético e respeitar o orçamento")
+    void deveRespeitarOrcamento() {
+        // Act
+        JitWarmup.Resultado resultado = warmup(300).executar();
+
+        // Assert
+        assertThat(resultado.rodadas()).isPositive();
+        assertThat(resultado.duracaoMillis()).isLessThan(5000);
+        verify(filialRepository, atLeastOnce()).findByLogin("__warmup__@local");
+    }
+
+    @Test
+    @DisplayName("Deve seguir aquecendo sem banco quando a consulta falha")
+    void deveSeguirSemBanco() {
+        // Arrange
+        when(filialRepository.findByLogin(anyString()))
+                .thenThrow(new DataAccessResourceFailureException("sem conexão"));
+
+        // Act
+        JitWarmup.Resultado resultado = warmup(300).executar();
+
+        // Assert
+        assertThat(resultado.rodadas()).isPositive();
+        verify(filialRepository, times(1)).findByLogin(anyString());
+    }
+}
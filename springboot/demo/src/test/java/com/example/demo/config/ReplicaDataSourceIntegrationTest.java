@@ -0,0 +1,112 @@
+package com.example.demo.config;
+
+import com.example.demo.api.model.FilialEntity;
+import com.example.demo.api.repository.FilialRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles({"test", "replica"})
+class ReplicaDataSourceIntegrationTest {
+
+    private static final String SQL_INSERIR = """
+            INSERT INTO tb_filial (nome_filial, login, senha_hash, ativo, atualizado_em)
+            VALUES (?, ?, 'hash', TRUE, ?)""";
+
+    @Autowired
+    private FilialRepository filialRepository;
+
+    @Autowired
+    private MonitorReplica monitor;
+
+    @Autowired
+    @Qualifier("dataSourcePrimario")
+    private DataSource primario;
+
+    @Autowired
+    @Qualifier("dataSourceReplica")
+    private DataSource replica;
+
+    private JdbcTemplate jdbcPrimario;
+    private JdbcTemplate jdbcReplica;
+
+    @BeforeEach
+    void prepararBancos() {
+        // em produção a réplica recebe o esquema pela replicação; aqui são dois H2 independentes
+        Flyway.configure().dataSource(replica).load().migrate();
+        jdbcPrimario = new JdbcTemplate(primario);
+        jdbcReplica = new JdbcTemplate(replica);
+        jdbcPrimario.update("DELETE FROM tb_filial");
+        jdbcReplica.update("DELETE FROM tb_filial");
+    }
+
+    @Test
+    @DisplayName("Deve buscar o login na réplica quando ela está em dia")
+    void deveLerDaReplicaEmDia() {
+        // Arrange - linha só na réplica, para saber de onde veio a leitura
+        jdbcReplica.update(SQL_INSERIR, "Filial Replica", "replica@test.com", agoraMenos(0));
+        monitor.verificar();
+
+        // Act
+        var filial = filialRepository.findByLogin("replica@test.com");
+
+        // Assert
+        assertThat(monitor.replicaUtilizavel()).isTrue();
+        assertThat(monitor.getAtrasoMillis()).isZero();
+        assertThat(filial).map(FilialEntity::getNomeFilial).contains("Filial Replica");
+    }
+
+    @Test
+    @DisplayName("Deve voltar ao primário quando a réplica atrasa além do tolerado")
+    void deveLerDoPrimarioComReplicaAtrasada() {
+        // Arrange - escrita de 5 s atrás que ainda não chegou à réplica
+        jdbcPrimario.update(SQL_INSERIR, "Filial Primario", "primario@test.com", agoraMenos(5000));
+        monitor.verificar();
+
+        // Act
+        var filial = filialRepository.findByLogin("primario@test.com");
+
+        // Assert
+        assertThat(monitor.replicaUtilizavel()).isFalse();
+        assertThat(monitor.getAtrasoMillis()).isGreaterThanOrEqualTo(5000);
+        assertThat(filial).map(FilialEntity::getNomeFilial).contains("Filial Primario");
+    }
+
+    @Test
+    @DisplayName("Deve gravar sempre no primário")
+    void deveGravarNoPrimario() {
+        // Arrange
+        monitor.verificar();
+
+        // Act
+        filialRepository.save(FilialEntity.builder()
+                .nomeFilial("Filial Nova")
+                .login("nova@test.com")
+                .senhaHash("hash")
+                .ativo(true)
+                .build());
+
+        // Assert
+        assertThat(monitor.replicaUtilizavel()).isTrue();
+        assertThat(jdbcPrimario.queryForObject("SELECT COUNT(*) FROM tb_filial", Integer.class)).isEqualTo(1);
+        assertThat(jdbcReplica.queryForObject("SELECT COUNT(*) FROM tb_filial", Integer.class)).isZero();
+    }
+
+    private static Timestamp agoraMenos(long millis) {
+        return new Timestamp(System.currentTimeMillis() - millis);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.config;
+
+import com.example.demo.api.model.FilialEntity;
+import com.example.demo.api.repository.FilialRepository;
+import com.example.demo.api.service.JwtService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TracingIntegrationTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FilialRepository filialRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private ExportadorSpansLocal exportador;
+
+    private FilialEntity filial;
+
+    @BeforeEach
+    void prepararBanco() {
+        filialRepository.deleteAll();
+        filial = filialRepository.save(FilialEntity.builder()
+                .nomeFilial("Filial Tracing")
+                .login("tracing@test.com")
+                .senhaHash(passwordEncoder.encode("password"))
+                .ativo(true)
+                .build());
+        exportador.limpar();
+    }
+
+    @Test
+    @DisplayName("Deve exportar as etapas do login no trace recebido em traceparent")
+    void deveExportarEtapasDoLogin() throws Exception {
+        // Act
+        mockMvc.perform(post("/auth/login")
+                        .header("traceparent", "00-" + TRACE_ID + "-00f067aa0ba902b7-01")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"login":"tracing@test.com","senha":"password"}
+                                """))
+                .andExpect(status().isOk());
+
+        // Assert
+        List<ExportadorSpansLocal.SpanExportado> spans = exportador.spans();
+        assertThat(spans).extracting(ExportadorSpansLocal.SpanExportado::nome)
+                .contains("auth.login.busca", "auth.login.bcrypt", "auth.login.assinatura",
+                        "auth.resposta.serializacao");
+        // tarefas @Scheduled também geram spans (trace próprio); só os da requisição interessam aqui
+        assertThat(spans).filteredOn(span -> span.nome().startsWith("auth."))
+                .allSatisfy(span -> assertThat(span.traceId()).isEqualTo(TRACE_ID));
+    }
+
+    @Test
+    @DisplayName("Deve exportar verificação do token e busca do principal no filtro")
+    void deveExportarEtapasDoFiltro() throws Exception {
+        // Arrange
+        String token = jwtService.generateToken(filial);
+
+        // Act
+        mockMvc.perform(get("/auth/inexistente").header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+
+        // Assert
+        assertThat(exportador.spans()).extracting(ExportadorSpansLocal.SpanExportado::nome)
+                .contains("auth.filtro.token", "auth.filtro.principal");
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.config;
+
+import brave.Tracing;
+import brave.propagation.ThreadLocalCurrentTraceContext;
+import brave.sampler.Sampler;
+import com.example.demo.api.model.FilialEntity;
+import com.example.demo.api.service.FilialTokenClaims;
+import com.example.demo.api.service.JwtService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.brave.bridge.BraveBaggageManager;
+import io.micrometer.tracing.brave.bridge.BraveCurrentTraceContext;
+import io.micrometer.tracing.brave.bridge.BraveTracer;
+import io.micrometer.tracing.handler.DefaultTracingObservationHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do span em volta da verificação de token do filtro, com o mesmo Brave e o mesmo
+ * {@link ExportadorSpansLocal} (em memória) da aplicação. {@code amostragem} é a probabilidade de
+ * {@code management.tracing.sampling.probability}: 0 mede só o custo de decidir e propagar.
+ * <p>
+ * Não roda no {@code mvn test}. Para executar:
+ * <pre>
+ * ./mvnw -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *      com.example.demo.config.TracingOverheadBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TracingOverheadBenchmark {
+
+    @Param({"0.0", "0.1", "1.0"})
+    public float amostragem;
+
+    private String token;
+    private JwtService jwtService;
+    private Tracing tracing;
+    private ObservationRegistry registry;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", "minha-chave-secreta-com-pelo-menos-32-caracteres-para-hmac");
+        ReflectionTestUtils.setField(jwtService, "expirationMillis", 3600000L);
+        token = jwtService.generateToken(FilialEntity.builder()
+                .codigoFilial(42)
+                .nomeFilial("Filial Centro")
+                .login("centro@loja.com")
+                .build());
+
+        ExportadorSpansLocal exportador = new ExportadorSpansLocal(ExportadorSpansLocal.Destino.MEMORY,
+                Path.of("spans.jsonl"), 1000, new ObjectMapper());
+        tracing = Tracing.newBuilder()
+                .currentTraceContext(ThreadLocalCurrentTraceContext.create())
+                .sampler(Sampler.create(amostragem))
+                .addSpanHandler(exportador)
+                .build();
+        BraveTracer tracer = new BraveTracer(tracing.tracer(),
+                new BraveCurrentTraceContext(tracing.currentTraceContext()), new BraveBaggageManager());
+        registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new DefaultTracingObservationHandler(tracer));
+    }
+
+    @TearDown
+    public void tearDown() {
+        tracing.close();
+    }
+
+    @Benchmark
+    public FilialTokenClaims semTracing() {
+        return jwtService.parseToken(token);
+    }
+
+    @Benchmark
+    public FilialTokenClaims comSpan() {
+        return Observation.createNotStarted("auth.filtro.token", registry)
+                .observe(() -> jwtService.parseToken(token));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TracingOverheadBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
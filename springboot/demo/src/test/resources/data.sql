@@ -1,3 +0,0 @@
-INSERT INTO tb_filial (nome_filial, login, senha_hash, ativo)
-VALUES ('Filial Auth Test', 'auth@test.com',
-        '$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5sR8EfrE1J3CPZ.BXJhu7r8r7pTNi', true);
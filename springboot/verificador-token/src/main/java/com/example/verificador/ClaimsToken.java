@@ -0,0 +1,81 @@
+package com.example.verificador;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Claims de um token verificado, que servem também de {@link Principal} da requisição.
+ * <p>
+ * Tokens de filial trazem {@code filialId}, {@code nome} e o bitset {@code perm}; tokens de
+ * cliente de serviço ({@code cliente = true}) trazem o {@code client_id} em {@code login} e as
+ * permissões da claim {@code scope}, sem filial. Um token de filial sem {@code perm} (emitido antes
+ * da claim existir) fica sem permissões: aqui não há banco para completar. {@code sessao} são os
+ * primeiros 64 bits do {@code jti} ({@code 0} sem ele).
+ * <p>
+ * As permissões valem o que estava no token na emissão; uma revogação feita na api-autenticacao
+ * só chega aqui quando o token vencer.
+ */
+public record ClaimsToken(
+        String login,
+        Instant expiraEm,
+        Integer filialId,
+        String nome,
+        int permissoes,
+        boolean cliente,
+        long sessao
+) implements Principal {
+
+    public static final String ROLE_FILIAL = "ROLE_FILIAL";
+    public static final String ROLE_CLIENTE = "ROLE_CLIENTE";
+
+    private static final List<List<String>> AUTHORITIES_FILIAL = montar(ROLE_FILIAL);
+    private static final List<List<String>> AUTHORITIES_CLIENTE = montar(ROLE_CLIENTE);
+
+    @Override
+    public String getName() {
+        return login;
+    }
+
+    public boolean possui(Permissao permissao) {
+        return permissao.presenteEm(permissoes);
+    }
+
+    public Set<Permissao> permissoesConcedidas() {
+        EnumSet<Permissao> conjunto = EnumSet.noneOf(Permissao.class);
+        for (Permissao permissao : Permissao.values()) {
+            if (possui(permissao)) {
+                conjunto.add(permissao);
+            }
+        }
+        return conjunto;
+    }
+
+    /**
+     * Os mesmos nomes de authority que a api-autenticacao usa: o papel ({@link #ROLE_FILIAL} ou
+     * {@link #ROLE_CLIENTE}) seguido dos nomes das permissões. As listas são montadas uma vez por
+     * combinação, sem alocar por requisição; para Spring Security, basta embrulhar cada nome numa
+     * {@code SimpleGrantedAuthority}.
+     */
+    public List<String> authorities() {
+        return (cliente ? AUTHORITIES_CLIENTE : AUTHORITIES_FILIAL).get(permissoes & Permissao.TODAS);
+    }
+
+    private static List<List<String>> montar(String papel) {
+        List<List<String>> tabela = new ArrayList<>(Permissao.TODAS + 1);
+        for (int bits = 0; bits <= Permissao.TODAS; bits++) {
+            List<String> lista = new ArrayList<>();
+            lista.add(papel);
+            for (Permissao permissao : Permissao.values()) {
+                if (permissao.presenteEm(bits)) {
+                    lista.add(permissao.name());
+                }
+            }
+            tabela.add(List.copyOf(lista));
+        }
+        return List.copyOf(tabela);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.verificador;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.security.Principal;
+
+/**
+ * Filtro de servlet que verifica o {@code Authorization: Bearer} com o {@link VerificadorToken}.
+ * <p>
+ * Com token válido a requisição segue com as {@link ClaimsToken} como {@link Principal}
+ * ({@code getUserPrincipal()}), no atributo {@link #ATRIBUTO_CLAIMS} e com {@code isUserInRole}
+ * respondendo pelo papel ({@code FILIAL}/{@code CLIENTE}) e pelos nomes das permissões. Token
+ * inválido ou vencido recebe {@code 401} com a mesma mensagem da api-autenticacao. Sem header a
+ * requisição segue anônima: quem decide se a rota exige token é a aplicação.
+ * <p>
+ * Não depende de Spring: num app Spring Boot, registre com um {@code FilterRegistrationBean}, ou
+ * monte a {@code Authentication} do Spring Security a partir de {@link ClaimsToken#authorities()}.
+ */
+public class FiltroVerificacaoToken implements Filter {
+
+    public static final String ATRIBUTO_CLAIMS = ClaimsToken.class.getName();
+
+    private static final String PREFIXO = "Bearer ";
+
+    private final VerificadorToken verificador;
+
+    public FiltroVerificacaoToken(VerificadorToken verificador) {
+        this.verificador = verificador;
+    }
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) req;
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith(PREFIXO)) {
+            chain.doFilter(req, res);
+            return;
+        }
+
+        ClaimsToken claims;
+        try {
+            claims = verificador.verificar(authHeader.substring(PREFIXO.length()));
+        } catch (TokenInvalidoException ex) {
+            HttpServletResponse response = (HttpServletResponse) res;
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setContentType("application/json");
+            response.getWriter().write("{\"message\": \"Token inválido ou expirado\"}");
+            return;
+        }
+        request.setAttribute(ATRIBUTO_CLAIMS, claims);
+        chain.doFilter(new Autenticada(request, claims), res);
+    }
+
+    private static final class Autenticada extends HttpServletRequestWrapper {
+
+        private final ClaimsToken claims;
+
+        Autenticada(HttpServletRequest request, ClaimsToken claims) {
+            super(request);
+            this.claims = claims;
+        }
+
+        @Override
+        public Principal getUserPrincipal() {
+            return claims;
+        }
+
+        @Override
+        public String getRemoteUser() {
+            return claims.login();
+        }
+
+        @Override
+        public String getAuthType() {
+            return "Bearer";
+        }
+
+        @Override
+        public boolean isUserInRole(String papel) {
+            return claims.authorities().contains(papel) || claims.authorities().contains("ROLE_" + papel);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.verificador;
+
+/**
+ * Permissões de uma filial sobre os cadastros da loja ({@code tb_ferramenta} e
+ * {@code tb_material_construcao}), as mesmas que a api-autenticacao emite e usa.
+ * <p>
+ * Guardadas em {@code tb_filial.permissoes} e na claim {@code perm} do token como um bitset:
+ * o bit de cada permissão é o seu {@code ordinal()}, então novas permissões só podem entrar no
+ * fim da lista. Nos tokens de cliente de serviço vão na claim {@code scope}, pelos nomes separados
+ * por espaço. O nome da constante é a authority usada em
+ * {@code @PreAuthorize("hasAuthority('FERRAMENTA_ESCRITA')")}.
+ */
+public enum Permissao {
+    FERRAMENTA_LEITURA,
+    FERRAMENTA_ESCRITA,
+    MATERIAL_LEITURA,
+    MATERIAL_ESCRITA,
+    /** Operações administrativas da api-autenticacao, como a importação em lote de filiais. */
+    ADMIN;
+
+    /**
+     * Máscara com todos os bits conhecidos.
+     */
+    public static final int TODAS = (1 << values().length) - 1;
+
+    /**
+     * Padrão da coluna: leitura e escrita nos cadastros da loja, o mesmo acesso que as filiais
+     * tinham antes de a coluna existir. Não inclui {@link #ADMIN}.
+     */
+    public static final int PADRAO = FERRAMENTA_LEITURA.bit() | FERRAMENTA_ESCRITA.bit()
+            | MATERIAL_LEITURA.bit() | MATERIAL_ESCRITA.bit();
+
+    /**
+     * Escopos que um cliente de serviço pode receber. {@link #ADMIN} fica só para filiais: um token
+     * de client credentials não cadastra clientes, não lista sessões nem importa filiais.
+     */
+    public static final int ESCOPOS_CLIENTE = PADRAO;
+
+    /**
+     * Bitset no formato da claim {@code scope}: os nomes das permissões separados por espaço, na
+     * ordem do enum.
+     */
+    public static String escopo(int permissoes) {
+        StringBuilder sb = new StringBuilder();
+        for (Permissao permissao : values()) {
+            if (permissao.presenteEm(permissoes)) {
+                if (sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(permissao.name());
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Inverso de {@link #escopo(int)}: bitset de uma claim {@code scope}; aceita qualquer ordem e
+     * espaços repetidos. Devolve {@code -1} se algum nome não for uma permissão conhecida.
+     */
+    public static int doEscopo(String escopo) {
+        int permissoes = 0;
+        for (String nome : escopo.trim().split(" +")) {
+            if (nome.isEmpty()) {
+                continue;
+            }
+            try {
+                permissoes |= valueOf(nome).bit();
+            } catch (IllegalArgumentException ex) {
+                return -1;
+            }
+        }
+        return permissoes;
+    }
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public boolean presenteEm(int permissoes) {
+        return (permissoes & bit()) != 0;
+    }
+}
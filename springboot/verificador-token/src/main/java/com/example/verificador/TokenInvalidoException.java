@@ -0,0 +1,30 @@
+package com.example.verificador;
+
+/**
+ * Token recusado pelo {@link VerificadorToken}. O {@link Motivo} separa o token vencido (o app
+ * deve logar de novo) do resto, que não deveria acontecer com um cliente correto.
+ */
+public class TokenInvalidoException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Motivo motivo;
+
+    public TokenInvalidoException(Motivo motivo, String mensagem) {
+        super(mensagem);
+        this.motivo = motivo;
+    }
+
+    public Motivo getMotivo() {
+        return motivo;
+    }
+
+    public enum Motivo {
+        /** Não é um JWT no formato emitido pela api-autenticacao (ou tem claim desconhecida). */
+        FORMATO,
+        /** Handle de token opaco: só a api-autenticacao sabe validar. */
+        OPACO,
+        ASSINATURA,
+        EXPIRADO
+    }
+}
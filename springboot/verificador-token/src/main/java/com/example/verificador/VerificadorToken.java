@@ -0,0 +1,485 @@
+package com.example.verificador;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Verifica, no próprio processo, os JWT HS256 emitidos pela api-autenticacao, com o mesmo segredo
+ * ({@code JWT_SECRET}) e sem chamar o serviço.
+ * <p>
+ * Tudo o que é caro sai do caminho da requisição na construção: a chave vira um {@link Mac}
+ * clonado por thread, o token é copiado para um buffer também por thread, e o cabeçalho esperado
+ * ({@code {"alg":"HS256"}}) fica pronto em base64url para ser comparado como texto. A verificação
+ * confere o HMAC sobre os bytes crus e lê o corpo plano com um leitor restrito às claims que a
+ * api-autenticacao emite; qualquer outra claim, objeto aninhado ou algoritmo é recusado, então
+ * {@code alg: none} e afins nem chegam ao HMAC.
+ * <p>
+ * Com {@code capacidadeCache > 0}, os tokens já verificados ficam num mapa até vencerem: o mesmo
+ * token repetido pelo app custa uma busca no mapa (e a comparação do texto inteiro, assinatura
+ * incluída) em vez do HMAC. O mapa não passa da capacidade; cheio, os vencidos saem (no máximo
+ * uma varredura por segundo) e, se ainda não houver vaga, o token é verificado sem entrar no cache.
+ * <p>
+ * Handles de token opaco não têm nada para verificar aqui: ficam na memória da api-autenticacao
+ * e são recusados com {@link TokenInvalidoException.Motivo#OPACO}.
+ */
+public final class VerificadorToken {
+
+    private static final String ALGORITMO_MAC = "HmacSHA256";
+    private static final int TAMANHO_ASSINATURA = 32;
+    private static final int TAMANHO_HANDLE_OPACO = 22;
+    private static final long INTERVALO_LIMPEZA_MILLIS = 1_000;
+    private static final int TAMANHO_BUFFER = 512;
+    private static final String CABECALHO = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.US_ASCII));
+
+    private final ThreadLocal<Mac> macs;
+    private final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[TAMANHO_BUFFER]);
+    private final int capacidadeCache;
+    private final LongSupplier relogio;
+    private final ConcurrentMap<String, ClaimsToken> verificados;
+    private volatile long proximaLimpeza;
+
+    public VerificadorToken(String segredo) {
+        this(segredo.getBytes(StandardCharsets.UTF_8), 0, System::currentTimeMillis);
+    }
+
+    public VerificadorToken(String segredo, int capacidadeCache) {
+        this(segredo.getBytes(StandardCharsets.UTF_8), capacidadeCache, System::currentTimeMillis);
+    }
+
+    /**
+     * @param chave           os bytes do segredo, como a api-autenticacao monta (UTF-8 do {@code JWT_SECRET})
+     * @param capacidadeCache quantos tokens verificados guardar; {@code 0} desliga o cache
+     * @param relogio         epoch millis; em produção, {@code System::currentTimeMillis}
+     */
+    public VerificadorToken(byte[] chave, int capacidadeCache, LongSupplier relogio) {
+        if (chave.length < TAMANHO_ASSINATURA) {
+            throw new IllegalArgumentException("O segredo HS256 precisa de pelo menos 256 bits");
+        }
+        SecretKeySpec keySpec = new SecretKeySpec(chave, ALGORITMO_MAC);
+        Mac prototipo = novoMac(keySpec);
+        this.macs = ThreadLocal.withInitial(() -> clonar(prototipo, keySpec));
+        this.capacidadeCache = capacidadeCache;
+        this.relogio = relogio;
+        this.verificados = capacidadeCache > 0 ? new ConcurrentHashMap<>(capacidadeCache) : null;
+    }
+
+    /**
+     * Verifica assinatura, formato e validade e devolve as claims. Lança
+     * {@link TokenInvalidoException} com o motivo da recusa.
+     */
+    public ClaimsToken verificar(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new TokenInvalidoException(TokenInvalidoException.Motivo.FORMATO, "Token ausente");
+        }
+        long agora = relogio.getAsLong();
+        if (verificados != null) {
+            ClaimsToken claims = verificados.get(token);
+            if (claims != null) {
+                return dentroDaValidade(claims, agora);
+            }
+        }
+        ClaimsToken claims = dentroDaValidade(decodificar(token), agora);
+        if (verificados != null) {
+            guardar(token, claims, agora);
+        }
+        return claims;
+    }
+
+    /**
+     * Tokens verificados guardados no cache agora.
+     */
+    public int tamanhoCache() {
+        return verificados == null ? 0 : verificados.size();
+    }
+
+    private static ClaimsToken dentroDaValidade(ClaimsToken claims, long agora) {
+        if (agora > claims.expiraEm().toEpochMilli()) {
+            throw new TokenInvalidoException(TokenInvalidoException.Motivo.EXPIRADO, "Token expirado");
+        }
+        return claims;
+    }
+
+    private void guardar(String token, ClaimsToken claims, long agora) {
+        if (verificados.size() >= capacidadeCache) {
+            if (agora < proximaLimpeza) {
+                return;
+            }
+            proximaLimpeza = agora + INTERVALO_LIMPEZA_MILLIS;
+            verificados.values().removeIf(c -> agora > c.expiraEm().toEpochMilli());
+            if (verificados.size() >= capacidadeCache) {
+                return;
+            }
+        }
+        verificados.put(token, claims);
+    }
+
+    private ClaimsToken decodificar(String token) {
+        int fimCabecalho = CABECALHO.length();
+        if (token.length() == TAMANHO_HANDLE_OPACO && token.indexOf('.') < 0) {
+            throw new TokenInvalidoException(TokenInvalidoException.Motivo.OPACO,
+                    "Token opaco só pode ser validado pela api-autenticacao");
+        }
+        if (token.length() <= fimCabecalho + 2
+                || token.charAt(fimCabecalho) != '.'
+                || !token.startsWith(CABECALHO)) {
+            throw formato();
+        }
+        int fimCorpo = token.indexOf('.', fimCabecalho + 1);
+        if (fimCorpo < 0 || token.indexOf('.', fimCorpo + 1) >= 0) {
+            throw formato();
+        }
+
+        byte[] bytes = bytesDoToken(token);
+        ByteBuffer assinatura;
+        ByteBuffer corpo;
+        try {
+            assinatura = Base64.getUrlDecoder()
+                    .decode(ByteBuffer.wrap(bytes, fimCorpo + 1, token.length() - fimCorpo - 1));
+            corpo = Base64.getUrlDecoder().decode(ByteBuffer.wrap(bytes, fimCabecalho + 1, fimCorpo - fimCabecalho - 1));
+        } catch (IllegalArgumentException ex) {
+            throw formato();
+        }
+        if (assinatura.limit() != TAMANHO_ASSINATURA || assinatura.array().length != TAMANHO_ASSINATURA) {
+            throw new TokenInvalidoException(TokenInvalidoException.Motivo.ASSINATURA, "Assinatura inválida");
+        }
+        Mac mac = macs.get();
+        mac.update(bytes, 0, fimCorpo);
+        if (!MessageDigest.isEqual(mac.doFinal(), assinatura.array())) {
+            throw new TokenInvalidoException(TokenInvalidoException.Motivo.ASSINATURA, "Assinatura inválida");
+        }
+        ClaimsToken claims = new CorpoParser(corpo.array(), corpo.limit()).parse();
+        if (claims == null) {
+            throw formato();
+        }
+        return claims;
+    }
+
+    /**
+     * Copia o token para o buffer da thread em vez de alocar um {@code byte[]} por verificação. Só
+     * vale até a próxima chamada na mesma thread; nada do que sai do {@link #decodificar} aponta para ele.
+     * <p>
+     * Cada char vira um byte, então só passam os do alfabeto base64url e os pontos (já conferidos
+     * por quem chama): um char acima de {@code 0xFF} truncado para o byte baixo viraria outro char
+     * válido, e dois tokens diferentes teriam o mesmo HMAC.
+     */
+    private byte[] bytesDoToken(String token) {
+        int tamanho = token.length();
+        byte[] bytes = buffers.get();
+        if (bytes.length < tamanho) {
+            bytes = new byte[Math.max(tamanho, bytes.length * 2)];
+            buffers.set(bytes);
+        }
+        for (int i = 0; i < tamanho; i++) {
+            char c = token.charAt(i);
+            if (!(c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9'
+                    || c == '-' || c == '_' || c == '.')) {
+                throw formato();
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+
+    private static TokenInvalidoException formato() {
+        return new TokenInvalidoException(TokenInvalidoException.Motivo.FORMATO,
+                "Token fora do formato emitido pela api-autenticacao");
+    }
+
+    private static Mac novoMac(SecretKeySpec keySpec) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITMO_MAC);
+            mac.init(keySpec);
+            return mac;
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HmacSHA256 indisponível", ex);
+        }
+    }
+
+    private static Mac clonar(Mac prototipo, SecretKeySpec keySpec) {
+        try {
+            return (Mac) prototipo.clone();
+        } catch (CloneNotSupportedException ex) {
+            return novoMac(keySpec);
+        }
+    }
+
+    /**
+     * Leitor de JSON restrito ao corpo plano dos tokens da api-autenticacao ({@code sub}, {@code iat},
+     * {@code exp}, {@code jti}, {@code filialId}, {@code nome}, {@code perm} ou {@code scope}).
+     * Qualquer outra coisa faz o parse desistir (retorno {@code null}).
+     */
+    private static final class CorpoParser {
+
+        private final byte[] json;
+        private final int fim;
+        private int pos;
+
+        private String sub;
+        private long exp = Long.MIN_VALUE;
+        private Integer filialId;
+        private String nome;
+        private int perm;
+        private String escopo;
+        private long sessao;
+
+        CorpoParser(byte[] json, int fim) {
+            this.json = json;
+            this.fim = fim;
+        }
+
+        ClaimsToken parse() {
+            if (!consumir('{') || consumir('}')) {
+                return null;
+            }
+            do {
+                String chave = lerString();
+                if (chave == null || !consumir(':') || !lerValor(chave)) {
+                    return null;
+                }
+            } while (consumir(','));
+            if (!consumir('}') || sub == null || exp == Long.MIN_VALUE) {
+                return null;
+            }
+            pularEspacos();
+            if (pos != fim) {
+                return null;
+            }
+            Instant expiraEm = Instant.ofEpochSecond(exp);
+            if (escopo != null) {
+                int escopos = Permissao.doEscopo(escopo);
+                if (escopos < 0 || filialId != null || nome != null || perm != 0 || sessao != 0) {
+                    return null;
+                }
+                return new ClaimsToken(sub, expiraEm, null, null, escopos & Permissao.ESCOPOS_CLIENTE, true, 0);
+            }
+            return new ClaimsToken(sub, expiraEm, filialId, nome, perm, false, sessao);
+        }
+
+        private boolean lerValor(String chave) {
+            switch (chave) {
+                case "sub" -> {
+                    sub = lerString();
+                    return sub != null;
+                }
+                case "nome" -> {
+                    if (consumirLiteral("null")) {
+                        return true;
+                    }
+                    nome = lerString();
+                    return nome != null;
+                }
+                case "exp" -> {
+                    exp = lerLong();
+                    return exp != Long.MIN_VALUE;
+                }
+                case "filialId" -> {
+                    if (consumirLiteral("null")) {
+                        return true;
+                    }
+                    long valor = lerLong();
+                    if (valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE) {
+                        return false;
+                    }
+                    filialId = (int) valor;
+                    return true;
+                }
+                case "perm" -> {
+                    long valor = lerLong();
+                    if (valor < 0 || valor > Integer.MAX_VALUE) {
+                        return false;
+                    }
+                    perm = (int) valor;
+                    return true;
+                }
+                case "jti" -> {
+                    sessao = lerIdSessao();
+                    return sessao != 0;
+                }
+                case "scope" -> {
+                    escopo = lerString();
+                    return escopo != null;
+                }
+                case "iat" -> {
+                    return lerLong() != Long.MIN_VALUE;
+                }
+                default -> {
+                    return false;
+                }
+            }
+        }
+
+        private long lerLong() {
+            pularEspacos();
+            int inicio = pos;
+            boolean negativo = pos < fim && json[pos] == '-';
+            if (negativo) {
+                pos++;
+            }
+            long valor = 0;
+            while (pos < fim && json[pos] >= '0' && json[pos] <= '9') {
+                if (pos - inicio > 18) {
+                    return Long.MIN_VALUE;
+                }
+                valor = valor * 10 + (json[pos++] - '0');
+            }
+            if (pos == inicio + (negativo ? 1 : 0)) {
+                return Long.MIN_VALUE;
+            }
+            if (pos < fim && (json[pos] == '.' || json[pos] == 'e' || json[pos] == 'E')) {
+                return Long.MIN_VALUE;
+            }
+            return negativo ? -valor : valor;
+        }
+
+        /**
+         * Primeiros 64 bits do {@code jti} em base64url, lidos sem criar a {@code String}; {@code 0}
+         * se o valor tiver escape, menos de 11 caracteres ou algum fora do alfabeto.
+         */
+        private long lerIdSessao() {
+            if (!consumir('"')) {
+                return 0;
+            }
+            long id = 0;
+            int lidos = 0;
+            while (pos < fim && json[pos] != '"') {
+                int valor = valorBase64(json[pos++]);
+                if (valor < 0) {
+                    return 0;
+                }
+                if (lidos < 10) {
+                    id = id << 6 | valor;
+                } else if (lidos == 10) {
+                    id = id << 4 | valor >> 2;
+                }
+                lidos++;
+            }
+            if (pos >= fim || lidos < 11) {
+                return 0;
+            }
+            pos++;
+            return id;
+        }
+
+        private static int valorBase64(int c) {
+            if (c >= 'A' && c <= 'Z') {
+                return c - 'A';
+            }
+            if (c >= 'a' && c <= 'z') {
+                return c - 'a' + 26;
+            }
+            if (c >= '0' && c <= '9') {
+                return c - '0' + 52;
+            }
+            if (c == '-') {
+                return 62;
+            }
+            return c == '_' ? 63 : -1;
+        }
+
+        private String lerString() {
+            if (!consumir('"')) {
+                return null;
+            }
+            int inicio = pos;
+            while (pos < fim && json[pos] != '"' && json[pos] != '\\') {
+                pos++;
+            }
+            if (pos >= fim) {
+                return null;
+            }
+            if (json[pos] == '"') {
+                return new String(json, inicio, pos++ - inicio, StandardCharsets.UTF_8);
+            }
+            return lerStringEscapada(inicio);
+        }
+
+        private String lerStringEscapada(int inicio) {
+            StringBuilder sb = new StringBuilder(new String(json, inicio, pos - inicio, StandardCharsets.UTF_8));
+            int trecho = pos;
+            while (pos < fim) {
+                byte b = json[pos];
+                if (b == '"') {
+                    sb.append(new String(json, trecho, pos++ - trecho, StandardCharsets.UTF_8));
+                    return sb.toString();
+                }
+                if (b != '\\') {
+                    pos++;
+                    continue;
+                }
+                sb.append(new String(json, trecho, pos - trecho, StandardCharsets.UTF_8));
+                if (pos + 1 >= fim) {
+                    return null;
+                }
+                byte esc = json[pos + 1];
+                pos += 2;
+                switch (esc) {
+                    case '"', '\\', '/' -> sb.append((char) esc);
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 > fim) {
+                            return null;
+                        }
+                        int cp = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int d = Character.digit(json[pos++], 16);
+                            if (d < 0) {
+                                return null;
+                            }
+                            cp = (cp << 4) | d;
+                        }
+                        sb.append((char) cp);
+                    }
+                    default -> {
+                        return null;
+                    }
+                }
+                trecho = pos;
+            }
+            return null;
+        }
+
+        private boolean consumirLiteral(String literal) {
+            pularEspacos();
+            int n = literal.length();
+            if (pos + n > fim) {
+                return false;
+            }
+            for (int i = 0; i < n; i++) {
+                if (json[pos + i] != literal.charAt(i)) {
+                    return false;
+                }
+            }
+            pos += n;
+            return true;
+        }
+
+        private boolean consumir(char c) {
+            pularEspacos();
+            if (pos < fim && json[pos] == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void pularEspacos() {
+            while (pos < fim && (json[pos] == ' ' || json[pos] == '\t' || json[pos] == '\n' || json[pos] == '\r')) {
+                pos++;
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.verificador;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FiltroVerificacaoTokenTest {
+
+    private final AtomicReference<HttpServletRequest> recebida = new AtomicReference<>();
+    private final FilterChain chain = (req, res) -> recebida.set((HttpServletRequest) req);
+    private final FiltroVerificacaoToken filtro = new FiltroVerificacaoToken(new VerificadorToken(TokensDeTeste.SECRET));
+
+    private MockHttpServletRequest request(String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ferramentas");
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        return request;
+    }
+
+    @Test
+    @DisplayName("Deve seguir com as claims como principal e papéis da filial")
+    void deveAutenticarTokenValido() throws Exception {
+        // Arrange
+        long exp = System.currentTimeMillis() / 1000 + 3600;
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filtro.doFilter(request("Bearer " + TokensDeTeste.filial(exp)), response, chain);
+
+        // Assert
+        HttpServletRequest autenticada = recebida.get();
+        assertThat(autenticada.getUserPrincipal()).isInstanceOf(ClaimsToken.class);
+        assertThat(autenticada.getRemoteUser()).isEqualTo("centro@loja.com");
+        assertThat(autenticada.isUserInRole("FILIAL")).isTrue();
+        assertThat(autenticada.isUserInRole("FERRAMENTA_LEITURA")).isTrue();
+        assertThat(autenticada.isUserInRole("ADMIN")).isFalse();
+        assertThat(autenticada.getAttribute(FiltroVerificacaoToken.ATRIBUTO_CLAIMS)).isSameAs(autenticada.getUserPrincipal());
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Deve responder 401 para token inválido sem chamar a cadeia")
+    void deveRecusarTokenInvalido() throws Exception {
+        // Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filtro.doFilter(request("Bearer " + TokensDeTeste.filial(1)), response, chain);
+
+        // Assert
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(response.getContentAsString()).contains("Token inválido ou expirado");
+        assertThat(recebida.get()).isNull();
+    }
+
+    @Test
+    @DisplayName("Sem Authorization a requisição segue anônima")
+    void deveSeguirSemToken() throws Exception {
+        // Act
+        filtro.doFilter(request(null), new MockHttpServletResponse(), chain);
+
+        // Assert
+        assertThat(recebida.get().getUserPrincipal()).isNull();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.verificador;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+/**
+ * Assina corpos JSON em HS256 como a api-autenticacao, para os testes montarem tokens (inclusive
+ * os que ela nunca emitiria) sem depender do jjwt. A compatibilidade com os tokens de verdade é
+ * testada no demo, que emite com o próprio {@code JwtService}.
+ */
+final class TokensDeTeste {
+
+    static final String SECRET = "minha-chave-secreta-com-pelo-menos-32-caracteres-para-hmac";
+
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+
+    private TokensDeTeste() {
+    }
+
+    static String assinar(String corpo) {
+        return assinar("{\"alg\":\"HS256\"}", corpo, SECRET);
+    }
+
+    static String assinar(String cabecalho, String corpo, String segredo) {
+        String conteudo = B64.encodeToString(cabecalho.getBytes(StandardCharsets.UTF_8)) + "."
+                + B64.encodeToString(corpo.getBytes(StandardCharsets.UTF_8));
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(segredo.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return conteudo + "." + B64.encodeToString(mac.doFinal(conteudo.getBytes(StandardCharsets.US_ASCII)));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    static String filial(long expSegundos) {
+        return assinar("{\"perm\":5,\"nome\":\"Filial Centro\",\"filialId\":42,\"jti\":\"AAECAwQFBgc\","
+                + "\"sub\":\"centro@loja.com\",\"iat\":" + (expSegundos - 3600) + ",\"exp\":" + expSegundos + "}");
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.verificador;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de verificar um token no processo: HMAC e leitura do corpo a cada chamada, e o mesmo token
+ * servido pelo cache de verificados (o caso comum, um app repetindo o token até vencer).
+ * <p>
+ * Não roda no {@code mvn test}. Para executar:
+ * <pre>
+ * cd springboot/verificador-token
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *      com.example.verificador.VerificadorTokenBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VerificadorTokenBenchmark {
+
+    private String token;
+    private VerificadorToken semCache;
+    private VerificadorToken comCache;
+
+    @Setup
+    public void setUp() {
+        token = TokensDeTeste.filial(System.currentTimeMillis() / 1000 + 3600);
+        semCache = new VerificadorToken(TokensDeTeste.SECRET);
+        comCache = new VerificadorToken(TokensDeTeste.SECRET, 10_000);
+    }
+
+    @Benchmark
+    public ClaimsToken semCache() {
+        return semCache.verificar(token);
+    }
+
+    @Benchmark
+    public ClaimsToken comCache() {
+        return comCache.verificar(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VerificadorTokenBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.verificador;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VerificadorTokenTest {
+
+    private static final long EXP = 2_000_000_000L;
+
+    private final AtomicLong agora = new AtomicLong((EXP - 60) * 1000);
+
+    private VerificadorToken verificador(int capacidadeCache) {
+        return new VerificadorToken(TokensDeTeste.SECRET.getBytes(StandardCharsets.UTF_8), capacidadeCache, agora::get);
+    }
+
+    private static void assertMotivo(Runnable verificacao, TokenInvalidoException.Motivo motivo) {
+        assertThatThrownBy(verificacao::run)
+                .isInstanceOf(TokenInvalidoException.class)
+                .satisfies(ex -> assertThat(((TokenInvalidoException) ex).getMotivo()).isEqualTo(motivo));
+    }
+
+    @Nested
+    @DisplayName("Verificação")
+    class Verificacao {
+
+        @Test
+        @DisplayName("Deve devolver as claims de um token de filial")
+        void deveVerificarTokenDeFilial() {
+            // Act
+            ClaimsToken claims = verificador(0).verificar(TokensDeTeste.filial(EXP));
+
+            // Assert
+            assertThat(claims.login()).isEqualTo("centro@loja.com");
+            assertThat(claims.getName()).isEqualTo("centro@loja.com");
+            assertThat(claims.filialId()).isEqualTo(42);
+            assertThat(claims.nome()).isEqualTo("Filial Centro");
+            assertThat(claims.expiraEm()).isEqualTo(Instant.ofEpochSecond(EXP));
+            assertThat(claims.sessao()).isEqualTo(0x0001020304050607L);
+            assertThat(claims.cliente()).isFalse();
+            assertThat(claims.authorities()).containsExactly("ROLE_FILIAL", "FERRAMENTA_LEITURA", "MATERIAL_LEITURA");
+        }
+
+        @Test
+        @DisplayName("Deve mapear o scope de um token de cliente de serviço")
+        void deveVerificarTokenDeCliente() {
+            // Arrange
+            String token = TokensDeTeste.assinar("{\"scope\":\"MATERIAL_LEITURA FERRAMENTA_LEITURA\","
+                    + "\"sub\":\"estoque-api\",\"iat\":" + (EXP - 300) + ",\"exp\":" + EXP + "}");
+
+            // Act
+            ClaimsToken claims = verificador(0).verificar(token);
+
+            // Assert
+            assertThat(claims.cliente()).isTrue();
+            assertThat(claims.filialId()).isNull();
+            assertThat(claims.possui(Permissao.MATERIAL_LEITURA)).isTrue();
+            assertThat(claims.possui(Permissao.MATERIAL_ESCRITA)).isFalse();
+            assertThat(claims.authorities()).containsExactly("ROLE_CLIENTE", "FERRAMENTA_LEITURA", "MATERIAL_LEITURA");
+        }
+
+        @Test
+        @DisplayName("Não deve conceder ADMIN a token de cliente de serviço")
+        void naoDeveConcederAdminACliente() {
+            // Arrange
+            String token = TokensDeTeste.assinar("{\"scope\":\"MATERIAL_LEITURA ADMIN\","
+                    + "\"sub\":\"job-admin\",\"iat\":" + (EXP - 300) + ",\"exp\":" + EXP + "}");
+
+            // Act
+            ClaimsToken claims = verificador(0).verificar(token);
+
+            // Assert
+            assertThat(claims.possui(Permissao.ADMIN)).isFalse();
+            assertThat(claims.authorities()).containsExactly("ROLE_CLIENTE", "MATERIAL_LEITURA");
+        }
+
+        @Test
+        @DisplayName("Deve recusar token vencido")
+        void deveRecusarVencido() {
+            // Arrange
+            agora.set(EXP * 1000 + 1);
+
+            // Act & Assert
+            assertMotivo(() -> verificador(0).verificar(TokensDeTeste.filial(EXP)), TokenInvalidoException.Motivo.EXPIRADO);
+        }
+
+        @Test
+        @DisplayName("Deve recusar assinatura de outro segredo")
+        void deveRecusarOutroSegredo() {
+            // Arrange
+            String token = TokensDeTeste.assinar("{\"alg\":\"HS256\"}", "{\"sub\":\"x\",\"exp\":" + EXP + "}",
+                    "outra-chave-secreta-com-pelo-menos-32-caracteres-para-hmac");
+
+            // Act & Assert
+            assertMotivo(() -> verificador(0).verificar(token), TokenInvalidoException.Motivo.ASSINATURA);
+        }
+
+        @Test
+        @DisplayName("Deve recusar outro algoritmo, claim desconhecida e escopo inválido")
+        void deveRecusarForaDoFormato() {
+            // Arrange
+            String semAlgoritmo = TokensDeTeste.assinar("{\"alg\":\"none\"}", "{\"sub\":\"x\",\"exp\":" + EXP + "}",
+                    TokensDeTeste.SECRET);
+            String claimDesconhecida = TokensDeTeste.assinar("{\"sub\":\"x\",\"admin\":true,\"exp\":" + EXP + "}");
+            String escopoInvalido = TokensDeTeste.assinar("{\"sub\":\"x\",\"scope\":\"TUDO\",\"exp\":" + EXP + "}");
+            VerificadorToken verificador = verificador(0);
+
+            // Act & Assert
+            assertMotivo(() -> verificador.verificar(semAlgoritmo), TokenInvalidoException.Motivo.FORMATO);
+            assertMotivo(() -> verificador.verificar(claimDesconhecida), TokenInvalidoException.Motivo.FORMATO);
+            assertMotivo(() -> verificador.verificar(escopoInvalido), TokenInvalidoException.Motivo.FORMATO);
+            assertMotivo(() -> verificador.verificar("lixo"), TokenInvalidoException.Motivo.FORMATO);
+        }
+
+        @Test
+        @DisplayName("Deve recusar char fora do base64url que tem o mesmo byte baixo de um válido")
+        void deveRecusarCharForaDoAlfabeto() {
+            // Arrange
+            String token = TokensDeTeste.filial(EXP);
+            int posicao = token.lastIndexOf('.') + 1;
+            // U+0100 + c: o byte baixo é o próprio c, então o HMAC dos bytes truncados ainda bateria
+            String adulterado = token.substring(0, posicao) + (char) (0x100 + token.charAt(posicao))
+                    + token.substring(posicao + 1);
+            VerificadorToken verificador = verificador(0);
+
+            // Act & Assert
+            assertThat(verificador.verificar(token).login()).isEqualTo("centro@loja.com");
+            assertMotivo(() -> verificador.verificar(adulterado), TokenInvalidoException.Motivo.FORMATO);
+        }
+
+        @Test
+        @DisplayName("Deve indicar que handle opaco só é validado pelo serviço")
+        void deveRecusarHandleOpaco() {
+            assertMotivo(() -> verificador(0).verificar("AAECAwQFBgcICQoLDA0ODw"), TokenInvalidoException.Motivo.OPACO);
+        }
+    }
+
+    @Nested
+    @DisplayName("Cache de tokens verificados")
+    class Cache {
+
+        @Test
+        @DisplayName("Deve reaproveitar a verificação até o token vencer")
+        void deveReaproveitarAteVencer() {
+            // Arrange
+            VerificadorToken verificador = verificador(10);
+            String token = TokensDeTeste.filial(EXP);
+            ClaimsToken primeira = verificador.verificar(token);
+
+            // Act
+            ClaimsToken segunda = verificador.verificar(token);
+
+            // Assert
+            assertThat(segunda).isSameAs(primeira);
+            agora.set(EXP * 1000 + 1);
+            assertMotivo(() -> verificador.verificar(token), TokenInvalidoException.Motivo.EXPIRADO);
+        }
+
+        @Test
+        @DisplayName("Não deve passar da capacidade e deve abrir vaga tirando os vencidos")
+        void deveRespeitarCapacidade() {
+            // Arrange
+            VerificadorToken verificador = verificador(2);
+            verificador.verificar(TokensDeTeste.filial(EXP - 30));
+            verificador.verificar(TokensDeTeste.filial(EXP));
+
+            // Act
+            verificador.verificar(TokensDeTeste.filial(EXP + 1));
+            int cheio = verificador.tamanhoCache();
+            agora.set((EXP - 30) * 1000 + 1);
+            verificador.verificar(TokensDeTeste.filial(EXP + 2));
+
+            // Assert
+            assertThat(cheio).isEqualTo(2);
+            assertThat(verificador.tamanhoCache()).isEqualTo(2);
+        }
+    }
+}